@@ -1,6 +1,13 @@
 package edu.kit.informatik.adminapp.controller;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.kit.informatik.adminapp.model.Milliseconds;
 
 /**
  * This interface describes a client-side connection through which data can be transmitted.
@@ -20,11 +27,35 @@ public interface ClientChannel extends AutoCloseable {
 
     /**
      * Returns whether a connection to the server exists.
+     * Implementations should answer from the outcome of the previous I/O
+     * instead of exchanging messages with the server.
      *
      * @return  {@code true} if a connection to the server exists
      */
     boolean isConnected();
 
+    /**
+     * Returns whether frames have been negotiated with the server for the current connection,
+     * see {@link Framing}. A server that accepts frames also unescapes the fields
+     * of a request.
+     *
+     * @return  {@code true} if the messages are sent as frames
+     */
+    default boolean isFramed() {
+        return false;
+    }
+
+    /**
+     * Sets the interval after which an idle connection is probed with a heartbeat,
+     * so that a dead connection is detected before the next message is sent.
+     * Channels without heartbeats ignore the interval.
+     *
+     * @param interval  the interval, 0 disables the heartbeat
+     */
+    default void setHeartbeatInterval(final Milliseconds interval) {
+        // No heartbeats by default
+    }
+
     /**
      * Sends a message to the server and returns the response from the server.
      *
@@ -35,6 +66,74 @@ public interface ClientChannel extends AutoCloseable {
      */
     String send(final String message) throws IOException;
 
+    /**
+     * Sends a message to the server and processes the response from the server
+     * while it is being received.
+     * By default, the response is received completely before it is processed.
+     *
+     * @param message   the message
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if no connection to the server exists, or
+     *                      if an error occurs while sending or processing
+     */
+    default <T> T send(final String message, final ResponseReader<T> reader) throws IOException {
+        return reader.read(new StringReader(send(message)));
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and returns the response
+     * from the server. The position of {@code message} is not changed, so that the message
+     * can be sent again.
+     * By default, the message is decoded and sent with {@link #send(String)}.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @return  the response from the server
+     * @throws IOException  if no connection to the server exists, or
+     *                      if an error occurs while sending
+     */
+    default String send(final ByteBuffer message) throws IOException {
+        return send(StandardCharsets.UTF_8.decode(message.duplicate()).toString());
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and processes the response
+     * from the server while it is being received. The position of {@code message} is not
+     * changed, so that the message can be sent again.
+     * By default, the response is received completely before it is processed.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if no connection to the server exists, or
+     *                      if an error occurs while sending or processing
+     */
+    default <T> T send(final ByteBuffer message, final ResponseReader<T> reader)
+            throws IOException {
+        return reader.read(new StringReader(send(message)));
+    }
+
+    /**
+     * Sends several messages to the server and returns the responses from the server
+     * in the order of the messages.
+     * Implementations may pipeline the messages, i.e. send further messages before the
+     * responses to the previous ones have been received.
+     *
+     * @param messages  the messages
+     * @return  the responses from the server, the i-th response belongs to the i-th message
+     * @throws IOException  if no connection to the server exists, or
+     *                      if an error occurs while sending
+     */
+    default List<String> sendAll(final List<String> messages) throws IOException {
+        final List<String> responses = new ArrayList<>(messages.size());
+        for (final String message : messages) {
+            responses.add(send(message));
+        }
+        return responses;
+    }
+
     /**
      * Closes the connection to the server.
      *
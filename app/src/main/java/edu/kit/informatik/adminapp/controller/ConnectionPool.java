@@ -0,0 +1,417 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import edu.kit.informatik.adminapp.model.Hostname;
+import edu.kit.informatik.adminapp.model.Milliseconds;
+import edu.kit.informatik.adminapp.model.Password;
+import edu.kit.informatik.adminapp.model.Port;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class provides a process-wide pool of connections to servers.
+ * Connections are identified by a {@link Key} and shared by all borrowers with the same key.
+ * A connection that is not borrowed by anyone is closed after an idle timeout.
+ * Every connection has an I/O thread, on which the requests of all its borrowers can be
+ * executed asynchronously, see {@link #getExecutor(Key, Factory)}.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class ConnectionPool {
+    private static final long DEFAULT_IDLE_TIMEOUT = 60_000;
+    private static final Milliseconds DEFAULT_HEARTBEAT_INTERVAL = new Milliseconds(30_000);
+    private static final Milliseconds NO_HEARTBEAT = new Milliseconds(0);
+    private static final String THREAD_NAME = "connection-pool";
+    private static final String IO_THREAD_NAME = "server-io";
+    private static final ThreadFactory IO_THREAD_FACTORY = (Runnable runnable) -> {
+        Thread thread = new Thread(runnable, IO_THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    };
+    private static final ConnectionPool INSTANCE = new ConnectionPool(
+            DEFAULT_IDLE_TIMEOUT, DEFAULT_HEARTBEAT_INTERVAL);
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private final long idleTimeout;
+    private final Milliseconds heartbeatInterval;
+
+    /**
+     * Creates a new pool that closes connections which have not been borrowed
+     * for {@code idleTimeout} milliseconds, and probes idle connections with heartbeats.
+     *
+     * @param idleTimeout       the idle timeout in milliseconds, must be &gt; 0
+     * @param heartbeatInterval the heartbeat interval of the connections, 0 disables heartbeats
+     */
+    ConnectionPool(final long idleTimeout, final Milliseconds heartbeatInterval) {
+        this.idleTimeout = idleTimeout;
+        this.heartbeatInterval = heartbeatInterval;
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(
+                (Runnable runnable) -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections,
+                idleTimeout, Math.max(1, idleTimeout / 2), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new pool that closes connections which have not been borrowed
+     * for {@code idleTimeout} milliseconds. No heartbeats are sent.
+     *
+     * @param idleTimeout   the idle timeout in milliseconds, must be &gt; 0
+     */
+    ConnectionPool(final long idleTimeout) {
+        this(idleTimeout, NO_HEARTBEAT);
+    }
+
+    /**
+     * Returns the pool shared by the whole process.
+     *
+     * @return  the pool
+     */
+    public static ConnectionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Borrows a connected channel for the given key.
+     * An existing connection with the same key is reused if it is still connected,
+     * otherwise a new channel is created with {@code factory} and connected.
+     * Closing the returned channel returns the connection to the pool.
+     *
+     * @param key       the key of the connection
+     * @param factory   creates a new, unconnected channel for the key
+     * @return  the borrowed channel
+     * @throws IOException  if an error occurs while establishing the connection
+     */
+    public Lease borrow(final Key key, final Factory factory) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = entry(key, factory);
+            entry.borrowers++;
+        }
+
+        Lease lease = new Lease(entry);
+        try {
+            entry.connectIfNeeded();
+        } catch (IOException e) {
+            lease.close();
+            throw e;
+        }
+        return lease;
+    }
+
+    /**
+     * Returns the I/O thread of the connection for the given key, which executes the
+     * requests of all borrowers of the connection one after another. The connection is
+     * not established; a new, unconnected channel is created with {@code factory} if there
+     * is no connection for the key yet.
+     *
+     * <p>The thread ends once the connection is evicted, which does not happen while it
+     * executes a task or tasks wait for it. A caller should therefore look up the thread
+     * for every task rather than keep it.
+     *
+     * @param key       the key of the connection
+     * @param factory   creates a new, unconnected channel for the key
+     * @return  the I/O thread of the connection
+     */
+    public synchronized Executor getExecutor(final Key key, final Factory factory) {
+        return entry(key, factory).executor;
+    }
+
+    private Entry entry(final Key key, final Factory factory) {
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            ClientChannel channel = factory.createChannel();
+            channel.setHeartbeatInterval(this.heartbeatInterval);
+            entry = new Entry(key, channel);
+            entry.idleSince = System.currentTimeMillis();
+            this.entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Closes all connections that have not been borrowed for longer than the idle timeout,
+     * unless their I/O thread is still busy.
+     */
+    void evictIdleConnections() {
+        final long now = System.currentTimeMillis();
+        final List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> iterator = this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.borrowers == 0 && now - entry.idleSince > this.idleTimeout
+                        && entry.isExecutorIdle()) {
+                    iterator.remove();
+                    evicted.add(entry);
+                }
+            }
+        }
+        for (Entry entry : evicted) {
+            entry.closeQuietly();
+            entry.executor.shutdown();
+        }
+    }
+
+    private synchronized void release(final Entry entry) {
+        entry.borrowers--;
+        if (entry.borrowers == 0) {
+            entry.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized Entry rekey(final Entry entry, final Key key) {
+        if (entry.key.equals(key) || entry.borrowers != 1 || this.entries.containsKey(key)) {
+            return entry;
+        }
+        this.entries.remove(entry.key);
+        entry.key = key;
+        this.entries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * This interface describes a factory for new, unconnected channels.
+     */
+    public interface Factory {
+        /**
+         * Creates a new channel. No connection is established.
+         *
+         * @return  the new channel
+         */
+        ClientChannel createChannel();
+    }
+
+    /**
+     * This class identifies a connection by the server, the connection settings
+     * and the credentials used on the connection.
+     */
+    public static final class Key {
+        private final Hostname hostname;
+        private final Port port;
+        private final Milliseconds timeout;
+        private final Transport transport;
+        private final Framing framing;
+        private final UserId uid;
+        private final Password password;
+
+        /**
+         * Creates a new key.
+         *
+         * @param hostname  the hostname of the server
+         * @param port      the port of the server
+         * @param timeout   the timeout of the connection
+         * @param transport the transport of the connection
+         * @param framing   the framing negotiated on the connection
+         * @param uid       the user ID used on the connection, may be {@code null}
+         * @param password  the password used on the connection, may be {@code null}
+         */
+        public Key(final Hostname hostname, final Port port, final Milliseconds timeout,
+                   final Transport transport, final Framing framing,
+                   final UserId uid, final Password password) {
+            this.hostname = hostname;
+            this.port = port;
+            this.timeout = timeout;
+            this.transport = transport;
+            this.framing = framing;
+            this.uid = uid;
+            this.password = password;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return hostname.equals(key.hostname) && port.equals(key.port)
+                    && timeout.equals(key.timeout) && transport == key.transport
+                    && framing == key.framing
+                    && Objects.equals(uid, key.uid) && Objects.equals(password, key.password);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hostname, port, timeout, transport, framing, uid, password);
+        }
+    }
+
+    /**
+     * This class holds a pooled connection, its I/O thread and the number of its borrowers.
+     * The borrowers are guarded by the pool, the connection by the entry itself.
+     */
+    private static final class Entry {
+        private final ClientChannel channel;
+        private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), IO_THREAD_FACTORY);
+        private Key key;
+        private int borrowers;
+        private long idleSince;
+        private boolean isConnected;
+
+        Entry(final Key key, final ClientChannel channel) {
+            this.key = key;
+            this.channel = channel;
+        }
+
+        synchronized void connectIfNeeded() throws IOException {
+            // Liveness is tracked by the channel, so checking it costs no round trip
+            if (this.isConnected && this.channel.isConnected()) {
+                return;
+            }
+            if (this.isConnected) {
+                closeQuietly();
+            }
+            this.channel.connect();
+            this.isConnected = true;
+        }
+
+        boolean isExecutorIdle() {
+            return this.executor.getActiveCount() == 0 && this.executor.getQueue().isEmpty();
+        }
+
+        synchronized void closeQuietly() {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // The connection is discarded anyway
+            }
+            this.isConnected = false;
+        }
+    }
+
+    /**
+     * This class represents a borrowed connection. Closing it returns the connection
+     * to the pool instead of closing the connection.
+     */
+    public final class Lease implements ClientChannel {
+        private Entry entry;
+        private boolean isClosed;
+
+        private Lease(final Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Reestablishes the pooled connection if it has been interrupted.
+         * The connection is shared, so a connection that is still alive is kept,
+         * and the requests of the other borrowers are not interrupted.
+         *
+         * @throws IOException  if an error occurs while establishing the connection
+         */
+        @Override
+        public void connect() throws IOException {
+            entry().connectIfNeeded();
+        }
+
+        @Override
+        public boolean isConnected() {
+            try {
+                return entry().channel.isConnected();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean isFramed() {
+            try {
+                return entry().channel.isFramed();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public String send(final String message) throws IOException {
+            return entry().channel.send(message);
+        }
+
+        @Override
+        public <T> T send(final String message, final ResponseReader<T> reader)
+                throws IOException {
+            return entry().channel.send(message, reader);
+        }
+
+        @Override
+        public String send(final ByteBuffer message) throws IOException {
+            return entry().channel.send(message);
+        }
+
+        @Override
+        public <T> T send(final ByteBuffer message, final ResponseReader<T> reader)
+                throws IOException {
+            return entry().channel.send(message, reader);
+        }
+
+        @Override
+        public List<String> sendAll(final List<String> messages) throws IOException {
+            return entry().channel.sendAll(messages);
+        }
+
+        /**
+         * Returns the connection to the pool. The connection stays open until it is evicted.
+         */
+        @Override
+        public synchronized void close() {
+            if (!this.isClosed) {
+                this.isClosed = true;
+                release(this.entry);
+            }
+        }
+
+        @Override
+        public synchronized boolean isClosed() {
+            return this.isClosed;
+        }
+
+        /**
+         * Files the borrowed connection under a new key, e.g. after the credentials used
+         * on the connection have changed. Does nothing if the connection is shared with
+         * other borrowers or another connection already exists for the new key.
+         *
+         * @param key   the new key
+         */
+        public synchronized void rekey(final Key key) {
+            if (!this.isClosed) {
+                this.entry = ConnectionPool.this.rekey(this.entry, key);
+            }
+        }
+
+        /**
+         * Returns the I/O thread of the borrowed connection, which stays the same when
+         * the connection could not be filed under a new key, see {@link #rekey(Key)}.
+         * The thread does not end while the connection is borrowed.
+         *
+         * @return  the I/O thread
+         * @throws IOException  if the connection has been returned to the pool
+         */
+        public Executor getExecutor() throws IOException {
+            return entry().executor;
+        }
+
+        private synchronized Entry entry() throws IOException {
+            if (this.isClosed) {
+                throw new IOException();
+            }
+            return this.entry;
+        }
+    }
+}
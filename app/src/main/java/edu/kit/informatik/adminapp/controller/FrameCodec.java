@@ -0,0 +1,288 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class encodes messages as frames: a 4-byte big-endian header with the length of
+ * the payload, followed by the payload in UTF-8. Unlike lines, frames are read without
+ * searching for a delimiter, and the payload is collected in a buffer that is reused
+ * for every message of the connection.
+ *
+ * If compression has been negotiated, payloads of at least the compression threshold are
+ * compressed with DEFLATE, and the highest bit of the header marks a compressed payload.
+ * Smaller payloads are sent as they are, since compressing them would not pay off.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class FrameCodec implements MessageCodec {
+    /** The length of the frame header in bytes. */
+    public static final int HEADER_LENGTH = 4;
+    /** The flag in the frame header that marks a compressed payload. */
+    public static final int COMPRESSED_FLAG = 0x80000000;
+    /**
+     * The maximum length of a payload in bytes, before and after decompression. A longer frame
+     * is rejected before its payload is buffered, and a compressed frame as soon as it inflates
+     * beyond this length, so that neither a garbled header nor a zip bomb exhausts the memory.
+     */
+    public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+    /** The compression threshold of a codec that does not compress. */
+    public static final int NO_COMPRESSION = -1;
+    private static final int INITIAL_PAYLOAD_CAPACITY = 256;
+
+    private final int compressionThreshold;
+    private final Deflater deflater;
+    private final Inflater inflater;
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+    private byte[] payload = new byte[INITIAL_PAYLOAD_CAPACITY];
+    private byte[] compressed;
+    private byte[] inflated;
+    private int payloadLength = -1;
+    private boolean isCompressed;
+    private boolean isInflating;
+    private int received;
+    private int inflatedLength;
+
+    /**
+     * Creates a new FrameCodec that compresses payloads of at least {@code compressionThreshold}
+     * bytes and decompresses compressed payloads.
+     *
+     * @param compressionThreshold  the minimum length of a compressed payload in bytes,
+     *                              {@value #NO_COMPRESSION} to disable compression
+     */
+    public FrameCodec(final int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        if (compressionThreshold == NO_COMPRESSION) {
+            this.deflater = null;
+            this.inflater = null;
+        } else {
+            this.deflater = new Deflater(Deflater.BEST_SPEED);
+            this.inflater = new Inflater();
+            this.compressed = new byte[INITIAL_PAYLOAD_CAPACITY];
+            this.inflated = new byte[INITIAL_PAYLOAD_CAPACITY];
+        }
+    }
+
+    /**
+     * Creates a new FrameCodec without compression.
+     */
+    public FrameCodec() {
+        this(NO_COMPRESSION);
+    }
+
+    @Override
+    public void encode(final ByteBuffer message, final OutputStream out) throws IOException {
+        final byte[] bytes = message.array();
+        final int offset = message.arrayOffset() + message.position();
+        final int length = message.remaining();
+        if (this.deflater == null || length < this.compressionThreshold) {
+            writeFrame(out, length, bytes, offset, length);
+            return;
+        }
+
+        // Messages may be encoded by several threads, the deflater is not thread-safe
+        synchronized (this.deflater) {
+            this.deflater.reset();
+            this.deflater.setInput(bytes, offset, length);
+            this.deflater.finish();
+            int compressedLength = 0;
+            while (!this.deflater.finished()) {
+                if (compressedLength == this.compressed.length) {
+                    this.compressed = grow(this.compressed, compressedLength,
+                            2 * compressedLength);
+                }
+                compressedLength += this.deflater.deflate(this.compressed, compressedLength,
+                        this.compressed.length - compressedLength);
+            }
+
+            if (compressedLength < length) {
+                writeFrame(out, compressedLength | COMPRESSED_FLAG, this.compressed, 0,
+                        compressedLength);
+            } else {
+                // Incompressible payloads are sent as they are
+                writeFrame(out, length, bytes, offset, length);
+            }
+        }
+    }
+
+    @Override
+    public String decode(final ByteBuffer in) throws IOException {
+        if (!decodeHeader(in)) {
+            return null;
+        }
+        if (this.payloadLength > this.payload.length) {
+            this.payload = new byte[Math.max(this.payloadLength, 2 * this.payload.length)];
+        }
+
+        int count = Math.min(in.remaining(), this.payloadLength - this.received);
+        in.get(this.payload, this.received, count);
+        this.received += count;
+        if (this.received < this.payloadLength) {
+            return null;
+        }
+
+        String message = this.isCompressed
+                ? inflate()
+                : new String(this.payload, 0, this.payloadLength, StandardCharsets.UTF_8);
+        reset();
+        return message;
+    }
+
+    @Override
+    public boolean decodePayload(final ByteBuffer in, final ByteBuffer out) throws IOException {
+        if (!decodeHeader(in)) {
+            return false;
+        }
+
+        if (!this.isCompressed) {
+            int count = Math.min(Math.min(in.remaining(), out.remaining()),
+                    this.payloadLength - this.received);
+            int limit = in.limit();
+            in.limit(in.position() + count);
+            out.put(in);
+            in.limit(limit);
+            this.received += count;
+            if (this.received < this.payloadLength) {
+                return false;
+            }
+            reset();
+            return true;
+        }
+
+        // The compressed payload is small, it is collected before it is inflated piece by piece
+        if (!this.isInflating) {
+            if (this.payloadLength > this.payload.length) {
+                this.payload = new byte[Math.max(this.payloadLength, 2 * this.payload.length)];
+            }
+            int count = Math.min(in.remaining(), this.payloadLength - this.received);
+            in.get(this.payload, this.received, count);
+            this.received += count;
+            if (this.received < this.payloadLength) {
+                return false;
+            }
+            this.inflater.reset();
+            this.inflater.setInput(this.payload, 0, this.payloadLength);
+            this.isInflating = true;
+            this.inflatedLength = 0;
+        }
+
+        try {
+            while (out.hasRemaining() && !this.inflater.finished()) {
+                // One byte more than allowed is inflated to detect an oversized payload
+                int count = this.inflater.inflate(out.array(), out.arrayOffset() + out.position(),
+                        Math.min(out.remaining(), MAX_FRAME_LENGTH + 1 - this.inflatedLength));
+                if (count == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+                    throw new ProtocolException();
+                }
+                this.inflatedLength += count;
+                checkInflatedLength(this.inflatedLength);
+                out.position(out.position() + count);
+            }
+        } catch (DataFormatException e) {
+            throw new ProtocolException(e.getMessage());
+        }
+        if (!this.inflater.finished()) {
+            return false;
+        }
+        reset();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (this.deflater != null) {
+            this.deflater.end();
+            this.inflater.end();
+        }
+    }
+
+    /**
+     * Reads the header of the next frame if it has not been read yet.
+     *
+     * @return  {@code true} if the header is complete
+     * @throws ProtocolException    if the frame is compressed without compression having been
+     *                              negotiated, or longer than {@link #MAX_FRAME_LENGTH}
+     */
+    private boolean decodeHeader(final ByteBuffer in) throws IOException {
+        if (this.payloadLength >= 0) {
+            return true;
+        }
+        while (this.header.hasRemaining() && in.hasRemaining()) {
+            this.header.put(in.get());
+        }
+        if (this.header.hasRemaining()) {
+            return false;
+        }
+
+        int value = this.header.getInt(0);
+        this.isCompressed = (value & COMPRESSED_FLAG) != 0;
+        if (this.isCompressed && this.inflater == null) {
+            throw new ProtocolException(String.valueOf(value));
+        }
+        if ((value & ~COMPRESSED_FLAG) > MAX_FRAME_LENGTH) {
+            throw new ProtocolException(String.valueOf(value));
+        }
+        this.payloadLength = value & ~COMPRESSED_FLAG;
+        return true;
+    }
+
+    private void reset() {
+        this.header.clear();
+        this.payloadLength = -1;
+        this.received = 0;
+        this.isInflating = false;
+    }
+
+    private String inflate() throws IOException {
+        this.inflater.reset();
+        this.inflater.setInput(this.payload, 0, this.payloadLength);
+        int length = 0;
+        try {
+            while (!this.inflater.finished()) {
+                if (length == this.inflated.length) {
+                    // One byte more than allowed is inflated to detect an oversized payload
+                    this.inflated = grow(this.inflated, length,
+                            Math.min(2 * length, MAX_FRAME_LENGTH + 1));
+                }
+                int count = this.inflater.inflate(this.inflated, length,
+                        this.inflated.length - length);
+                if (count == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+                    throw new ProtocolException();
+                }
+                length += count;
+                checkInflatedLength(length);
+            }
+        } catch (DataFormatException e) {
+            throw new ProtocolException(e.getMessage());
+        }
+        return new String(this.inflated, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void checkInflatedLength(final int length) throws ProtocolException {
+        if (length > MAX_FRAME_LENGTH) {
+            throw new ProtocolException(String.valueOf(length));
+        }
+    }
+
+    private static void writeFrame(final OutputStream out, final int header, final byte[] bytes,
+                                   final int offset, final int length) throws IOException {
+        out.write(header >>> 24);
+        out.write(header >>> 16);
+        out.write(header >>> 8);
+        out.write(header);
+        out.write(bytes, offset, length);
+    }
+
+    private static byte[] grow(final byte[] array, final int length, final int capacity) {
+        byte[] larger = new byte[capacity];
+        System.arraycopy(array, 0, larger, 0, length);
+        return larger;
+    }
+}
@@ -0,0 +1,77 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+
+/**
+ * This enum lists how messages can be framed on a connection.
+ * Every connection starts with {@link LineCodec lines}; other framings are negotiated
+ * with the server right after the connection has been established.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public enum Framing {
+    /** Newline-delimited text, see {@link LineCodec}. */
+    LINES {
+        @Override
+        MessageCodec negotiate(final ClientChannel channel) {
+            return new LineCodec();
+        }
+    },
+    /**
+     * Length-prefixed frames, see {@link FrameCodec}, if the server accepts them,
+     * newline-delimited text otherwise.
+     */
+    FRAMES {
+        @Override
+        MessageCodec negotiate(final ClientChannel channel) throws IOException {
+            // Servers without framing answer the unknown request with an error
+            if (FRAMES_ACCEPTED.equals(channel.send(FRAMES_REQUEST))) {
+                return new FrameCodec();
+            }
+            return new LineCodec();
+        }
+    },
+    /**
+     * Length-prefixed frames whose large payloads are compressed with DEFLATE,
+     * see {@link FrameCodec}, if the server accepts them. Otherwise uncompressed frames
+     * or newline-delimited text, whichever the server accepts.
+     */
+    COMPRESSED_FRAMES {
+        @Override
+        MessageCodec negotiate(final ClientChannel channel) throws IOException {
+            String response = channel.send(COMPRESSED_FRAMES_REQUEST);
+            if (COMPRESSED_FRAMES_ACCEPTED.equals(response)) {
+                return new FrameCodec(COMPRESSION_THRESHOLD);
+            } else if (FRAMES_ACCEPTED.equals(response)) {
+                // The server supports frames, but not compression
+                return new FrameCodec();
+            }
+            return new LineCodec();
+        }
+    };
+
+    /** Asks the server to switch to frames after its response. */
+    public static final String FRAMES_REQUEST = "hello$framed";
+    /** The response of a server that switches to frames. */
+    public static final String FRAMES_ACCEPTED = "ok$framed";
+    /** Asks the server to switch to compressed frames after its response. */
+    public static final String COMPRESSED_FRAMES_REQUEST = "hello$framed$deflate";
+    /** The response of a server that switches to compressed frames. */
+    public static final String COMPRESSED_FRAMES_ACCEPTED = "ok$framed$deflate";
+    /**
+     * The minimum length of a compressed payload in bytes. Below, the link is faster
+     * than compression, and DEFLATE hardly shrinks the payload.
+     */
+    public static final int COMPRESSION_THRESHOLD = 512;
+
+    /**
+     * Negotiates this framing with the server. Must be called right after the connection
+     * has been established, while {@code channel} still sends lines.
+     *
+     * @param channel   the channel connected to the server
+     * @return  the codec for the rest of the connection
+     * @throws IOException  if an error occurs while negotiating
+     */
+    abstract MessageCodec negotiate(final ClientChannel channel) throws IOException;
+}
@@ -0,0 +1,87 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class encodes messages as lines of UTF-8 text, which every server understands.
+ * A message must not contain a line feed. A carriage return before the line feed is dropped.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class LineCodec implements MessageCodec {
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int INITIAL_LINE_CAPACITY = 256;
+
+    private byte[] line = new byte[INITIAL_LINE_CAPACITY];
+    private int lineLength;
+    // a carriage return whose successor is not known yet
+    private boolean isReturnPending;
+
+    @Override
+    public void encode(final ByteBuffer message, final OutputStream out) throws IOException {
+        out.write(message.array(), message.arrayOffset() + message.position(),
+                message.remaining());
+        out.write(LINE_FEED);
+    }
+
+    @Override
+    public String decode(final ByteBuffer in) {
+        while (in.hasRemaining()) {
+            byte b = in.get();
+            if (b != LINE_FEED) {
+                if (this.lineLength == this.line.length) {
+                    byte[] larger = new byte[2 * this.line.length];
+                    System.arraycopy(this.line, 0, larger, 0, this.lineLength);
+                    this.line = larger;
+                }
+                this.line[this.lineLength++] = b;
+                continue;
+            }
+
+            int length = this.lineLength;
+            if (length > 0 && this.line[length - 1] == CARRIAGE_RETURN) {
+                length--;
+            }
+            this.lineLength = 0;
+            return new String(this.line, 0, length, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean decodePayload(final ByteBuffer in, final ByteBuffer out) {
+        while (in.hasRemaining()) {
+            if (this.isReturnPending) {
+                if (in.get(in.position()) == LINE_FEED) {
+                    in.get();
+                    this.isReturnPending = false;
+                    return true;
+                }
+                if (!out.hasRemaining()) {
+                    return false;
+                }
+                // The carriage return is part of the payload
+                out.put(CARRIAGE_RETURN);
+                this.isReturnPending = false;
+            }
+
+            if (!out.hasRemaining()) {
+                return false;
+            }
+            byte b = in.get();
+            if (b == LINE_FEED) {
+                return true;
+            } else if (b == CARRIAGE_RETURN) {
+                this.isReturnPending = true;
+            } else {
+                out.put(b);
+            }
+        }
+        return false;
+    }
+}
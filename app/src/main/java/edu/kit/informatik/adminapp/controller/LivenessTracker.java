@@ -0,0 +1,130 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import edu.kit.informatik.adminapp.model.Milliseconds;
+
+/**
+ * This class tracks whether the connection of a channel is alive, based on the outcome
+ * of the I/O on the connection, so that no round trip is needed to query it.
+ * Optionally, a heartbeat is sent if the connection has been idle for a configurable interval,
+ * so that dead connections are detected before the next request.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class LivenessTracker {
+    private static final String THREAD_NAME = "heartbeat";
+    // The legacy server answers every line, including an empty one
+    private static final String HEARTBEAT = "";
+    private static final int NO_HEARTBEAT = 0;
+    private static ScheduledThreadPoolExecutor scheduler;
+
+    private final ClientChannel channel;
+    private volatile boolean isAlive;
+    private volatile long lastActivity;
+    private long heartbeatInterval = NO_HEARTBEAT;
+    private ScheduledFuture<?> heartbeat;
+
+    /**
+     * Creates a new tracker for the given channel. The connection is not alive
+     * until {@link #connected()} is called.
+     *
+     * @param channel   the channel that sends the heartbeats
+     */
+    LivenessTracker(final ClientChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Returns whether the connection is alive, i.e. whether it has been established
+     * and no I/O on it has failed since.
+     *
+     * @return  {@code true} if the connection is alive
+     */
+    boolean isAlive() {
+        return this.isAlive;
+    }
+
+    /**
+     * Records that the connection has been established.
+     */
+    synchronized void connected() {
+        this.lastActivity = System.currentTimeMillis();
+        this.isAlive = true;
+        schedule();
+    }
+
+    /**
+     * Records a successful exchange with the server.
+     */
+    void succeeded() {
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * Records that the I/O on the connection has failed or that the connection has been closed.
+     */
+    synchronized void failed() {
+        this.isAlive = false;
+        cancel();
+    }
+
+    /**
+     * Sets the interval after which an idle connection is probed with a heartbeat.
+     *
+     * @param interval  the interval, 0 disables the heartbeat
+     */
+    synchronized void setHeartbeatInterval(final Milliseconds interval) {
+        this.heartbeatInterval = interval.asInt();
+        cancel();
+        if (this.isAlive) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        cancel();
+        if (this.heartbeatInterval != NO_HEARTBEAT) {
+            this.heartbeat = getScheduler().scheduleWithFixedDelay(this::beat,
+                    this.heartbeatInterval, this.heartbeatInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancel() {
+        if (this.heartbeat != null) {
+            this.heartbeat.cancel(false);
+            this.heartbeat = null;
+        }
+    }
+
+    private void beat() {
+        final long interval;
+        synchronized (this) {
+            interval = this.heartbeatInterval;
+        }
+        if (this.isAlive && System.currentTimeMillis() - this.lastActivity >= interval) {
+            try {
+                this.channel.send(HEARTBEAT);
+            } catch (IOException e) {
+                // The channel has recorded the failure
+            }
+        }
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, (Runnable runnable) -> {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Heartbeats of closed channels must not keep the channels reachable
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        return scheduler;
+    }
+}
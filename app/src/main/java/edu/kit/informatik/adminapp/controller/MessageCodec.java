@@ -0,0 +1,72 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This interface describes how messages are represented on the wire.
+ * A codec belongs to a single connection: it keeps the part of a message that has been
+ * received but not yet completed, so that the bytes of the connection can be decoded
+ * in chunks of any size.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public interface MessageCodec {
+    /**
+     * Encodes a message and writes it to a stream. The stream is not flushed.
+     *
+     * @param message   the message
+     * @param out       the stream
+     * @throws IOException  if an error occurs while writing
+     */
+    default void encode(final String message, final OutputStream out) throws IOException {
+        encode(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)), out);
+    }
+
+    /**
+     * Encodes a message that is already UTF-8 encoded and writes it to a stream.
+     * The stream is not flushed. The position of {@code message} is not changed,
+     * so that the message can be encoded again.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @param out       the stream
+     * @throws IOException  if an error occurs while writing
+     */
+    void encode(final ByteBuffer message, final OutputStream out) throws IOException;
+
+    /**
+     * Decodes the next message from the received bytes.
+     * The bytes of the message are consumed from {@code in}. If {@code in} does not contain
+     * the rest of a message, all of its bytes are consumed and kept by the codec.
+     *
+     * @param in    the received bytes, flipped for reading
+     * @return  the next message, {@code null} if more bytes are needed
+     * @throws IOException  if the bytes are not a valid message
+     */
+    String decode(final ByteBuffer in) throws IOException;
+
+    /**
+     * Decodes the payload of the next message piece by piece, so that a message can be
+     * processed without holding all of it in memory.
+     * Payload bytes are moved from {@code in} to {@code out} until {@code in} is empty,
+     * {@code out} is full, or the end of the message has been reached.
+     * A message is decoded either with this method or with {@link #decode(ByteBuffer)}.
+     *
+     * @param in    the received bytes, flipped for reading
+     * @param out   receives the payload bytes of the message, must be backed by an array
+     * @return  {@code true} if the end of the message has been reached
+     * @throws IOException  if the bytes are not a valid message
+     */
+    boolean decodePayload(final ByteBuffer in, final ByteBuffer out) throws IOException;
+
+    /**
+     * Releases the resources of the codec once its connection has been closed.
+     * The codec must not be used afterwards.
+     */
+    default void close() {
+        // Codecs without native resources have nothing to release
+    }
+}
@@ -0,0 +1,945 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+import edu.kit.informatik.adminapp.model.Hostname;
+import edu.kit.informatik.adminapp.model.Milliseconds;
+import edu.kit.informatik.adminapp.model.Port;
+
+/**
+ * This class provides a client-side SSL connection between two machines,
+ * which is established using a non-blocking {@link SocketChannel} and an {@link SSLEngine}.
+ * The I/O of all NioSSLClients is served by one shared selector thread,
+ * and the encrypted data is kept in direct buffers.
+ * The messages are framed as negotiated with the server, see {@link Framing}.
+ * A response that is processed while it is being received is handed from the selector
+ * thread to the reading thread in chunks, see {@link #send(ByteBuffer, ResponseReader)}.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public class NioSSLClient implements ClientChannel {
+    private static final int NO_TIMEOUT = 0;
+    private static final ByteBuffer[] NO_DATA = {ByteBuffer.allocate(0)};
+    // size of the chunks in which a streamed response is handed to its reader
+    private static final int CHUNK_SIZE = 8192;
+    // maximum number of chunks of a streamed response that wait for the reader
+    private static final int MAX_CHUNKS = 4;
+
+    private final Hostname hostname;
+    private final Port port;
+    private final Milliseconds timeout;
+    private final TlsSessionCache sessionCache;
+    private final Framing framing;
+    private final LivenessTracker liveness = new LivenessTracker(this);
+    private Connection connection;
+    private boolean isClosed;
+
+    /**
+     * Creates a new NioSSLClient with a timeout, which uses the given session cache
+     * and negotiates the given framing with the server.
+     *
+     * No connection is established.
+     * If the timeout is exceeded in {@link #connect()} or {@link #send(String)},
+     * a {@link SocketTimeoutException} is thrown and the connection is closed.
+     * A timeout of 0 is interpreted as an infinite timeout.
+     *
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     * @param timeout   the timeout in milliseconds, must be &ge; 0
+     * @param sessionCache  the session cache used to create the connections,
+     *                      {@code null} for the default session cache
+     * @param framing   the framing negotiated with the server
+     */
+    public NioSSLClient(final Hostname hostname, final Port port, final Milliseconds timeout,
+                        final TlsSessionCache sessionCache, final Framing framing) {
+        this.hostname = hostname;
+        this.port = port;
+        this.timeout = timeout;
+        this.sessionCache = sessionCache;
+        this.framing = framing;
+        this.isClosed = false;
+    }
+
+    /**
+     * Creates a new NioSSLClient with a timeout, which uses the given session cache
+     * and sends lines.
+     *
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     * @param timeout   the timeout in milliseconds, must be &ge; 0
+     * @param sessionCache  the session cache used to create the connections,
+     *                      {@code null} for the default session cache
+     * @see #NioSSLClient(Hostname, Port, Milliseconds, TlsSessionCache, Framing)
+     */
+    public NioSSLClient(final Hostname hostname, final Port port, final Milliseconds timeout,
+                        final TlsSessionCache sessionCache) {
+        this(hostname, port, timeout, sessionCache, Framing.LINES);
+    }
+
+    /**
+     * Creates a new NioSSLClient with a timeout, which uses the default session cache
+     * and sends lines.
+     *
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     * @param timeout   the timeout in milliseconds, must be &ge; 0
+     * @see #NioSSLClient(Hostname, Port, Milliseconds, TlsSessionCache, Framing)
+     */
+    public NioSSLClient(final Hostname hostname, final Port port, final Milliseconds timeout) {
+        this(hostname, port, timeout, null);
+    }
+
+    /**
+     * Creates a new NioSSLClient without a timeout, which uses the default session cache.
+     *
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     */
+    public NioSSLClient(final Hostname hostname, final Port port) {
+        this(hostname, port, new Milliseconds(NO_TIMEOUT));
+    }
+
+    /**
+     * Establishes a connection to a server and negotiates the framing.
+     * If a connection already exists, a new connection is created,
+     * and the old connection is not closed.
+     *
+     * @throws IOException  if the timeout is exceeded while establishing the connection
+     * or another error occurs
+     */
+    @Override
+    public synchronized void connect() throws IOException {
+        // even if connect() fails, the NioSSLClient is not considered closed
+        this.isClosed = false;
+        this.liveness.failed();
+
+        TlsSessionCache cache = this.sessionCache;
+        if (cache == null) {
+            cache = TlsSessionCache.getDefault();
+        }
+
+        // Resolve the address here, so that the selector thread is never blocked
+        InetSocketAddress address = new InetSocketAddress(
+                this.hostname.toString(), this.port.toInt());
+        this.connection = new Connection(SelectorLoop.getInstance(),
+                cache.createEngine(this.hostname, this.port));
+        this.connection.open(address);
+        await(this.connection, this.connection.ready);
+        cache.handshakeCompleted(this.hostname, this.port,
+                this.connection.engine.getSession(), this.connection.handshakeStart);
+        try {
+            // No data arrives until the next message is sent with the new codec
+            this.connection.codec = this.framing.negotiate(this);
+        } catch (IOException e) {
+            this.connection.fail(e);
+            throw e;
+        }
+        this.liveness.connected();
+    }
+
+    /**
+     * Returns whether a connection to the server exists, i.e. whether the connection
+     * has been established and has not failed since.
+     * No message is sent to the server. A connection closed by the server is
+     * detected by the selector thread as soon as the close arrives.
+     *
+     * @return  {@code true} if a connection to the server exists
+     */
+    @Override
+    public boolean isConnected() {
+        Connection current;
+        synchronized (this) {
+            current = this.connection;
+        }
+        return this.liveness.isAlive() && current != null && current.failure == null;
+    }
+
+    @Override
+    public boolean isFramed() {
+        Connection current;
+        synchronized (this) {
+            current = this.connection;
+        }
+        return current != null && current.codec instanceof FrameCodec;
+    }
+
+    @Override
+    public void setHeartbeatInterval(final Milliseconds interval) {
+        this.liveness.setHeartbeatInterval(interval);
+    }
+
+    /**
+     * Sends a message to the server and returns the response from the server.
+     *
+     * @param message   the message
+     * @return  the response from the server
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while sending the message,
+     *                      or if an error occurs while sending
+     */
+    @Override
+    public String send(final String message) throws IOException {
+        Connection current = checkConnection();
+        return await(current, current.send(encode(current, message)));
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and returns the response
+     * from the server.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @return  the response from the server
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while sending the message,
+     *                      or if an error occurs while sending
+     */
+    @Override
+    public String send(final ByteBuffer message) throws IOException {
+        Connection current = checkConnection();
+        return await(current, current.send(encode(current, message)));
+    }
+
+    /**
+     * Sends a message to the server and processes the response from the server
+     * while it is being received.
+     *
+     * @param message   the message
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while receiving the response,
+     *                      or if an error occurs while sending or processing
+     * @see #send(ByteBuffer, ResponseReader)
+     */
+    @Override
+    public <T> T send(final String message, final ResponseReader<T> reader)
+            throws IOException {
+        return send(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)), reader);
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and processes the response
+     * from the server while it is being received.
+     * The selector thread decodes the payload into chunks that are handed to the reader.
+     * While {@value #MAX_CHUNKS} chunks wait for the reader, nothing more is read from the
+     * server, so that the memory needed does not grow with the size of the response.
+     * The timeout applies to every wait for the next chunk.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while receiving the response,
+     *                      or if an error occurs while sending or processing
+     */
+    @Override
+    public <T> T send(final ByteBuffer message, final ResponseReader<T> reader)
+            throws IOException {
+        Connection current = checkConnection();
+        StreamedResponse response = new StreamedResponse(current, this.timeout.asInt());
+        current.send(encode(current, message), response);
+        try {
+            T result = reader.read(response);
+            this.liveness.succeeded();
+            return result;
+        } catch (IOException | RuntimeException e) {
+            this.liveness.failed();
+            throw e;
+        } finally {
+            // The unread rest of the response is skipped by the selector thread
+            response.discard();
+        }
+    }
+
+    /**
+     * Sends several messages to the server and returns the responses from the server
+     * in the order of the messages.
+     * All messages are sent before the first response is awaited.
+     *
+     * @param messages  the messages
+     * @return  the responses from the server, the i-th response belongs to the i-th message
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while sending the messages,
+     *                      or if an error occurs while sending
+     */
+    @Override
+    public List<String> sendAll(final List<String> messages) throws IOException {
+        Connection current = checkConnection();
+        List<CompletableFuture<String>> futures = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            futures.add(current.send(encode(current, message)));
+        }
+
+        List<String> responses = new ArrayList<>(messages.size());
+        for (CompletableFuture<String> future : futures) {
+            responses.add(await(current, future));
+        }
+        return responses;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.liveness.failed();
+        if (this.connection != null) {
+            await(this.connection, this.connection.close());
+        }
+
+        this.isClosed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.isClosed;
+    }
+
+    private synchronized Connection checkConnection() throws IOException {
+        if (this.connection == null) {
+            throw new IOException();
+        }
+        return this.connection;
+    }
+
+    private static ByteBuffer encode(final Connection current, final String message)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        current.codec.encode(message, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static ByteBuffer encode(final Connection current, final ByteBuffer message)
+            throws IOException {
+        // The encoded message is handed to the selector thread, so it must not be shared
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        current.codec.encode(message, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private <T> T await(final Connection current, final CompletableFuture<T> future)
+            throws IOException {
+        try {
+            final T result;
+            if (this.timeout.asInt() == NO_TIMEOUT) {
+                result = future.get();
+            } else {
+                result = future.get(this.timeout.asInt(), TimeUnit.MILLISECONDS);
+            }
+            this.liveness.succeeded();
+            return result;
+        } catch (TimeoutException e) {
+            // A late response would be assigned to the next message
+            SocketTimeoutException timeoutException = new SocketTimeoutException();
+            current.fail(timeoutException);
+            this.liveness.failed();
+            throw timeoutException;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            this.liveness.failed();
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * This class represents a single connection. Apart from creating futures,
+     * all of its methods are executed on the thread of the selector loop.
+     */
+    private static final class Connection implements SelectorLoop.Handler {
+        private final SelectorLoop loop;
+        private final SSLEngine engine;
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        private final Queue<ByteBuffer> outbound = new ArrayDeque<>();
+        private final Queue<Response> responses = new ArrayDeque<>();
+        private SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer netIn;
+        private ByteBuffer netOut;
+        // decrypted data that has not been decoded yet, it is only kept while a reader is behind
+        private ByteBuffer appIn;
+        // whether the reader of a streamed response is behind, so that nothing is decoded
+        private boolean isReaderBehind;
+        // Every connection starts with lines, decoding happens on the selector thread.
+        // The codec is not closed, since senders may still encode with it after a failure.
+        private volatile MessageCodec codec = new LineCodec();
+        // Is read by other threads to detect a failed connection without I/O
+        private volatile IOException failure;
+        private boolean isHandshakeStarted;
+        // Is only written before the ready future completes
+        private volatile long handshakeStart;
+
+        Connection(final SelectorLoop loop, final SSLEngine engine) {
+            this.loop = loop;
+            this.engine = engine;
+
+            int packetSize = engine.getSession().getPacketBufferSize();
+            this.netIn = ByteBuffer.allocateDirect(packetSize);
+            this.netOut = ByteBuffer.allocateDirect(packetSize);
+            this.appIn = ByteBuffer.allocateDirect(engine.getSession().getApplicationBufferSize());
+        }
+
+        void open(final InetSocketAddress address) {
+            this.loop.execute(() -> {
+                try {
+                    this.channel = SocketChannel.open();
+                    this.channel.configureBlocking(false);
+                    if (this.channel.connect(address)) {
+                        this.key = this.loop.register(this.channel, SelectionKey.OP_READ, this);
+                        startHandshake();
+                    } else {
+                        this.key = this.loop.register(this.channel, SelectionKey.OP_CONNECT, this);
+                    }
+                } catch (IOException e) {
+                    fail(e);
+                }
+            });
+        }
+
+        CompletableFuture<String> send(final ByteBuffer message) {
+            return send(message, new WholeResponse());
+        }
+
+        <R extends Response> R send(final ByteBuffer message, final R response) {
+            this.loop.execute(() -> {
+                if (this.failure != null) {
+                    response.fail(this.failure);
+                    return;
+                }
+                this.outbound.add(message);
+                this.responses.add(response);
+                try {
+                    process();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            });
+            return response;
+        }
+
+        /**
+         * Continues reading from the server once the reader of a streamed response has
+         * caught up. Is safe to call from any thread.
+         */
+        void resume() {
+            this.loop.execute(() -> {
+                if (this.failure != null) {
+                    return;
+                }
+                try {
+                    process();
+                } catch (IOException e) {
+                    fail(e);
+                }
+            });
+        }
+
+        CompletableFuture<Void> close() {
+            CompletableFuture<Void> closed = new CompletableFuture<>();
+            this.loop.execute(() -> {
+                if (this.failure == null && this.channel != null && this.channel.isConnected()) {
+                    // Send close_notify as far as possible without blocking
+                    this.engine.closeOutbound();
+                    try {
+                        wrap(NO_DATA);
+                        flush();
+                    } catch (IOException e) {
+                        // The connection is closed anyway
+                    }
+                }
+                fail(new EOFException());
+                closed.complete(null);
+            });
+            return closed;
+        }
+
+        @Override
+        public void onReady(final SelectionKey selectionKey) {
+            try {
+                if (selectionKey.isConnectable()) {
+                    if (this.channel.finishConnect()) {
+                        startHandshake();
+                    }
+                    return;
+                }
+                if (selectionKey.isReadable() && this.channel.read(this.netIn) < 0) {
+                    throw new EOFException();
+                }
+                process();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Fails the connection: closes the channel and completes every pending
+         * future exceptionally. Is safe to call from any thread.
+         */
+        void fail(final IOException cause) {
+            this.loop.execute(() -> {
+                if (this.failure != null) {
+                    return;
+                }
+                this.failure = cause;
+                try {
+                    if (this.channel != null) {
+                        this.channel.close();
+                    }
+                } catch (IOException e) {
+                    // The channel is unusable anyway
+                }
+                this.ready.completeExceptionally(cause);
+                Response response;
+                while ((response = this.responses.poll()) != null) {
+                    response.fail(cause);
+                }
+            });
+        }
+
+        private void startHandshake() throws IOException {
+            this.key.interestOps(SelectionKey.OP_READ);
+            this.handshakeStart = System.currentTimeMillis();
+            this.engine.beginHandshake();
+            this.isHandshakeStarted = true;
+            process();
+        }
+
+        /**
+         * Drives the handshake and the application data as far as possible
+         * without blocking.
+         */
+        private void process() throws IOException {
+            if (!this.isHandshakeStarted) {
+                // Messages are sent once the handshake has started
+                return;
+            }
+
+            boolean progress = true;
+            while (progress && flush()) {
+                HandshakeStatus status = this.engine.getHandshakeStatus();
+                if (status == HandshakeStatus.NEED_TASK) {
+                    Runnable task;
+                    while ((task = this.engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                } else if (status == HandshakeStatus.NEED_WRAP) {
+                    progress = wrap(NO_DATA);
+                } else if (status != HandshakeStatus.NOT_HANDSHAKING
+                        && status != HandshakeStatus.FINISHED) {
+                    // NEED_UNWRAP, or NEED_UNWRAP_AGAIN on newer platforms
+                    progress = unwrap();
+                } else {
+                    this.ready.complete(null);
+                    progress = unwrap();
+                    if (!this.outbound.isEmpty()) {
+                        progress |= wrap(this.outbound.toArray(new ByteBuffer[0]));
+                    }
+                }
+            }
+
+            // Only wait for OP_WRITE if encrypted data could not be written completely.
+            // While a reader is behind, nothing is read, so that TCP slows the server down.
+            int ops = this.isReaderBehind ? 0 : SelectionKey.OP_READ;
+            if (this.netOut.position() > 0) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            this.key.interestOps(ops);
+        }
+
+        private boolean flush() throws IOException {
+            this.netOut.flip();
+            try {
+                while (this.netOut.hasRemaining()) {
+                    if (this.channel.write(this.netOut) == 0) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                this.netOut.compact();
+            }
+        }
+
+        private boolean wrap(final ByteBuffer[] data) throws IOException {
+            SSLEngineResult result = this.engine.wrap(data, this.netOut);
+            while (!this.outbound.isEmpty() && !this.outbound.peek().hasRemaining()) {
+                this.outbound.poll();
+            }
+
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED
+                    && !this.engine.isOutboundDone()) {
+                throw new SSLException(result.toString());
+            }
+            return result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+        }
+
+        private boolean unwrap() throws IOException {
+            // A codec may still hold data for a reader that has caught up
+            if (!deliverMessages()) {
+                return false;
+            }
+
+            boolean progress = false;
+            this.netIn.flip();
+            try {
+                while (this.netIn.hasRemaining()) {
+                    SSLEngineResult result = this.engine.unwrap(this.netIn, this.appIn);
+                    progress |= result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+                    boolean isDelivered = deliverMessages();
+
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new EOFException();
+                    } else if (!isDelivered) {
+                        // The rest is decrypted once the reader has caught up
+                        break;
+                    } else if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        if (this.netIn.limit() == this.netIn.capacity()) {
+                            // A record is larger than the buffer
+                            this.netIn = enlarge(this.netIn,
+                                    this.engine.getSession().getPacketBufferSize());
+                            progress = true;
+                        }
+                        break;
+                    } else if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                        // appIn has been drained by deliverMessages(), so it is too small
+                        this.appIn = ByteBuffer.allocateDirect(Math.max(2 * this.appIn.capacity(),
+                                this.engine.getSession().getApplicationBufferSize()));
+                    } else if (result.getHandshakeStatus() != HandshakeStatus.NOT_HANDSHAKING
+                            && result.getHandshakeStatus() != HandshakeStatus.NEED_UNWRAP) {
+                        // Let process() handle the next handshake step
+                        break;
+                    }
+                }
+            } finally {
+                this.netIn.compact();
+            }
+            return progress;
+        }
+
+        /**
+         * Hands the decrypted data to the pending responses in the order of the messages.
+         * Messages without a pending response are dropped.
+         *
+         * @return  {@code true} if all decrypted data has been decoded, {@code false} if
+         *          the reader of a streamed response is behind and the rest is kept
+         */
+        private boolean deliverMessages() throws IOException {
+            this.isReaderBehind = false;
+            this.appIn.flip();
+            try {
+                while (true) {
+                    Response pending = this.responses.peek();
+                    if (pending == null) {
+                        if (this.codec.decode(this.appIn) == null) {
+                            break;
+                        }
+                    } else if (pending.decode(this.codec, this.appIn)) {
+                        this.responses.poll();
+                    } else {
+                        this.isReaderBehind = pending.isBehind() || this.appIn.hasRemaining();
+                        break;
+                    }
+                }
+            } finally {
+                this.appIn.compact();
+            }
+            return !this.isReaderBehind;
+        }
+
+        /**
+         * Returns a larger direct buffer with the content, position and limit of
+         * {@code buffer}, which must be flipped for reading.
+         */
+        private static ByteBuffer enlarge(final ByteBuffer buffer, final int minimumCapacity) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(
+                    Math.max(minimumCapacity, 2 * buffer.capacity()));
+            int position = buffer.position();
+            buffer.position(0);
+            larger.put(buffer);
+            larger.flip();
+            larger.position(position);
+            return larger;
+        }
+    }
+
+    /**
+     * This interface describes a pending response, which is decoded on the thread of
+     * the selector loop.
+     */
+    private interface Response {
+        /**
+         * Decodes the response from the decrypted data.
+         *
+         * @param codec the codec of the connection
+         * @param in    the decrypted data, flipped for reading
+         * @return  {@code true} if the response is complete
+         * @throws IOException  if the data is not a valid message
+         */
+        boolean decode(MessageCodec codec, ByteBuffer in) throws IOException;
+
+        /**
+         * Returns whether the reader of the response is behind, so that no more data
+         * may be decoded until it has caught up.
+         *
+         * @return  {@code true} if the reader is behind
+         */
+        boolean isBehind();
+
+        /**
+         * Ends the response with an error.
+         *
+         * @param cause the error
+         */
+        void fail(IOException cause);
+    }
+
+    /**
+     * This class represents a response that is received completely before it is processed.
+     */
+    private static final class WholeResponse extends CompletableFuture<String>
+            implements Response {
+        @Override
+        public boolean decode(final MessageCodec codec, final ByteBuffer in) throws IOException {
+            String message = codec.decode(in);
+            if (message == null) {
+                return false;
+            }
+            complete(message);
+            return true;
+        }
+
+        @Override
+        public boolean isBehind() {
+            return false;
+        }
+
+        @Override
+        public void fail(final IOException cause) {
+            completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * This class represents a response that is processed while it is being received.
+     * The selector thread decodes the payload into at most {@value #MAX_CHUNKS} chunks,
+     * which the reading thread decodes into characters and returns.
+     */
+    private static final class StreamedResponse extends Reader implements Response {
+        private final Connection connection;
+        private final int timeout;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // payload bytes that have not been decoded yet, at most a chunk and a partial character
+        private final ByteBuffer bytes = ByteBuffer.allocate(2 * CHUNK_SIZE);
+        // decoded characters, flipped for reading
+        private final CharBuffer chars = CharBuffer.allocate(2 * CHUNK_SIZE);
+        // chunks with payload bytes, flipped for reading, guarded by this
+        private final Queue<ByteBuffer> filled = new ArrayDeque<>();
+        // chunks that can be filled again, guarded by this
+        private final Queue<ByteBuffer> free = new ArrayDeque<>();
+        private int chunks;
+        private boolean isComplete;
+        private boolean isDiscarded;
+        // whether the selector thread waits for a free chunk
+        private boolean isStalled;
+        private IOException failure;
+        private boolean isPayloadComplete;
+        private boolean isDecoded;
+
+        StreamedResponse(final Connection connection, final int timeout) {
+            this.connection = connection;
+            this.timeout = timeout;
+            this.chars.flip();
+        }
+
+        @Override
+        public boolean decode(final MessageCodec codec, final ByteBuffer in) throws IOException {
+            while (true) {
+                ByteBuffer chunk = takeFree();
+                if (chunk == null) {
+                    return false;
+                }
+                boolean isEnd = codec.decodePayload(in, chunk);
+                boolean isFull = !chunk.hasRemaining();
+                hand(chunk, isEnd);
+                if (isEnd) {
+                    return true;
+                } else if (!in.hasRemaining() && !isFull) {
+                    // A full chunk may leave payload in the codec, e.g. of a compressed frame
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public synchronized boolean isBehind() {
+            return this.isStalled;
+        }
+
+        @Override
+        public synchronized void fail(final IOException cause) {
+            this.failure = cause;
+            notifyAll();
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length)
+                throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (!this.chars.hasRemaining()) {
+                if (this.isDecoded) {
+                    return -1;
+                }
+                fill();
+            }
+
+            int count = Math.min(length, this.chars.remaining());
+            this.chars.get(buffer, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // The reader ends with the response, the connection stays open
+        }
+
+        /**
+         * Drops the rest of the response, including the chunks that have not been read.
+         */
+        void discard() {
+            synchronized (this) {
+                this.isDiscarded = true;
+                ByteBuffer chunk;
+                while ((chunk = this.filled.poll()) != null) {
+                    chunk.clear();
+                    this.free.add(chunk);
+                }
+            }
+            resumeIfStalled();
+        }
+
+        private synchronized ByteBuffer takeFree() {
+            ByteBuffer chunk = this.free.poll();
+            if (chunk == null && this.chunks < MAX_CHUNKS) {
+                this.chunks++;
+                chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            }
+            this.isStalled = chunk == null;
+            return chunk;
+        }
+
+        private synchronized void hand(final ByteBuffer chunk, final boolean isEnd) {
+            if (chunk.position() > 0 && !this.isDiscarded) {
+                chunk.flip();
+                this.filled.add(chunk);
+            } else {
+                chunk.clear();
+                this.free.add(chunk);
+            }
+            this.isComplete = isEnd;
+            notifyAll();
+        }
+
+        private void fill() throws IOException {
+            if (!this.isPayloadComplete) {
+                ByteBuffer chunk = takeFilled();
+                if (chunk == null) {
+                    this.isPayloadComplete = true;
+                } else {
+                    this.bytes.put(chunk);
+                    synchronized (this) {
+                        chunk.clear();
+                        this.free.add(chunk);
+                    }
+                    resumeIfStalled();
+                }
+            }
+
+            this.bytes.flip();
+            this.chars.compact();
+            this.decoder.decode(this.bytes, this.chars, this.isPayloadComplete);
+            if (this.isPayloadComplete && !this.bytes.hasRemaining()
+                    && this.decoder.flush(this.chars) == CoderResult.UNDERFLOW) {
+                this.isDecoded = true;
+            }
+            this.chars.flip();
+            this.bytes.compact();
+        }
+
+        /**
+         * Waits for the next chunk of the payload.
+         *
+         * @return  the chunk, {@code null} if the payload is complete
+         */
+        private synchronized ByteBuffer takeFilled() throws IOException {
+            final long deadline = System.currentTimeMillis() + this.timeout;
+            while (this.filled.isEmpty()) {
+                if (this.failure != null) {
+                    throw this.failure;
+                } else if (this.isComplete) {
+                    return null;
+                }
+
+                long remaining = deadline - System.currentTimeMillis();
+                if (this.timeout != NO_TIMEOUT && remaining <= 0) {
+                    // A late response would be assigned to the next message
+                    SocketTimeoutException timeoutException = new SocketTimeoutException();
+                    this.connection.fail(timeoutException);
+                    throw timeoutException;
+                }
+                try {
+                    wait(this.timeout == NO_TIMEOUT ? 0 : remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            return this.filled.poll();
+        }
+
+        private void resumeIfStalled() {
+            final boolean isResumed;
+            synchronized (this) {
+                isResumed = this.isStalled;
+                this.isStalled = false;
+            }
+            if (isResumed) {
+                this.connection.resume();
+            }
+        }
+    }
+}
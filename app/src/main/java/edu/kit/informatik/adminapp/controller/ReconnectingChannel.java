@@ -0,0 +1,349 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import edu.kit.informatik.adminapp.model.Milliseconds;
+
+/**
+ * This class decorates a {@link ClientChannel} so that it survives interrupted connections.
+ * If a message cannot be sent, the connection is reestablished with jittered exponential
+ * backoff and the message is sent again, as long as the retry budget is not used up.
+ * A message whose processing by the server is uncertain is only sent again
+ * if it is idempotent, i.e. if processing it twice has the same effect as processing it once.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public class ReconnectingChannel implements ClientChannel {
+    private static final int DEFAULT_MAX_RETRIES = 4;
+    private static final Milliseconds DEFAULT_BASE_DELAY = new Milliseconds(100);
+    private static final Milliseconds DEFAULT_MAX_DELAY = new Milliseconds(3000);
+    // the exponent of the backoff is capped so that the delay cannot overflow
+    private static final int MAX_BACKOFF_EXPONENT = 16;
+
+    private final ClientChannel channel;
+    private final IdempotencyPolicy policy;
+    private final int maxRetries;
+    private final Milliseconds baseDelay;
+    private final Milliseconds maxDelay;
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a new ReconnectingChannel.
+     * Before the i-th retry, a random delay between 0 and
+     * min({@code maxDelay}, {@code baseDelay} &middot; 2<sup>i</sup>) is awaited.
+     *
+     * @param channel       the decorated channel
+     * @param policy        decides which messages may be sent again
+     * @param maxRetries    the number of retries before a failure is surfaced, must be &ge; 0
+     * @param baseDelay     the delay before the first retry
+     * @param maxDelay      the maximum delay before a retry
+     */
+    public ReconnectingChannel(final ClientChannel channel, final IdempotencyPolicy policy,
+                               final int maxRetries, final Milliseconds baseDelay,
+                               final Milliseconds maxDelay) {
+        this.channel = channel;
+        this.policy = policy;
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Creates a new ReconnectingChannel with the default retry budget
+     * of {@value #DEFAULT_MAX_RETRIES} retries.
+     *
+     * @param channel   the decorated channel
+     * @param policy    decides which messages may be sent again
+     */
+    public ReconnectingChannel(final ClientChannel channel, final IdempotencyPolicy policy) {
+        this(channel, policy, DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Establishes a new connection to a server, retrying with backoff
+     * until the retry budget is used up.
+     *
+     * @throws IOException  if the last attempt to establish the connection fails
+     */
+    @Override
+    public void connect() throws IOException {
+        this.isClosed = false;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                this.channel.connect();
+                return;
+            } catch (IOException e) {
+                checkRetry(e, attempt, true);
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.channel.isConnected();
+    }
+
+    @Override
+    public boolean isFramed() {
+        return this.channel.isFramed();
+    }
+
+    @Override
+    public void setHeartbeatInterval(final Milliseconds interval) {
+        this.channel.setHeartbeatInterval(interval);
+    }
+
+    /**
+     * Sends a message to the server and returns the response from the server.
+     * If the connection is interrupted, it is reestablished. The message is sent again
+     * if it has not reached the server yet or if it is idempotent.
+     *
+     * @param message   the message
+     * @return  the response from the server
+     * @throws IOException  if the channel has been closed,
+     *                      or if the message could not be sent within the retry budget
+     */
+    @Override
+    public String send(final String message) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            boolean isUnsent = true;
+            try {
+                reconnectIfNeeded();
+                isUnsent = false;
+                return this.channel.send(message);
+            } catch (IOException e) {
+                checkRetry(e, attempt, isUnsent || this.policy.isIdempotent(message));
+            }
+        }
+    }
+
+    /**
+     * Sends a message to the server and processes the response from the server
+     * while it is being received.
+     * If the connection is interrupted, it is reestablished. The message is sent again
+     * if it has not reached the server yet, or if it is idempotent and {@code reader} has not
+     * read any part of the response yet, since a part it has processed cannot be taken back.
+     *
+     * @param message   the message
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if the channel has been closed, if the connection could not be
+     *                      reestablished within the retry budget, or if an error occurs
+     *                      while sending or processing
+     */
+    @Override
+    public <T> T send(final String message, final ResponseReader<T> reader) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            boolean isUnsent = true;
+            final TrackingReader<T> tracking = new TrackingReader<>(reader);
+            try {
+                reconnectIfNeeded();
+                isUnsent = false;
+                return this.channel.send(message, tracking);
+            } catch (IOException e) {
+                checkRetry(e, attempt, isUnsent
+                        || !tracking.hasRead && this.policy.isIdempotent(message));
+            }
+        }
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and returns the response
+     * from the server, reestablishing the connection like {@link #send(String)}.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @return  the response from the server
+     * @throws IOException  if the channel has been closed,
+     *                      or if the message could not be sent within the retry budget
+     */
+    @Override
+    public String send(final ByteBuffer message) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            boolean isUnsent = true;
+            try {
+                reconnectIfNeeded();
+                isUnsent = false;
+                return this.channel.send(message);
+            } catch (IOException e) {
+                checkRetry(e, attempt, isUnsent || isIdempotent(message));
+            }
+        }
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and processes the response
+     * from the server while it is being received, reestablishing the connection like
+     * {@link #send(String, ResponseReader)}.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if the channel has been closed, if the connection could not be
+     *                      reestablished within the retry budget, or if an error occurs
+     *                      while sending or processing
+     */
+    @Override
+    public <T> T send(final ByteBuffer message, final ResponseReader<T> reader)
+            throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            boolean isUnsent = true;
+            final TrackingReader<T> tracking = new TrackingReader<>(reader);
+            try {
+                reconnectIfNeeded();
+                isUnsent = false;
+                return this.channel.send(message, tracking);
+            } catch (IOException e) {
+                checkRetry(e, attempt, isUnsent || !tracking.hasRead && isIdempotent(message));
+            }
+        }
+    }
+
+    /**
+     * Sends several messages to the server and returns the responses from the server
+     * in the order of the messages.
+     * If the connection is interrupted, it is reestablished. The messages are sent again
+     * if none of them has reached the server yet or if all of them are idempotent.
+     *
+     * @param messages  the messages
+     * @return  the responses from the server, the i-th response belongs to the i-th message
+     * @throws IOException  if the channel has been closed,
+     *                      or if the messages could not be sent within the retry budget
+     */
+    @Override
+    public List<String> sendAll(final List<String> messages) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            boolean isUnsent = true;
+            try {
+                reconnectIfNeeded();
+                isUnsent = false;
+                return this.channel.sendAll(messages);
+            } catch (IOException e) {
+                checkRetry(e, attempt, isUnsent || areIdempotent(messages));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.isClosed = true;
+        this.channel.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.isClosed;
+    }
+
+    private void reconnectIfNeeded() throws IOException {
+        if (this.isClosed) {
+            // Closed channels are not reopened behind the back of the owner
+            throw new IOException();
+        }
+        if (!this.channel.isConnected()) {
+            this.channel.connect();
+        }
+    }
+
+    private boolean isIdempotent(final ByteBuffer message) {
+        // Only decoded after a failure, the policy works on text
+        return this.policy.isIdempotent(
+                StandardCharsets.UTF_8.decode(message.duplicate()).toString());
+    }
+
+    private boolean areIdempotent(final List<String> messages) {
+        for (final String message : messages) {
+            if (!this.policy.isIdempotent(message)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits before the next attempt, or rethrows the failure if no further attempt is allowed.
+     */
+    private void checkRetry(final IOException failure, final int attempt, final boolean isSafe)
+            throws IOException {
+        final boolean isInterrupted = failure instanceof InterruptedIOException
+                && !(failure instanceof SocketTimeoutException);
+        if (!isSafe || isInterrupted || this.isClosed || attempt >= this.maxRetries) {
+            throw failure;
+        }
+
+        final long ceiling = Math.min(this.maxDelay.asInt(),
+                (long) this.baseDelay.asInt() << Math.min(attempt, MAX_BACKOFF_EXPONENT));
+        try {
+            // Full jitter, so that clients interrupted together do not reconnect together
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * This class passes the response on to a reader and records whether the reader
+     * has read any part of it.
+     */
+    private static final class TrackingReader<T> implements ResponseReader<T> {
+        private final ResponseReader<T> reader;
+        private volatile boolean hasRead;
+
+        TrackingReader(final ResponseReader<T> reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public T read(final Reader response) throws IOException {
+            return this.reader.read(new FilterReader(response) {
+                @Override
+                public int read() throws IOException {
+                    final int c = super.read();
+                    TrackingReader.this.hasRead |= c >= 0;
+                    return c;
+                }
+
+                @Override
+                public int read(final char[] buffer, final int offset, final int length)
+                        throws IOException {
+                    final int count = super.read(buffer, offset, length);
+                    TrackingReader.this.hasRead |= count > 0;
+                    return count;
+                }
+
+                @Override
+                public long skip(final long count) throws IOException {
+                    final long skipped = super.skip(count);
+                    TrackingReader.this.hasRead |= skipped > 0;
+                    return skipped;
+                }
+            });
+        }
+    }
+
+    /**
+     * This interface describes which messages may be sent to the server again
+     * after their processing has become uncertain.
+     */
+    public interface IdempotencyPolicy {
+        /**
+         * Returns whether processing the message twice has the same effect
+         * as processing it once.
+         *
+         * @param message   the message
+         * @return  {@code true} if the message is idempotent
+         */
+        boolean isIdempotent(String message);
+    }
+}
@@ -0,0 +1,25 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * This interface describes how a response is processed while it is being received,
+ * so that a large response does not have to be held in memory as a whole.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ * @param <T>   the type of the result
+ */
+public interface ResponseReader<T> {
+    /**
+     * Processes a response.
+     * The reader ends with the end of the response. It must not be used after this method
+     * has returned; the unread rest of the response is skipped.
+     *
+     * @param response  the characters of the response
+     * @return  the result
+     * @throws IOException  if an error occurs while receiving the response
+     */
+    T read(Reader response) throws IOException;
+}
@@ -1,15 +1,23 @@
 package edu.kit.informatik.adminapp.controller;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
-import javax.net.SocketFactory;
-import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.SSLSocket;
 
 import edu.kit.informatik.adminapp.model.Hostname;
 import edu.kit.informatik.adminapp.model.Milliseconds;
@@ -18,39 +26,102 @@ import edu.kit.informatik.adminapp.model.Port;
 /**
  * This class provides a client-side SSL connection between two machines,
  * which is established using sockets.
+ * Reconnects resume the TLS session of the previous connection if the server allows it.
+ * The messages are framed as negotiated with the server, see {@link Framing}.
  *
  * @author Daniel Luckey
  * @version 1.0
  */
 public class SSLClient implements ClientChannel {
-    private static final SocketFactory SOCKET_FACTORY = SSLSocketFactory.getDefault();
     private static final int NO_TIMEOUT = 0;
+    // maximum number of requests sent in sendAll() before the first response is read
+    private static final int PIPELINE_DEPTH = 16;
+    private static final int RECEIVE_BUFFER_SIZE = 8192;
 
     private final Hostname hostname;
     private final Port port;
     private final Milliseconds timeout;
+    private final Framing framing;
+    private final SocketConnector connector;
+    private final LivenessTracker liveness = new LivenessTracker(this);
+    // received bytes that have not been decoded yet, flipped for reading
+    private final ByteBuffer inbound = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+    private final MessageReader messageReader = new MessageReader();
     private Socket clientSocket;
-    private PrintWriter writer;
-    private BufferedReader reader;
+    private OutputStream out;
+    private InputStream in;
+    private MessageCodec codec;
+    // Is read without the lock, so that it does not wait for a pending response
+    private volatile boolean isFramed;
     private boolean isClosed;
 
     /**
-     * Creates a new SSLSocketChannel with a timeout.
+     * Creates a new SSLSocketChannel whose sockets are created by the given connector.
+     *
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     * @param timeout   the timeout in milliseconds, must be &ge; 0
+     * @param framing   the framing negotiated with the server
+     * @param connector creates the connected sockets
+     */
+    SSLClient(final Hostname hostname, final Port port, final Milliseconds timeout,
+              final Framing framing, final SocketConnector connector) {
+        this.hostname = hostname;
+        this.port = port;
+        this.timeout = timeout;
+        this.framing = framing;
+        this.connector = connector;
+        this.isClosed = false;
+    }
+
+    /**
+     * Creates a new SSLSocketChannel with a timeout, which uses the given session cache
+     * and negotiates the given framing with the server.
      *
      * No connection is established.
      * If the timeout is exceeded in {@link #connect()} or {@link #send(String)},
      * a {@link SocketTimeoutException} is thrown. A timeout of 0 is interpreted as an infinite
      * timeout.
      *
+     * @param hostname      the hostname of the server
+     * @param port          the port of the server
+     * @param timeout       the timeout in milliseconds, must be &ge; 0
+     * @param sessionCache  the session cache used to create the connections,
+     *                      {@code null} for the default session cache
+     * @param framing       the framing negotiated with the server
+     */
+    public SSLClient(final Hostname hostname, final Port port, final Milliseconds timeout,
+                     final TlsSessionCache sessionCache, final Framing framing) {
+        this(hostname, port, timeout, framing, new TlsConnector(sessionCache));
+    }
+
+    /**
+     * Creates a new SSLSocketChannel with a timeout, which uses the given session cache
+     * and sends lines.
+     *
+     * @param hostname      the hostname of the server
+     * @param port          the port of the server
+     * @param timeout       the timeout in milliseconds, must be &ge; 0
+     * @param sessionCache  the session cache used to create the connections,
+     *                      {@code null} for the default session cache
+     * @see #SSLClient(Hostname, Port, Milliseconds, TlsSessionCache, Framing)
+     */
+    public SSLClient(final Hostname hostname, final Port port, final Milliseconds timeout,
+                     final TlsSessionCache sessionCache) {
+        this(hostname, port, timeout, sessionCache, Framing.LINES);
+    }
+
+    /**
+     * Creates a new SSLSocketChannel with a timeout, which uses the default session cache
+     * and sends lines.
+     *
      * @param hostname  the hostname of the server
      * @param port      the port of the server
      * @param timeout   the timeout in milliseconds, must be &ge; 0
+     * @see #SSLClient(Hostname, Port, Milliseconds, TlsSessionCache, Framing)
      */
     public SSLClient(final Hostname hostname, final Port port, final Milliseconds timeout) {
-        this.hostname = hostname;
-        this.port = port;
-        this.timeout = timeout;
-        this.isClosed = false;
+        this(hostname, port, timeout, null);
     }
 
     /**
@@ -64,7 +135,7 @@ public class SSLClient implements ClientChannel {
     }
 
     /**
-     * Establishes a connection to a server.
+     * Establishes a connection to a server and negotiates the framing.
      * If a connection already exists, a new connection is created,
      * and the old connection is not closed.
      *
@@ -72,27 +143,53 @@ public class SSLClient implements ClientChannel {
      * or another error occurs
      */
     @Override
-    public void connect() throws IOException {
+    public synchronized void connect() throws IOException {
         // even if connect() fails, the SSLSocketChannel is not considered closed
         this.isClosed = false;
+        this.liveness.failed();
 
-        this.clientSocket = SOCKET_FACTORY.createSocket();
-        this.clientSocket.connect(new InetSocketAddress(
-                this.hostname.toString(), this.port.toInt()), this.timeout.asInt());
-        this.clientSocket.setSoTimeout(this.timeout.asInt());
-        this.writer = new PrintWriter(this.clientSocket.getOutputStream(), true);
-        this.reader = new BufferedReader(new InputStreamReader(this.clientSocket.getInputStream()));
+        this.clientSocket = this.connector.connect(this.hostname, this.port, this.timeout);
+        // flushed explicitly, so that pipelined messages are sent together
+        this.out = new BufferedOutputStream(this.clientSocket.getOutputStream());
+        this.in = this.clientSocket.getInputStream();
+        this.inbound.clear();
+        this.inbound.flip();
+        if (this.codec != null) {
+            this.codec.close();
+        }
+        // Every connection starts with lines
+        this.codec = new LineCodec();
+        this.isFramed = false;
+        try {
+            this.codec = this.framing.negotiate(this);
+        } catch (IOException e) {
+            this.clientSocket.close();
+            throw e;
+        }
+        this.isFramed = this.codec instanceof FrameCodec;
+        this.liveness.connected();
     }
 
+    /**
+     * Returns whether a connection to the server exists, i.e. whether the connection
+     * has been established and no I/O on it has failed since.
+     * No message is sent to the server.
+     *
+     * @return  {@code true} if a connection to the server exists
+     */
     @Override
     public boolean isConnected() {
-        boolean isConnected = true;
-        try {
-            send(new String());
-        } catch (IOException e) {
-            isConnected = false;
-        }
-        return isConnected;
+        return this.liveness.isAlive();
+    }
+
+    @Override
+    public boolean isFramed() {
+        return this.isFramed;
+    }
+
+    @Override
+    public void setHeartbeatInterval(final Milliseconds interval) {
+        this.liveness.setHeartbeatInterval(interval);
     }
 
     /**
@@ -106,25 +203,159 @@ public class SSLClient implements ClientChannel {
      */
     @Override
     public String send(final String message) throws IOException {
-        if (this.clientSocket == null || this.reader == null || this.writer == null) {
+        return send(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and returns the response
+     * from the server. The bytes are written to the connection without being copied
+     * into a string first.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @return  the response from the server
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while sending the message,
+     *                      or if an error occurs while sending
+     */
+    @Override
+    public synchronized String send(final ByteBuffer message) throws IOException {
+        checkConnection();
+
+        try {
+            this.codec.encode(message, this.out);
+            this.out.flush();
+            return readResponse();
+        } catch (IOException e) {
+            this.liveness.failed();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a message to the server and processes the response from the server
+     * while it is being received.
+     *
+     * @param message   the message
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while sending the message,
+     *                      or if an error occurs while sending or processing
+     * @see #send(ByteBuffer, ResponseReader)
+     */
+    @Override
+    public <T> T send(final String message, final ResponseReader<T> reader)
+            throws IOException {
+        return send(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)), reader);
+    }
+
+    /**
+     * Sends a message that is already UTF-8 encoded to the server and processes the response
+     * from the server while it is being received.
+     * The response is decoded piece by piece into buffers that are reused for every response
+     * of the connection, so that the memory needed does not grow with the size of the response.
+     *
+     * @param message   the remaining bytes of the buffer, must be backed by an array
+     * @param reader    processes the response
+     * @param <T>       the type of the result
+     * @return  the result of {@code reader}
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while sending the message,
+     *                      or if an error occurs while sending or processing
+     */
+    @Override
+    public synchronized <T> T send(final ByteBuffer message, final ResponseReader<T> reader)
+            throws IOException {
+        checkConnection();
+
+        try {
+            this.codec.encode(message, this.out);
+            this.out.flush();
+            this.messageReader.begin();
+            T result = reader.read(this.messageReader);
+            // The next response starts after the end of this one
+            this.messageReader.skipRest();
+            this.liveness.succeeded();
+            return result;
+        } catch (IOException | RuntimeException e) {
+            this.liveness.failed();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends several messages to the server and returns the responses from the server
+     * in the order of the messages.
+     * Up to {@value #PIPELINE_DEPTH} messages are sent before the first response is read,
+     * so that the messages cost roughly one round trip instead of one round trip each.
+     *
+     * @param messages  the messages
+     * @return  the responses from the server, the i-th response belongs to the i-th message
+     * @throws IOException  if no connection to the server exists,
+     *                      if the timeout is exceeded while sending the messages,
+     *                      or if an error occurs while sending
+     */
+    @Override
+    public synchronized List<String> sendAll(final List<String> messages) throws IOException {
+        checkConnection();
+
+        final List<String> responses = new ArrayList<>(messages.size());
+        int sent = 0;
+        try {
+            while (responses.size() < messages.size()) {
+                // Limit the requests in flight, so that neither side blocks on a full buffer
+                while (sent < messages.size() && sent - responses.size() < PIPELINE_DEPTH) {
+                    this.codec.encode(messages.get(sent), this.out);
+                    sent++;
+                }
+                this.out.flush();
+                responses.add(readResponse());
+            }
+        } catch (IOException e) {
+            this.liveness.failed();
+            throw e;
+        }
+        return responses;
+    }
+
+    private void checkConnection() throws IOException {
+        if (this.clientSocket == null || this.in == null || this.out == null
+                || this.codec == null) {
             throw new IOException();
         }
+    }
 
-        this.writer.println(message);
-        String result = this.reader.readLine();
+    private String readResponse() throws IOException {
+        String result;
+        while ((result = this.codec.decode(this.inbound)) == null) {
+            receive();
+        }
+        this.liveness.succeeded();
+        return result;
+    }
 
-        if (result == null) {
+    /**
+     * Receives the next bytes into the inbound buffer, which must have been consumed.
+     */
+    private void receive() throws IOException {
+        int count = this.in.read(this.inbound.array(), 0, this.inbound.capacity());
+        if (count < 0) {
             // Connection was interrupted
             throw new IOException();
         }
-        return result;
+        this.inbound.clear();
+        this.inbound.limit(count);
     }
 
     @Override
-    public void close() throws IOException {
-        if (this.reader != null) this.reader.close();
-        if (this.writer != null) this.writer.close();
+    public synchronized void close() throws IOException {
+        this.liveness.failed();
+        if (this.in != null) this.in.close();
+        if (this.out != null) this.out.close();
         if (this.clientSocket != null) this.clientSocket.close();
+        if (this.codec != null) this.codec.close();
+        this.codec = null;
 
         this.isClosed = true;
     }
@@ -133,4 +364,144 @@ public class SSLClient implements ClientChannel {
     public boolean isClosed() {
         return this.isClosed;
     }
+
+    /**
+     * This class reads the payload of the current response as characters.
+     * Its buffers are reused for every response of the connection.
+     */
+    private final class MessageReader extends Reader {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // payload bytes that have not been decoded yet
+        private final ByteBuffer bytes = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+        // decoded characters, flipped for reading
+        private final CharBuffer chars = CharBuffer.allocate(RECEIVE_BUFFER_SIZE);
+        private boolean isPayloadComplete;
+        private boolean isDecoded;
+
+        void begin() {
+            this.decoder.reset();
+            this.bytes.clear();
+            this.chars.clear();
+            this.chars.flip();
+            this.isPayloadComplete = false;
+            this.isDecoded = false;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length)
+                throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (!this.chars.hasRemaining()) {
+                if (this.isDecoded) {
+                    return -1;
+                }
+                fill();
+            }
+
+            int count = Math.min(length, this.chars.remaining());
+            this.chars.get(buffer, offset, count);
+            return count;
+        }
+
+        void skipRest() throws IOException {
+            while (!this.isPayloadComplete) {
+                this.bytes.clear();
+                decodePayload();
+            }
+            this.isDecoded = true;
+        }
+
+        @Override
+        public void close() {
+            // The reader ends with the response, the connection stays open
+        }
+
+        private void fill() throws IOException {
+            if (!this.isPayloadComplete) {
+                decodePayload();
+            }
+
+            this.bytes.flip();
+            this.chars.compact();
+            this.decoder.decode(this.bytes, this.chars, this.isPayloadComplete);
+            if (this.isPayloadComplete && !this.bytes.hasRemaining()
+                    && this.decoder.flush(this.chars) == CoderResult.UNDERFLOW) {
+                this.isDecoded = true;
+            }
+            this.chars.flip();
+            this.bytes.compact();
+        }
+
+        /**
+         * Decodes payload bytes until at least one is available or the payload is complete.
+         */
+        private void decodePayload() throws IOException {
+            final int start = this.bytes.position();
+            while (true) {
+                this.isPayloadComplete = SSLClient.this.codec.decodePayload(
+                        SSLClient.this.inbound, this.bytes);
+                if (this.isPayloadComplete || this.bytes.position() > start) {
+                    return;
+                }
+                // Without output, the codec has consumed all received bytes
+                receive();
+            }
+        }
+    }
+
+    /**
+     * This interface describes how the connected sockets of an SSLClient are created.
+     */
+    interface SocketConnector {
+        /**
+         * Creates a socket connected to the server.
+         *
+         * @param hostname  the hostname of the server
+         * @param port      the port of the server
+         * @param timeout   the timeout for connecting and reading
+         * @return  the connected socket
+         * @throws IOException  if an error occurs while connecting
+         */
+        Socket connect(Hostname hostname, Port port, Milliseconds timeout) throws IOException;
+    }
+
+    /**
+     * This class creates TLS sockets whose sessions are cached by a {@link TlsSessionCache}.
+     */
+    private static final class TlsConnector implements SocketConnector {
+        private final TlsSessionCache sessionCache;
+
+        TlsConnector(final TlsSessionCache sessionCache) {
+            this.sessionCache = sessionCache;
+        }
+
+        @Override
+        public Socket connect(final Hostname hostname, final Port port,
+                              final Milliseconds timeout) throws IOException {
+            TlsSessionCache cache = this.sessionCache;
+            if (cache == null) {
+                cache = TlsSessionCache.getDefault();
+            }
+
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(
+                        hostname.toString(), port.toInt()), timeout.asInt());
+                socket.setSoTimeout(timeout.asInt());
+                // Layered with hostname and port, so that the session can be resumed on reconnect
+                SSLSocket sslSocket = cache.createSocket(socket, hostname, port);
+                final long handshakeStart = System.currentTimeMillis();
+                sslSocket.startHandshake();
+                cache.handshakeCompleted(hostname, port, sslSocket.getSession(), handshakeStart);
+                return sslSocket;
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+    }
 }
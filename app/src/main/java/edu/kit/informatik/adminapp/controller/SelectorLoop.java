@@ -0,0 +1,112 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class provides a single thread that serves the I/O of many non-blocking channels.
+ * All operations on a registered channel must be executed on this thread,
+ * which is why tasks can be submitted with {@link #execute(Runnable)}.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class SelectorLoop implements Runnable {
+    private static final String THREAD_NAME = "selector-loop";
+    private static SelectorLoop instance;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private SelectorLoop() throws IOException {
+        this.selector = Selector.open();
+        Thread thread = new Thread(this, THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the selector loop shared by all channels of the process.
+     *
+     * @return  the selector loop
+     * @throws IOException  if the selector cannot be opened
+     */
+    static synchronized SelectorLoop getInstance() throws IOException {
+        if (instance == null) {
+            instance = new SelectorLoop();
+        }
+        return instance;
+    }
+
+    /**
+     * Executes a task on the thread of this selector loop.
+     *
+     * @param task  the task
+     */
+    void execute(final Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Registers a channel with this selector loop.
+     * Must be called on the thread of this selector loop.
+     *
+     * @param channel   the channel, must be non-blocking
+     * @param ops       the operations the handler is interested in
+     * @param handler   the handler that is notified if the channel is ready
+     * @return  the key of the registered channel
+     * @throws IOException  if the channel cannot be registered
+     */
+    SelectionKey register(final SelectableChannel channel, final int ops,
+                          final Handler handler) throws IOException {
+        return channel.register(this.selector, ops, handler);
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                this.selector.select();
+            } catch (IOException e) {
+                // The selector is still usable, try again
+                continue;
+            }
+
+            Runnable task;
+            while ((task = this.tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // A failing task must not stop the I/O of the other channels
+                }
+            }
+
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid()) {
+                    ((Handler) key.attachment()).onReady(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * This interface describes a handler that is notified if its channel is ready for I/O.
+     */
+    interface Handler {
+        /**
+         * Performs the I/O of the channel. Is called on the thread of the selector loop.
+         *
+         * @param key   the key of the channel
+         */
+        void onReady(SelectionKey key);
+    }
+}
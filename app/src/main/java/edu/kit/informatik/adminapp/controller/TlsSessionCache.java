@@ -0,0 +1,213 @@
+package edu.kit.informatik.adminapp.controller;
+
+import android.net.ssl.SSLEngines;
+import android.net.ssl.SSLSockets;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+
+import edu.kit.informatik.adminapp.model.Hostname;
+import edu.kit.informatik.adminapp.model.Port;
+
+/**
+ * This class provides an SSL context whose client sessions are cached per hostname and port,
+ * so that reconnects to a server resume the previous TLS session instead of performing
+ * a full handshake. Session tickets are enabled where the platform supports it.
+ * Every handshake is reported as resumed or full.
+ *
+ * <p>A handshake counts as resumed if it negotiated the session ID of the previous session
+ * with the same server, which is how TLS 1.2 and earlier resume a session. A TLS 1.3 session
+ * is resumed under a new ID, and the platform exposes no other signal for it, so such
+ * a handshake counts as full. The number of resumed handshakes is therefore a lower bound.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class TlsSessionCache {
+    private static final String PROTOCOL = "TLS";
+    private static final int SESSION_CACHE_SIZE = 16;
+    private static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+    private static final String SERVER_SEPARATOR = ":";
+    private static TlsSessionCache instance;
+
+    private final SSLContext context;
+    private final AtomicInteger resumedHandshakes = new AtomicInteger();
+    private final AtomicInteger fullHandshakes = new AtomicInteger();
+    // The ID of the last session negotiated with every server
+    private final Map<String, byte[]> sessionIds = new ConcurrentHashMap<>();
+    private volatile HandshakeListener listener;
+
+    /**
+     * Creates a new session cache for the client sessions of the given SSL context.
+     *
+     * @param context   the SSL context
+     */
+    public TlsSessionCache(final SSLContext context) {
+        this.context = context;
+        SSLSessionContext sessions = context.getClientSessionContext();
+        if (sessions != null) {
+            sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+            sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+        }
+    }
+
+    /**
+     * Returns the session cache shared by the whole process, which uses the default
+     * key and trust managers of the platform.
+     *
+     * @return  the session cache
+     * @throws IOException  if the SSL context cannot be created
+     */
+    public static synchronized TlsSessionCache getDefault() throws IOException {
+        if (instance == null) {
+            try {
+                SSLContext context = SSLContext.getInstance(PROTOCOL);
+                context.init(null, null, null);
+                instance = new TlsSessionCache(context);
+            } catch (GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the SSL context.
+     *
+     * @return  the SSL context
+     */
+    public SSLContext getContext() {
+        return this.context;
+    }
+
+    /**
+     * Sets the listener that is notified of every completed handshake.
+     *
+     * @param listener  the listener, {@code null} to remove the listener
+     */
+    public void setListener(final HandshakeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the number of handshakes that resumed a cached session.
+     *
+     * @return  the number of resumed handshakes
+     */
+    public int getResumedHandshakes() {
+        return this.resumedHandshakes.get();
+    }
+
+    /**
+     * Returns the number of full handshakes.
+     *
+     * @return  the number of full handshakes
+     */
+    public int getFullHandshakes() {
+        return this.fullHandshakes.get();
+    }
+
+    /**
+     * Layers an SSL socket over a connected socket. The hostname and port identify the
+     * cached session that may be resumed.
+     *
+     * @param socket    the connected socket
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     * @return  the SSL socket, the handshake has not yet been started
+     * @throws IOException  if the SSL socket cannot be created
+     */
+    public SSLSocket createSocket(final Socket socket, final Hostname hostname, final Port port)
+            throws IOException {
+        SSLSocket sslSocket = (SSLSocket) this.context.getSocketFactory().createSocket(
+                socket, hostname.toString(), port.toInt(), true);
+        enableSessionTickets(sslSocket);
+        return sslSocket;
+    }
+
+    /**
+     * Creates an SSL engine in client mode. The hostname and port identify the
+     * cached session that may be resumed.
+     *
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     * @return  the SSL engine
+     */
+    public SSLEngine createEngine(final Hostname hostname, final Port port) {
+        SSLEngine engine = this.context.createSSLEngine(hostname.toString(), port.toInt());
+        engine.setUseClientMode(true);
+        enableSessionTickets(engine);
+        return engine;
+    }
+
+    /**
+     * Records a completed handshake and notifies the listener.
+     * A handshake counts as resumed if its session has the ID of the previous session
+     * with the same server.
+     *
+     * @param hostname          the hostname of the server
+     * @param port              the port of the server
+     * @param session           the session negotiated by the handshake
+     * @param handshakeStart    the time the handshake started, in milliseconds since the epoch
+     * @return  {@code true} if the handshake resumed a cached session
+     */
+    public boolean handshakeCompleted(final Hostname hostname, final Port port,
+                                      final SSLSession session, final long handshakeStart) {
+        final byte[] sessionId = session.getId();
+        final byte[] previousId = this.sessionIds.put(
+                hostname + SERVER_SEPARATOR + port.toInt(), sessionId);
+        final boolean isResumed = sessionId.length > 0 && Arrays.equals(sessionId, previousId);
+        if (isResumed) {
+            this.resumedHandshakes.incrementAndGet();
+        } else {
+            this.fullHandshakes.incrementAndGet();
+        }
+
+        HandshakeListener current = this.listener;
+        if (current != null) {
+            current.onHandshake(hostname, port, isResumed,
+                    System.currentTimeMillis() - handshakeStart);
+        }
+        return isResumed;
+    }
+
+    private static void enableSessionTickets(final SSLSocket socket) {
+        // Otherwise the platform decides itself whether session tickets are used
+        if (SSLSockets.isSupportedSocket(socket)) {
+            SSLSockets.setUseSessionTickets(socket, true);
+        }
+    }
+
+    private static void enableSessionTickets(final SSLEngine engine) {
+        if (SSLEngines.isSupportedEngine(engine)) {
+            SSLEngines.setUseSessionTickets(engine, true);
+        }
+    }
+
+    /**
+     * This interface describes a listener that is notified of completed handshakes.
+     */
+    public interface HandshakeListener {
+        /**
+         * Is called after a handshake has been completed.
+         *
+         * @param hostname  the hostname of the server
+         * @param port      the port of the server
+         * @param isResumed {@code true} if a cached session was resumed,
+         *                  {@code false} if a full handshake was performed
+         * @param duration  the duration of the handshake in milliseconds
+         */
+        void onHandshake(Hostname hostname, Port port, boolean isResumed, long duration);
+    }
+}
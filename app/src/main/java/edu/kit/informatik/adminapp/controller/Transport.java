@@ -0,0 +1,46 @@
+package edu.kit.informatik.adminapp.controller;
+
+import edu.kit.informatik.adminapp.model.Hostname;
+import edu.kit.informatik.adminapp.model.Milliseconds;
+import edu.kit.informatik.adminapp.model.Port;
+
+/**
+ * This enum lists the available implementations of a {@link ClientChannel}.
+ * All implementations use the same wire protocol.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public enum Transport {
+    /** Blocking sockets, see {@link SSLClient}. */
+    BLOCKING {
+        @Override
+        public ClientChannel createChannel(final Hostname hostname, final Port port,
+                                           final Milliseconds timeout, final Framing framing) {
+            return new SSLClient(hostname, port, timeout, null, framing);
+        }
+    },
+    /**
+     * Non-blocking socket channels served by a shared selector thread,
+     * see {@link NioSSLClient}.
+     */
+    NON_BLOCKING {
+        @Override
+        public ClientChannel createChannel(final Hostname hostname, final Port port,
+                                           final Milliseconds timeout, final Framing framing) {
+            return new NioSSLClient(hostname, port, timeout, null, framing);
+        }
+    };
+
+    /**
+     * Creates a new channel with this transport. No connection is established.
+     *
+     * @param hostname  the hostname of the server
+     * @param port      the port of the server
+     * @param timeout   the timeout in milliseconds
+     * @param framing   the framing negotiated with the server
+     * @return  the new channel
+     */
+    public abstract ClientChannel createChannel(final Hostname hostname, final Port port,
+                                                final Milliseconds timeout, final Framing framing);
+}
@@ -0,0 +1,18 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+/**
+ * This enum represents the outcome of adding a token to a user.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public enum AddTokenResult {
+    /** The token has been added to the user. */
+    ADDED,
+    /** The user already owned the token, nothing has been changed. */
+    ALREADY_OWNED,
+    /** The token belongs to another user, so it has not been added. */
+    OWNED_BY_OTHER,
+    /** The user ID and password do not permit adding the token. */
+    DENIED
+}
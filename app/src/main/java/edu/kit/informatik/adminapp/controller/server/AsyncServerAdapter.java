@@ -0,0 +1,149 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import edu.kit.informatik.adminapp.model.Attribute;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.User;
+
+/**
+ * This interface defines an asynchronous communication interface with a server.
+ * Every method returns immediately with a {@link CompletableFuture} that is completed
+ * with the result of the request, or completed exceptionally with the
+ * {@link java.io.IOException} that occurred during the request.
+ * Requests that have not yet been started can be cancelled with
+ * {@link CompletableFuture#cancel(boolean)}.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public interface AsyncServerAdapter {
+    /**
+     * Returns the server adapter that executes the requests.
+     *
+     * @return  the server adapter
+     */
+    ServerAdapter getServerAdapter();
+
+    /**
+     * Establishes a connection to the server if no connection exists.
+     *
+     * @return  a future that is completed once the connection exists
+     */
+    CompletableFuture<Void> connect();
+
+    /**
+     * Checks whether access to the server is possible with the user ID and password
+     * of the server adapter.
+     *
+     * @return  a future that is completed with {@code true} if access to the server is possible
+     * @see ServerAdapter#isAuthenticated()
+     */
+    CompletableFuture<Boolean> isAuthenticated();
+
+    /**
+     * Searches for users that meet all attributes.
+     *
+     * @param base          the distinguished name from which the search should be conducted
+     * @param attributes    the attributes
+     * @return  a future that is completed with the users that meet all attributes
+     * @see ServerAdapter#search(String, Attribute...)
+     */
+    CompletableFuture<Collection<User>> search(final String base, final Attribute... attributes);
+
+    /**
+     * Searches for users that meet all attributes and passes every user to {@code consumer}
+     * as soon as it has been received. The consumer is called on the I/O thread.
+     *
+     * @param base          the distinguished name from which the search should be conducted
+     * @param consumer      receives the users that meet all attributes
+     * @param attributes    the attributes
+     * @return  a future that is completed with the number of users once the search is complete
+     * @see ServerAdapter#search(String, Consumer, Attribute...)
+     */
+    CompletableFuture<Integer> search(final String base, final Consumer<? super User> consumer,
+                                      final Attribute... attributes);
+
+    /**
+     * Loads a page of the users that meet all attributes and passes every user of the page to
+     * {@code consumer} as soon as it has been received. The consumer is called on the I/O thread.
+     *
+     * @param base          the distinguished name from which the search should be conducted
+     * @param pageSize      the maximum number of users on the page
+     * @param cursor        the cursor of the previous page, or {@code null} for the first page
+     * @param consumer      receives the users of the page that meet all attributes
+     * @param attributes    the attributes
+     * @return  a future that is completed with the page once it has been loaded
+     * @see ServerAdapter#search(String, int, SearchCursor, Consumer, Attribute...)
+     */
+    CompletableFuture<SearchPage> search(final String base, final int pageSize,
+                                         final SearchCursor cursor,
+                                         final Consumer<? super User> consumer,
+                                         final Attribute... attributes);
+
+    /**
+     * Adds a token to the user on the server.
+     *
+     * @param user  the user
+     * @param token the token
+     * @return  a future that is completed with whether the token has been added, or why not
+     * @see ServerAdapter#addToken(User, Token)
+     */
+    CompletableFuture<AddTokenResult> addToken(final User user, final Token token);
+
+    /**
+     * Removes a token from the user on the server.
+     *
+     * @param user  the user
+     * @param token the token
+     * @return  a future that is completed once the request has been processed
+     * @see ServerAdapter#removeToken(User, Token)
+     */
+    CompletableFuture<Void> removeToken(final User user, final Token token);
+
+    /**
+     * Removes all tokens from the user on the server.
+     *
+     * @param user  the user
+     * @return  a future that is completed once the request has been processed
+     * @see ServerAdapter#removeAllTokens(User)
+     */
+    CompletableFuture<Void> removeAllTokens(final User user);
+
+    /**
+     * Executes a task with the server adapter on the I/O thread, in the order of the other
+     * requests, so that the requests of the task are not interleaved with other requests.
+     *
+     * @param task  the task
+     * @param <T>   the type of the result
+     * @return  a future that is completed with the result of the task
+     */
+    <T> CompletableFuture<T> execute(final Task<T> task);
+
+    /**
+     * Closes the connection to the server after all previously submitted requests
+     * have been processed. No further requests are accepted.
+     *
+     * @return  a future that is completed once the connection is closed
+     */
+    CompletableFuture<Void> close();
+
+    /**
+     * This interface describes a task that sends requests with a server adapter.
+     *
+     * @param <T>   the type of the result
+     */
+    interface Task<T> {
+        /**
+         * Executes the task. A connection to the server has been established.
+         *
+         * @param serverAdapter the server adapter
+         * @return  the result
+         * @throws IOException  if an error occurs during a request
+         */
+        T execute(ServerAdapter serverAdapter) throws IOException;
+    }
+}
@@ -0,0 +1,350 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import android.os.Parcel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import edu.kit.informatik.adminapp.model.Attribute;
+import edu.kit.informatik.adminapp.model.Password;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+import edu.kit.informatik.adminapp.model.UserSnapshot;
+
+/**
+ * This class caches the search results of another {@link ServerAdapter}, so that
+ * returning to a screen does not fetch the same users from the server again.
+ * A bounded number of results is kept, the least recently used result is evicted first,
+ * and a result expires after a time to live. Searches that found no user are cached
+ * for a shorter time.
+ *
+ * <p>Changes of tokens are written through to the server, and every cached result
+ * that contains the changed user is discarded, even if the change fails.
+ * Changing the user ID or password discards all results.
+ *
+ * <p>Copies of a CachingServerAdapter created from a parcel share the cache
+ * within the same process.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public class CachingServerAdapter implements ServerAdapter {
+    /** Creates instances of the class. */
+    public static final Creator<CachingServerAdapter> CREATOR =
+            new Creator<CachingServerAdapter>() {
+        @Override
+        public CachingServerAdapter createFromParcel(final Parcel in) {
+            return new CachingServerAdapter(in);
+        }
+
+        @Override
+        public CachingServerAdapter[] newArray(final int size) {
+            return new CachingServerAdapter[size];
+        }
+    };
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final long DEFAULT_TIME_TO_LIVE = 60_000;
+    private static final long DEFAULT_MISS_TIME_TO_LIVE = 10_000;
+    // the page size of a search that is not paged
+    private static final int UNPAGED = 0;
+
+    private final ServerAdapter serverAdapter;
+    private final String cacheId;
+    private final SearchCache cache;
+
+    /**
+     * Creates a new CachingServerAdapter with a cache of the given size and times to live.
+     *
+     * @param serverAdapter     the server adapter whose search results are cached
+     * @param capacity          the maximum number of cached search results
+     * @param timeToLive        the time in milliseconds after which a result expires
+     * @param missTimeToLive    the time in milliseconds after which a result without users expires
+     */
+    public CachingServerAdapter(final ServerAdapter serverAdapter, final int capacity,
+                                final long timeToLive, final long missTimeToLive) {
+        this(serverAdapter, UUID.randomUUID().toString(), capacity, timeToLive, missTimeToLive);
+    }
+
+    /**
+     * Creates a new CachingServerAdapter that caches up to 64 search results for a minute,
+     * and searches that found no user for ten seconds.
+     *
+     * @param serverAdapter the server adapter whose search results are cached
+     */
+    public CachingServerAdapter(final ServerAdapter serverAdapter) {
+        this(serverAdapter, DEFAULT_CAPACITY, DEFAULT_TIME_TO_LIVE, DEFAULT_MISS_TIME_TO_LIVE);
+    }
+
+    /**
+     * Creates a new CachingServerAdapter with a cache that is not registered, e.g. to control
+     * the time of the cache.
+     */
+    CachingServerAdapter(final ServerAdapter serverAdapter, final SearchCache cache) {
+        this.serverAdapter = serverAdapter;
+        this.cacheId = UUID.randomUUID().toString();
+        this.cache = cache;
+    }
+
+    private CachingServerAdapter(final ServerAdapter serverAdapter, final String cacheId,
+                                 final int capacity, final long timeToLive,
+                                 final long missTimeToLive) {
+        this.serverAdapter = serverAdapter;
+        this.cacheId = cacheId;
+        this.cache = SearchCache.register(cacheId, capacity, timeToLive, missTimeToLive);
+    }
+
+    private CachingServerAdapter(final Parcel in) {
+        this(
+                in.readParcelable(ServerAdapter.class.getClassLoader()),
+                in.readString(),
+                in.readInt(),
+                in.readLong(),
+                in.readLong()
+        );
+    }
+
+    /**
+     * Returns the number of searches that have been answered from the cache.
+     *
+     * @return  the number of cache hits
+     */
+    public long getHitCount() {
+        return this.cache.getHitCount();
+    }
+
+    /**
+     * Returns the number of searches that have been sent to the server.
+     *
+     * @return  the number of cache misses
+     */
+    public long getMissCount() {
+        return this.cache.getMissCount();
+    }
+
+    /**
+     * Returns the number of search results that have been evicted because the cache was full.
+     *
+     * @return  the number of evictions
+     */
+    public long getEvictionCount() {
+        return this.cache.getEvictionCount();
+    }
+
+    @Override
+    public void set(final UserId uid) {
+        // Another user may be allowed to see other results
+        this.cache.clear();
+        this.serverAdapter.set(uid);
+    }
+
+    @Override
+    public void set(final Password password) {
+        this.cache.clear();
+        this.serverAdapter.set(password);
+    }
+
+    @Override
+    public void connect() throws IOException {
+        this.serverAdapter.connect();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.serverAdapter.isConnected();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverAdapter.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.serverAdapter.isClosed();
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return this.serverAdapter.getExecutor();
+    }
+
+    @Override
+    public boolean isAuthenticated() throws IOException {
+        return this.serverAdapter.isAuthenticated();
+    }
+
+    @Override
+    public Collection<User> search(
+            final String base, final Attribute... attributes) throws IOException {
+        final Collection<User> users = new ArrayList<>();
+        search(base, users::add, attributes);
+        return users;
+    }
+
+    @Override
+    public int search(final String base, final Consumer<? super User> consumer,
+                      final Attribute... attributes) throws IOException {
+        final SearchKey key = new SearchKey(base, attributes, UNPAGED, null);
+        final SearchCache.Result cached = this.cache.get(key);
+        if (cached != null) {
+            accept(cached, consumer);
+            return cached.getUsers().size();
+        }
+
+        final List<UserSnapshot> users = new ArrayList<>();
+        final int count = this.serverAdapter.search(base, (User user) -> {
+            // The consumer may change the user, the cache must not see it
+            users.add(UserSnapshot.of(user));
+            consumer.accept(user);
+        }, attributes);
+        this.cache.put(key, users, null);
+        return count;
+    }
+
+    @Override
+    public SearchPage search(final String base, final int pageSize, final SearchCursor cursor,
+                             final Consumer<? super User> consumer,
+                             final Attribute... attributes) throws IOException {
+        final SearchKey key = new SearchKey(base, attributes, pageSize, cursor);
+        final SearchCache.Result cached = this.cache.get(key);
+        if (cached != null) {
+            accept(cached, consumer);
+            return cached.getPage();
+        }
+
+        final List<UserSnapshot> users = new ArrayList<>();
+        final SearchPage page = this.serverAdapter.search(base, pageSize, cursor, (User user) -> {
+            users.add(UserSnapshot.of(user));
+            consumer.accept(user);
+        }, attributes);
+        this.cache.put(key, users, page);
+        return page;
+    }
+
+    /**
+     * Passes the users of a cached result to a consumer as users that it may change.
+     */
+    private static void accept(final SearchCache.Result cached,
+                               final Consumer<? super User> consumer) {
+        for (final UserSnapshot user : cached.getUsers()) {
+            consumer.accept(user.toUser());
+        }
+    }
+
+    @Override
+    public AddTokenResult addToken(final User user, final Token token) throws IOException {
+        try {
+            return this.serverAdapter.addToken(user, token);
+        } finally {
+            this.cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public List<TokenResult> addTokens(final User user, final Collection<Token> tokens)
+            throws IOException {
+        try {
+            return this.serverAdapter.addTokens(user, tokens);
+        } finally {
+            this.cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void removeToken(final User user, final Token token) throws IOException {
+        try {
+            this.serverAdapter.removeToken(user, token);
+        } finally {
+            this.cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public List<TokenResult> removeTokens(final User user, final Collection<Token> tokens)
+            throws IOException {
+        try {
+            return this.serverAdapter.removeTokens(user, tokens);
+        } finally {
+            this.cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public List<TokenResult> changeTokens(final List<TokenChange> changes) throws IOException {
+        try {
+            return this.serverAdapter.changeTokens(changes);
+        } finally {
+            for (final TokenChange change : changes) {
+                this.cache.invalidate(change.getUser().getId());
+            }
+        }
+    }
+
+    @Override
+    public void removeAllTokens(final User user) throws IOException {
+        try {
+            this.serverAdapter.removeAllTokens(user);
+        } finally {
+            this.cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(final Parcel parcel, final int flag) {
+        parcel.writeParcelable(this.serverAdapter, flag);
+        parcel.writeString(this.cacheId);
+        parcel.writeInt(this.cache.getCapacity());
+        parcel.writeLong(this.cache.getTimeToLive());
+        parcel.writeLong(this.cache.getMissTimeToLive());
+    }
+
+    /**
+     * This class identifies a search by its parameters.
+     */
+    private static final class SearchKey {
+        private final String base;
+        private final List<Attribute> attributes;
+        private final int pageSize;
+        private final SearchCursor cursor;
+
+        SearchKey(final String base, final Attribute[] attributes, final int pageSize,
+                  final SearchCursor cursor) {
+            this.base = base;
+            // Attributes are mutable, the key must not change with them
+            this.attributes = new ArrayList<>(attributes.length);
+            for (final Attribute attribute : attributes) {
+                this.attributes.add(new Attribute(attribute.getKey(), attribute.getValue()));
+            }
+            this.pageSize = pageSize;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final SearchKey key = (SearchKey) o;
+            return this.pageSize == key.pageSize && Objects.equals(this.base, key.base)
+                    && this.attributes.equals(key.attributes)
+                    && Objects.equals(this.cursor, key.cursor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.base, this.attributes, this.pageSize, this.cursor);
+        }
+    }
+}
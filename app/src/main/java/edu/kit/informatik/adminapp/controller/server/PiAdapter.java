@@ -3,27 +3,39 @@ package edu.kit.informatik.adminapp.controller.server;
 import android.os.Parcel;
 
 import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 import edu.kit.informatik.adminapp.controller.ClientChannel;
-import edu.kit.informatik.adminapp.controller.SSLClient;
+import edu.kit.informatik.adminapp.controller.ConnectionPool;
+import edu.kit.informatik.adminapp.controller.Framing;
+import edu.kit.informatik.adminapp.controller.ReconnectingChannel;
+import edu.kit.informatik.adminapp.controller.Transport;
 import edu.kit.informatik.adminapp.model.Attribute;
 import edu.kit.informatik.adminapp.model.Hostname;
 import edu.kit.informatik.adminapp.model.Milliseconds;
-import edu.kit.informatik.adminapp.model.Name;
 import edu.kit.informatik.adminapp.model.Password;
 import edu.kit.informatik.adminapp.model.Port;
 import edu.kit.informatik.adminapp.model.Token;
-import edu.kit.informatik.adminapp.model.TokenId;
 import edu.kit.informatik.adminapp.model.User;
 import edu.kit.informatik.adminapp.model.UserId;
 import edu.kit.informatik.adminapp.model.resources.Errors;
 
 /**
  * This class represents an adapter to a Raspberry Pi that simulates a server.
+ * The connection to the server is borrowed from the {@link ConnectionPool},
+ * so that PiAdapters with the same server and credentials share one connection.
+ * Interrupted connections are reestablished, and searches and removals of all tokens
+ * are sent again, see {@link ReconnectingChannel}.
  *
  * @author Daniel Luckey
  * @version 1.0
@@ -42,34 +54,71 @@ public class PiAdapter implements ServerAdapter {
         }
     };
 
-    private static final String USER_SPLITTER = "\\$";
-    private static final String REGEX_TOKEN = "[^;]+";
-    private static final String REGEX_USER = "([^,]+),([^;]+);([^;]+);([^:]+):([^;]+(?:;[^;]+)*)?";
-    private static final int LASTNAME_GROUP = 1;
-    private static final int FIRSTNAME_GROUP = 2;
-    private static final int UID_GROUP = 3;
-    private static final int TOKENS_GROUP = 5;
-
-    private static final String SEARCH_REQUEST_STRUCTURE = "search$%s$%s$%s";
-    private static final String ADD_REQUEST_STRUCTURE = "addToken$%s$%s$%s$%s";
-    private static final String DELETE_TOKEN_REQUEST_STRUCTURE = "deleteToken$%s$%s$%s$%s";
-    private static final String DELETE_ALL_REQUEST_STRUCTURE = "deleteAll$%s$%s$%s";
+    // every request is the command, either the ID of a session or the user ID and the password,
+    // and further fields; the server tells both apart by the number of fields
+    private static final String LOGIN_COMMAND = "login";
+    private static final String SEARCH_COMMAND = "search";
+    private static final String PAGE_COMMAND = "page";
+    private static final String ADD_COMMAND = "addToken";
+    private static final String DELETE_TOKEN_COMMAND = "deleteToken";
+    private static final String DELETE_ALL_COMMAND = "deleteAll";
+    // requests that have the same effect if the server processes them twice
+    private static final String[] IDEMPOTENT_REQUESTS = {"login$", "search$", "page$",
+        "deleteAll$"};
+
+    // a successful login is answered with session$id$lifetime in seconds
+    private static final String SESSION_RESPONSE_PREFIX = "session$";
+    private static final char SESSION_RESPONSE_SEPARATOR = '$';
+    private static final String LOGIN_DENIED = "denied";
+    // the response to a request whose session is unknown to the server or has expired
+    private static final String SESSION_EXPIRED = "expired";
+    // a session is renewed shortly before it expires, so that it does not expire in flight
+    private static final long SESSION_RENEWAL_MARGIN = 5_000;
+    private static final long MILLISECONDS_PER_SECOND = 1_000;
+
+    // a page is answered with page$cursor$users, where the cursor is empty on the last page
+    private static final String PAGE_RESPONSE_PREFIX = "page$";
+    private static final char PAGE_CURSOR_END = '$';
+    // enough of a response to tell a page, an expired session and a user record apart
+    private static final int RESPONSE_LOOKAHEAD
+            = Math.max(PAGE_RESPONSE_PREFIX.length(), SESSION_EXPIRED.length()) + 1;
+
+    // the outcome of an addToken request, unless the server is a legacy server
+    private static final String ADD_RESPONSE_PREFIX = "addToken$";
+    private static final String ADD_RESPONSE_ADDED = "added";
+    private static final String ADD_RESPONSE_ALREADY_OWNED = "owned";
+    private static final String ADD_RESPONSE_OWNED_BY_OTHER = "taken";
+    private static final String ADD_RESPONSE_DENIED = "denied";
 
     // base, attribute name are not considered by PiAdapter
     private static final String SEARCH_BASE = "";
     private static final String SEARCH_ATTRIBUTE_NAME = "";
 
-    private static final String NAME_SEPARATOR = " "; // separates first and last name
-
     private Hostname hostname;
     private Port port;
     private Milliseconds timeout;
     private UserId uid;
     private Password password;
-    private ClientChannel channel;
+    private Transport transport;
+    private Framing framing;
+    private ConnectionPool.Lease channel;
+    // creates the connections instead of the transport if not null
+    private final ConnectionPool.Factory channelFactory;
+    // set once the server has answered a batch request like a legacy server
+    private volatile boolean isBatchUnsupported;
+    // set once the server has answered a page request like a legacy server
+    private volatile boolean isPagingUnsupported;
+    // set once the server has answered a login like a legacy server
+    private volatile boolean isSessionUnsupported;
+    // the session of the connection, guarded by this
+    private String sessionId;
+    private long sessionExpiry;
+    // encodes the requests into a reused buffer, guarded by itself
+    private final RequestEncoder encoder = new RequestEncoder();
 
     /**
-     * Creates a new PiAdapter with a user ID and a password.
+     * Creates a new PiAdapter with a user ID, a password, and the transport and framing used
+     * for the connection.
      * If the timeout is exceeded during a request to the server,
      * a {@link java.net.SocketTimeoutException Exception} is thrown.
      * A timeout of 0 is interpreted as an infinite timeout.
@@ -82,15 +131,73 @@ public class PiAdapter implements ServerAdapter {
      * @param timeout   the timeout
      * @param uid       the user ID used to access the server
      * @param password  the password used to access the server
+     * @param transport the transport used for the connection to the server
+     * @param framing   the framing negotiated with the server
      */
     public PiAdapter(final Hostname hostname, final Port port, final Milliseconds timeout,
-                     final UserId uid, final Password password) {
+                     final UserId uid, final Password password, final Transport transport,
+                     final Framing framing) {
+        this(hostname, port, timeout, uid, password, transport, framing, null);
+    }
+
+    /**
+     * Creates a new PiAdapter whose connections are created by a factory instead of
+     * the transport, e.g. to talk to a server stand-in.
+     */
+    PiAdapter(final Hostname hostname, final Port port, final Milliseconds timeout,
+              final UserId uid, final Password password, final Transport transport,
+              final Framing framing, final ConnectionPool.Factory channelFactory) {
         this.hostname = hostname;
         this.port = port;
         this.timeout = timeout;
         this.uid = uid;
         this.password = password;
-        this.channel = new SSLClient(this.hostname, this.port, this.timeout);
+        this.transport = transport;
+        this.framing = framing;
+        this.channelFactory = channelFactory;
+    }
+
+    /**
+     * Creates a new PiAdapter with a user ID, a password and the transport used for
+     * the connection. Compressed frames are used if the server supports them.
+     * If the timeout is exceeded during a request to the server,
+     * a {@link java.net.SocketTimeoutException Exception} is thrown.
+     * A timeout of 0 is interpreted as an infinite timeout.
+     *
+     * No connection to the server is established.
+     * It is not checked whether access to the server is possible with the user ID and password.
+     *
+     * @param hostname  the hostname where the server is accessible
+     * @param port      the port where the server is accessible
+     * @param timeout   the timeout
+     * @param uid       the user ID used to access the server
+     * @param password  the password used to access the server
+     * @param transport the transport used for the connection to the server
+     */
+    public PiAdapter(final Hostname hostname, final Port port, final Milliseconds timeout,
+                     final UserId uid, final Password password, final Transport transport) {
+        this(hostname, port, timeout, uid, password, transport, Framing.COMPRESSED_FRAMES);
+    }
+
+    /**
+     * Creates a new PiAdapter with a user ID and a password, which uses
+     * {@link Transport#BLOCKING blocking sockets}.
+     * If the timeout is exceeded during a request to the server,
+     * a {@link java.net.SocketTimeoutException Exception} is thrown.
+     * A timeout of 0 is interpreted as an infinite timeout.
+     *
+     * No connection to the server is established.
+     * It is not checked whether access to the server is possible with the user ID and password.
+     *
+     * @param hostname  the hostname where the server is accessible
+     * @param port      the port where the server is accessible
+     * @param timeout   the timeout
+     * @param uid       the user ID used to access the server
+     * @param password  the password used to access the server
+     */
+    public PiAdapter(final Hostname hostname, final Port port, final Milliseconds timeout,
+                     final UserId uid, final Password password) {
+        this(hostname, port, timeout, uid, password, Transport.BLOCKING);
     }
 
     /**
@@ -116,36 +223,141 @@ public class PiAdapter implements ServerAdapter {
                 in.readParcelable(Port.class.getClassLoader()),
                 in.readParcelable(Milliseconds.class.getClassLoader()),
                 in.readParcelable(UserId.class.getClassLoader()),
-                in.readParcelable(Password.class.getClassLoader())
+                in.readParcelable(Password.class.getClassLoader()),
+                Transport.valueOf(in.readString()),
+                Framing.valueOf(in.readString())
         );
+        // The session stays valid, since the pooled connection is reused
+        this.sessionId = in.readString();
+        this.sessionExpiry = in.readLong();
+        // The capabilities of the server are not probed again by every copy
+        this.isSessionUnsupported = in.readBoolean();
+        this.isBatchUnsupported = in.readBoolean();
+        this.isPagingUnsupported = in.readBoolean();
     }
 
     @Override
-    public void set(UserId uid) {
+    public synchronized void set(UserId uid) {
         this.uid = uid;
+        this.sessionId = null;
+        rekey();
     }
 
     @Override
-    public void set(Password password) {
+    public synchronized void set(Password password) {
         this.password = password;
+        this.sessionId = null;
+        rekey();
+    }
+
+    private void rekey() {
+        // The pooled connection is now used with the new credentials
+        if (this.channel != null) {
+            this.channel.rekey(createKey());
+        }
     }
 
+    /**
+     * Borrows a connection to the server from the {@link ConnectionPool}.
+     * If a connection has already been borrowed, it is only reestablished if it has been
+     * interrupted, since other PiAdapters may be sending requests over it.
+     *
+     * @throws IOException  if an error occurs while establishing the connection
+     */
     @Override
     public void connect() throws IOException {
-        this.channel.connect();
+        ConnectionPool.Lease current = getChannel();
+        if (current != null && !current.isClosed()) {
+            // The connection is shared, so it is only reestablished if it has been interrupted
+            if (!current.isConnected()) {
+                // The session was bound to the previous connection
+                expireSession();
+                current.connect();
+            }
+            return;
+        }
+
+        // The lock is not held while connecting, so that set() does not block
+        ConnectionPool.Lease lease = ConnectionPool.getInstance().borrow(createKey(),
+                createFactory());
+        synchronized (this) {
+            this.channel = lease;
+            rekey(); // If the credentials have changed in the meantime
+        }
+    }
+
+    /**
+     * Returns the I/O thread of the pooled connection to the server, which is shared with
+     * every other PiAdapter that uses the connection. Before {@link #connect()}, the thread
+     * of the connection for the server, settings and credentials is returned.
+     *
+     * @return  the I/O thread
+     */
+    @Override
+    public Executor getExecutor() {
+        final ConnectionPool.Lease current = getChannel();
+        if (current != null) {
+            try {
+                // The connection may still be filed under other credentials
+                return current.getExecutor();
+            } catch (IOException e) {
+                // The connection has been returned, the next one is looked up by its key
+            }
+        }
+        return ConnectionPool.getInstance().getExecutor(createKey(), createFactory());
+    }
+
+    private ConnectionPool.Factory createFactory() {
+        return this.channelFactory != null ? this.channelFactory : () -> new ReconnectingChannel(
+                this.transport.createChannel(this.hostname, this.port, this.timeout, this.framing),
+                PiAdapter::isIdempotent);
+    }
+
+    private static boolean isIdempotent(final String request) {
+        for (final String idempotentRequest : IDEMPOTENT_REQUESTS) {
+            if (request.startsWith(idempotentRequest)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized ConnectionPool.Key createKey() {
+        return new ConnectionPool.Key(this.hostname, this.port, this.timeout, this.transport,
+                this.framing, this.uid, this.password);
     }
 
     @Override
     public boolean isConnected() {
-        return this.channel.isConnected();
+        ClientChannel current = getChannel();
+        return current != null && current.isConnected();
     }
 
+    /**
+     * Checks whether access to the server is possible with the user ID and password
+     * by logging in, which starts a session for the following requests.
+     * If the server does not support sessions, a search for the user ID is conducted instead.
+     *
+     * @return  {@code true} if access to the server is possible, otherwise {@code false}
+     * @throws IOException  if an error occurs while checking access
+     */
     @Override
     public boolean isAuthenticated() throws IOException {
         if (this.uid == null || this.password == null) {
             return false;
         }
 
+        if (!this.isSessionUnsupported) {
+            synchronized (this.encoder) {
+                if (login()) {
+                    return true;
+                }
+            }
+            if (!this.isSessionUnsupported) {
+                return false;
+            }
+        }
+
         Collection<User> result = search(SEARCH_BASE,
                 new Attribute(SEARCH_ATTRIBUTE_NAME, this.uid.toString()));
         if (result == null || result.size() == 0) {
@@ -155,65 +367,312 @@ public class PiAdapter implements ServerAdapter {
         }
     }
 
+    /**
+     * Returns the borrowed connection to the {@link ConnectionPool}.
+     * The connection is closed by the pool once it is no longer used.
+     */
     @Override
-    public void close() throws IOException {
-        this.channel.close();
+    public synchronized void close() {
+        if (this.channel != null) {
+            this.channel.close();
+        }
     }
 
     @Override
     public boolean isClosed() {
-        return this.channel.isClosed();
+        ClientChannel current = getChannel();
+        return current != null && current.isClosed();
+    }
+
+    private synchronized ConnectionPool.Lease getChannel() {
+        return this.channel;
+    }
+
+    private ClientChannel channel() throws IOException {
+        ClientChannel current = getChannel();
+        if (current == null) {
+            // connect() has not been called
+            throw new IOException();
+        }
+        return current;
     }
 
     @Override
     public Collection<User> search(
             final String base, final Attribute... attributes) throws IOException {
-        String users = this.channel.send(createSearchRequest(attributes));
-        return extractUsers(users);
+        final Collection<User> users = new LinkedList<>();
+        search(base, users::add, attributes);
+        return users;
     }
 
-    private Collection<User> extractUsers(final String result) {
-        final Collection<User> users = new LinkedList<>();
-        if (result == null) {
-            return users;
+    /**
+     * Searches for users and passes every user to {@code consumer} as soon as its record
+     * has been received, so that the time to the first user does not depend on the number
+     * of users found.
+     *
+     * @param base          not considered by PiAdapter
+     * @param consumer      receives the users that meet all attributes
+     * @param attributes    the attributes
+     * @return              the number of users passed to {@code consumer}
+     * @throws IOException if an error occurs during the search
+     */
+    @Override
+    public int search(final String base, final Consumer<? super User> consumer,
+                      final Attribute... attributes) throws IOException {
+        if (attributes.length != 1) {
+            throw new IllegalArgumentException(
+                    String.format(Errors.WRONG_NUMBER_SEARCH_ARGUMENTS, 1));
         }
 
-        for (final String userString : result.split(USER_SPLITTER)) {
-            Matcher userMatcher = Pattern.compile(REGEX_USER).matcher(userString);
+        final String userId = attributes[0].getValue();
+        synchronized (this.encoder) {
+            Integer count = search(session(), userId, consumer);
+            if (count == null) {
+                expireSession();
+                count = search(session(), userId, consumer);
+            }
+            if (count == null) {
+                throw new ProtocolException(SESSION_EXPIRED);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Searches for the user ID within a session, or with the user ID and password
+     * if {@code session} is {@code null}. Returns {@code null} if the session has expired.
+     * The caller must hold the lock of the encoder.
+     */
+    private Integer search(final String session, final String userId,
+                           final Consumer<? super User> consumer) throws IOException {
+        return channel().send(
+                request(SEARCH_COMMAND, session, (RequestEncoder request) -> request
+                        .field(userId)),
+                (Reader response) -> readUsers(response, consumer, session != null));
+    }
+
+    /**
+     * Parses the users of a search response, or returns {@code null} if the response
+     * reports that the session has expired.
+     */
+    private static Integer readUsers(final Reader response, final Consumer<? super User> consumer,
+                                     final boolean mayExpire) throws IOException {
+        if (!mayExpire) {
+            return new UserParser().parse(response, consumer);
+        }
 
-            if (userMatcher.matches()) {
-                Name name = new Name(userMatcher.group(FIRSTNAME_GROUP) + NAME_SEPARATOR
-                        + userMatcher.group(LASTNAME_GROUP));
-                UserId uid = new UserId(userMatcher.group(UID_GROUP));
-                User user = new User(name, uid);
+        // A response that starts like the expiry is held back until it is known to be users
+        final PushbackReader pushback = new PushbackReader(response, RESPONSE_LOOKAHEAD);
+        if (SESSION_EXPIRED.equals(peek(pushback))) {
+            return null;
+        }
+        return new UserParser().parse(pushback, consumer);
+    }
 
-                String tokens = userMatcher.group(TOKENS_GROUP);
-                if (tokens != null) {
-                    Matcher tokenMatcher = Pattern.compile(REGEX_TOKEN).matcher(tokens);
-                    while (tokenMatcher.find()) {
-                        Token token = new Token(new TokenId(tokenMatcher.group()));
-                        user.add(token);
+    /**
+     * Loads a page of users whose user ID is searched for. If the server does not support
+     * pages, the complete search is conducted once and the pages are sliced from it,
+     * see {@link ServerAdapter#search(String, int, SearchCursor, Consumer, Attribute...)}.
+     *
+     * @param base          not considered by PiAdapter
+     * @param pageSize      the maximum number of users on the page
+     * @param cursor        the cursor of the previous page, or {@code null} for the first page
+     * @param consumer      receives the users of the page that meet all attributes
+     * @param attributes    the attributes
+     * @return              the number of users on the page and the cursor of the next page
+     * @throws IOException if an error occurs during the search
+     */
+    @Override
+    public SearchPage search(final String base, final int pageSize, final SearchCursor cursor,
+                             final Consumer<? super User> consumer,
+                             final Attribute... attributes) throws IOException {
+        if (attributes.length != 1) {
+            throw new IllegalArgumentException(
+                    String.format(Errors.WRONG_NUMBER_SEARCH_ARGUMENTS, 1));
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format(Errors.NON_POSITIVE_PAGE_SIZE, pageSize));
+        }
+
+        // A cursor without a token has been sliced by the client
+        if (!this.isPagingUnsupported && (cursor == null || cursor.getToken() != null)) {
+            final String userId = attributes[0].getValue();
+            final String page = Integer.toString(pageSize);
+            final String token = cursor == null ? "" : cursor.getToken();
+            synchronized (this.encoder) {
+                SearchPage result = loadPage(session(), userId, page, token, consumer);
+                if (result == null && !this.isPagingUnsupported) {
+                    expireSession();
+                    result = loadPage(session(), userId, page, token, consumer);
+                    if (result == null && !this.isPagingUnsupported) {
+                        throw new ProtocolException(SESSION_EXPIRED);
                     }
                 }
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        return ServerAdapter.super.search(base, pageSize, cursor, consumer, attributes);
+    }
+
+    /**
+     * Loads a page within a session, or with the user ID and password if {@code session}
+     * is {@code null}. Returns {@code null} if the session has expired or the server does
+     * not support pages. The caller must hold the lock of the encoder.
+     */
+    private SearchPage loadPage(final String session, final String userId, final String pageSize,
+                                final String cursor, final Consumer<? super User> consumer)
+            throws IOException {
+        return channel().send(
+                request(PAGE_COMMAND, session, (RequestEncoder request) -> request
+                        .field(userId)
+                        .field(pageSize)
+                        .field(cursor)),
+                (Reader response) -> readPage(response, consumer, session != null));
+    }
 
-                users.add(user);
+    /**
+     * Parses a page response, or returns {@code null} if the response reports that
+     * the session has expired or comes from a server that does not support pages.
+     */
+    private SearchPage readPage(final Reader response, final Consumer<? super User> consumer,
+                                final boolean mayExpire) throws IOException {
+        final PushbackReader pushback = new PushbackReader(response, RESPONSE_LOOKAHEAD);
+        final String start = peek(pushback);
+        if (mayExpire && SESSION_EXPIRED.equals(start)) {
+            return null;
+        }
+        if (!start.startsWith(PAGE_RESPONSE_PREFIX)) {
+            // Legacy servers do not know pages, they are sliced from the complete search
+            this.isPagingUnsupported = true;
+            return null;
+        }
+
+        pushback.skip(PAGE_RESPONSE_PREFIX.length());
+        final StringBuilder cursor = new StringBuilder();
+        int c;
+        while ((c = pushback.read()) != -1 && c != PAGE_CURSOR_END) {
+            cursor.append((char) c);
+        }
+        final int count = new UserParser().parse(pushback, consumer);
+        return new SearchPage(count,
+                cursor.length() == 0 ? null : SearchCursor.of(cursor.toString()));
+    }
+
+    /**
+     * Returns the first characters of a response without consuming them.
+     */
+    private static String peek(final PushbackReader response) throws IOException {
+        final char[] start = new char[RESPONSE_LOOKAHEAD];
+        int length = 0;
+        int count;
+        while (length < start.length
+                && (count = response.read(start, length, start.length - length)) != -1) {
+            length += count;
+        }
+        response.unread(start, 0, length);
+        return new String(start, 0, length);
+    }
+
+    /**
+     * Sends a request and returns the response. If the session has expired,
+     * a new session is started and the request is sent again.
+     * The caller must hold the lock of the encoder.
+     */
+    private String send(final String command, final RequestFields fields) throws IOException {
+        String session = session();
+        String response = channel().send(request(command, session, fields));
+        if (session != null && SESSION_EXPIRED.equals(response)) {
+            expireSession();
+            session = session();
+            response = channel().send(request(command, session, fields));
+            if (session != null && SESSION_EXPIRED.equals(response)) {
+                throw new ProtocolException(SESSION_EXPIRED);
             }
         }
+        return response;
+    }
 
-        return users;
+    /**
+     * Encodes a request that carries the ID of the session, or the user ID and password
+     * if there is no session. A backslash is only escaped if the server has accepted frames,
+     * i.e. if it unescapes the fields. The caller must hold the lock of the encoder until
+     * the request has been sent.
+     */
+    private ByteBuffer request(final String command, final String session,
+                               final RequestFields fields) throws IOException {
+        this.encoder.begin(command, channel().isFramed());
+        if (session != null) {
+            this.encoder.field(session);
+        } else {
+            this.encoder.field(this.uid.toString()).field(this.password.toString());
+        }
+        fields.appendTo(this.encoder);
+        return this.encoder.toByteBuffer();
     }
 
-    private String createSearchRequest(final Attribute[] attributes) {
-        if (attributes.length != 1) {
-            throw new IllegalArgumentException(
-                    String.format(Errors.WRONG_NUMBER_SEARCH_ARGUMENTS, 1));
+    /**
+     * Returns the ID of a valid session, logging in if there is none,
+     * or {@code null} if the requests carry the user ID and password.
+     * The caller must hold the lock of the encoder.
+     */
+    private String session() throws IOException {
+        synchronized (this) {
+            if (this.sessionId != null && System.currentTimeMillis() < this.sessionExpiry) {
+                return this.sessionId;
+            }
+        }
+        if (this.isSessionUnsupported || this.uid == null || this.password == null) {
+            return null;
+        }
+        login();
+        synchronized (this) {
+            return this.sessionId;
+        }
+    }
+
+    /**
+     * Logs in with the user ID and password and starts a session.
+     * The caller must hold the lock of the encoder.
+     *
+     * @return  {@code true} if a session has been started
+     */
+    private boolean login() throws IOException {
+        final ClientChannel current = channel();
+        final String response = current.send(this.encoder.begin(LOGIN_COMMAND, current.isFramed())
+                .field(this.uid.toString())
+                .field(this.password.toString())
+                .toByteBuffer());
+
+        final int separator = response.indexOf(SESSION_RESPONSE_SEPARATOR,
+                SESSION_RESPONSE_PREFIX.length());
+        if (!response.startsWith(SESSION_RESPONSE_PREFIX) || separator == -1) {
+            if (!LOGIN_DENIED.equals(response)) {
+                // Legacy servers do not know sessions, the credentials are sent every time
+                this.isSessionUnsupported = true;
+            }
+            expireSession();
+            return false;
         }
 
-        String adminId = this.uid.toString();
-        String adminPassword = this.password.toString();
-        String userId = attributes[0].getValue();
-        String send = String.format(SEARCH_REQUEST_STRUCTURE, adminId, adminPassword, userId);
-        return send;
+        final long lifetime;
+        try {
+            lifetime = Long.parseLong(response.substring(separator + 1))
+                    * MILLISECONDS_PER_SECOND;
+        } catch (NumberFormatException e) {
+            throw new ProtocolException(response);
+        }
+        synchronized (this) {
+            this.sessionId = response.substring(SESSION_RESPONSE_PREFIX.length(), separator);
+            this.sessionExpiry = System.currentTimeMillis() + lifetime - SESSION_RENEWAL_MARGIN;
+        }
+        return true;
+    }
+
+    private synchronized void expireSession() {
+        this.sessionId = null;
     }
 
     /**
@@ -221,29 +680,194 @@ public class PiAdapter implements ServerAdapter {
      * If the token is already assigned to any user on the server, it is not added,
      * and no exception is thrown.
      *
+     * <p>The server reports the outcome in its response. A legacy server does not, so the
+     * outcome is determined by searching for the user afterwards: if the token is among the
+     * tokens of the user, it has been added, or was already owned if {@code user} owned it
+     * before the request. Otherwise the search cannot tell whether the token belongs to
+     * another user or why else it has not been added, and the result is
+     * {@link AddTokenResult#DENIED}, as it is if the user cannot be found.
+     *
      * @param user  the user
      * @param token the token
+     * @return  whether the token has been added, or why not
      * @throws IOException  if an error occurs while adding the token
      */
     @Override
-    public void addToken(User user, Token token) throws IOException {
-        String addTokenRequest = String.format(ADD_REQUEST_STRUCTURE,
-                this.uid, this.password, user.getId(), token.getId());
-        this.channel.send(addTokenRequest);
+    public AddTokenResult addToken(User user, Token token) throws IOException {
+        final boolean wasOwned = owns(user, token);
+        String response;
+        synchronized (this.encoder) {
+            response = send(ADD_COMMAND, (RequestEncoder request) -> request
+                    .field(user.getId().toString())
+                    .field(token.getId().toString()));
+        }
+        AddTokenResult result = parseAddTokenResponse(response);
+        return result != null ? result : verifyAddToken(user, token, wasOwned);
+    }
+
+    /**
+     * Returns the outcome reported in the response to an addToken request,
+     * or {@code null} if the response is from a legacy server that does not report it.
+     */
+    static AddTokenResult parseAddTokenResponse(final String response) {
+        if (!response.startsWith(ADD_RESPONSE_PREFIX)) {
+            return null;
+        }
+        switch (response.substring(ADD_RESPONSE_PREFIX.length())) {
+            case ADD_RESPONSE_ADDED:
+                return AddTokenResult.ADDED;
+            case ADD_RESPONSE_ALREADY_OWNED:
+                return AddTokenResult.ALREADY_OWNED;
+            case ADD_RESPONSE_OWNED_BY_OTHER:
+                return AddTokenResult.OWNED_BY_OTHER;
+            case ADD_RESPONSE_DENIED:
+                return AddTokenResult.DENIED;
+            default:
+                return null;
+        }
+    }
+
+    private AddTokenResult verifyAddToken(final User user, final Token token,
+                                          final boolean wasOwned) throws IOException {
+        Collection<User> users = search(SEARCH_BASE,
+                new Attribute(SEARCH_ATTRIBUTE_NAME, user.getId().toString()));
+        for (User found : users) {
+            if (found.getId().equals(user.getId()) && owns(found, token)) {
+                return wasOwned ? AddTokenResult.ALREADY_OWNED : AddTokenResult.ADDED;
+            }
+        }
+        // The owner of a token cannot be searched for, so another owner is not certain
+        return AddTokenResult.DENIED;
+    }
+
+    private static boolean owns(final User user, final Token token) {
+        for (final Token owned : user.getTokens()) {
+            if (owned.getId().equals(token.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds several tokens to the user on the server in a single request.
+     * Tokens that are already assigned to any user on the server are not added,
+     * and their result is {@link TokenResult#FAILED}.
+     *
+     * @param user      the user
+     * @param tokens    the tokens
+     * @return  the result of every addition in the iteration order of {@code tokens}
+     * @throws IOException  if an error occurs while adding the tokens
+     * @see #changeTokens(List)
+     */
+    @Override
+    public List<TokenResult> addTokens(final User user, final Collection<Token> tokens)
+            throws IOException {
+        final List<TokenChange> changes = new ArrayList<>(tokens.size());
+        for (final Token token : tokens) {
+            changes.add(TokenChange.add(user, token));
+        }
+        return changeTokens(changes);
     }
 
     @Override
     public void removeToken(User user, Token token) throws IOException {
-        String deleteTokenRequest = String.format(DELETE_TOKEN_REQUEST_STRUCTURE,
-                this.uid, this.password, user.getId(), token.getId());
-        this.channel.send(deleteTokenRequest);
+        synchronized (this.encoder) {
+            send(DELETE_TOKEN_COMMAND, (RequestEncoder request) -> request
+                    .field(user.getId().toString())
+                    .field(token.getId().toString()));
+        }
+    }
+
+    /**
+     * Removes several tokens from the specified user in a single request.
+     *
+     * @param user      the user
+     * @param tokens    the tokens
+     * @return  the result of every removal in the iteration order of {@code tokens}
+     * @throws IOException  if an error occurs while removing the tokens
+     * @see #changeTokens(List)
+     */
+    @Override
+    public List<TokenResult> removeTokens(final User user, final Collection<Token> tokens)
+            throws IOException {
+        final List<TokenChange> changes = new ArrayList<>(tokens.size());
+        for (final Token token : tokens) {
+            changes.add(TokenChange.remove(user, token));
+        }
+        return changeTokens(changes);
+    }
+
+    /**
+     * Adds tokens to and removes tokens from any number of users on the server.
+     * The changes are sent as a single batch request. If the server answers that it does not
+     * know batches, the changes are sent as pipelined individual requests instead, whose
+     * results are {@link TokenResult#UNCONFIRMED}, and batches are not tried again.
+     * If the server denies access, every change fails.
+     *
+     * @param changes   the changes
+     * @return  the result of every change in the order of {@code changes}
+     * @throws IOException  if an error occurs while sending the changes
+     */
+    @Override
+    public List<TokenResult> changeTokens(final List<TokenChange> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        if (!this.isBatchUnsupported) {
+            final String response;
+            synchronized (this.encoder) {
+                response = send(TokenBatch.COMMAND,
+                        (RequestEncoder request) -> TokenBatch.appendChanges(request, changes));
+            }
+            final List<TokenResult> results = TokenBatch.parseResponse(response, changes.size());
+            if (results != null) {
+                return results;
+            }
+            this.isBatchUnsupported = true;
+        }
+
+        synchronized (this.encoder) {
+            List<TokenChange> unsent = changes;
+            for (int attempt = 0; !unsent.isEmpty(); attempt++) {
+                if (attempt > 1) {
+                    throw new ProtocolException(SESSION_EXPIRED);
+                }
+                final String session = session();
+                final List<String> requests = new ArrayList<>(unsent.size());
+                for (final TokenChange change : unsent) {
+                    request(change.getKind() == TokenChange.Kind.ADD
+                            ? ADD_COMMAND : DELETE_TOKEN_COMMAND, session,
+                            (RequestEncoder request) -> request
+                                    .field(change.getUser().getId().toString())
+                                    .field(change.getToken().getId().toString()));
+                    requests.add(this.encoder.toString());
+                }
+
+                // Changes rejected because of an expired session are sent again
+                final List<String> responses = channel().sendAll(requests);
+                final List<TokenChange> expired = new ArrayList<>();
+                for (int i = 0; i < responses.size(); i++) {
+                    if (session != null && SESSION_EXPIRED.equals(responses.get(i))) {
+                        expired.add(unsent.get(i));
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    expireSession();
+                }
+                unsent = expired;
+            }
+        }
+        return Collections.nCopies(changes.size(), TokenResult.UNCONFIRMED);
     }
 
     @Override
     public void removeAllTokens(final User user) throws IOException {
-        String removeAllTokensRequest = String.format(DELETE_ALL_REQUEST_STRUCTURE,
-                this.uid, this.password, user.getId());
-        this.channel.send(removeAllTokensRequest);
+        synchronized (this.encoder) {
+            send(DELETE_ALL_COMMAND, (RequestEncoder request) -> request
+                    .field(user.getId().toString()));
+        }
     }
 
     @Override
@@ -258,5 +882,22 @@ public class PiAdapter implements ServerAdapter {
         parcel.writeParcelable(this.timeout, flag);
         parcel.writeParcelable(this.uid, flag);
         parcel.writeParcelable(this.password, flag);
+        parcel.writeString(this.transport.name());
+        parcel.writeString(this.framing.name());
+        synchronized (this) {
+            parcel.writeString(this.sessionId);
+            parcel.writeLong(this.sessionExpiry);
+        }
+        parcel.writeBoolean(this.isSessionUnsupported);
+        parcel.writeBoolean(this.isBatchUnsupported);
+        parcel.writeBoolean(this.isPagingUnsupported);
+    }
+
+    /**
+     * This interface describes how the fields of a request that follow the command
+     * and the credentials are encoded.
+     */
+    private interface RequestFields {
+        void appendTo(RequestEncoder request);
     }
 }
@@ -0,0 +1,173 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class encodes requests to a Raspberry Pi of the form {@code command$field$field...}
+ * as UTF-8 directly into a buffer that is reused for every request, so that sending a request
+ * neither parses a format string nor creates intermediate strings.
+ *
+ * <p>Reserved characters in fields are escaped with a backslash: the field separator
+ * {@code $} as {@code \$}, a line feed as {@code \n} and a carriage return as {@code \r}.
+ * Thus a field can never end the request or split it into further fields.
+ * The backslash itself is only escaped as {@code \\} for a server that unescapes fields,
+ * since a legacy server would otherwise receive different credentials and IDs.
+ *
+ * <p>An instance must not be used by several threads at the same time.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class RequestEncoder {
+    private static final byte SEPARATOR = '$';
+    private static final byte ESCAPE = '\\';
+    private static final char LINE_FEED = '\n';
+    private static final char CARRIAGE_RETURN = '\r';
+    private static final byte ESCAPED_LINE_FEED = 'n';
+    private static final byte ESCAPED_CARRIAGE_RETURN = 'r';
+    // replaces a surrogate that is not part of a pair, like String.getBytes
+    private static final byte REPLACEMENT = '?';
+    private static final int INITIAL_CAPACITY = 256;
+    // the most bytes a char is encoded to, a surrogate pair takes 4 bytes for 2 chars
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+    private boolean isBackslashEscaped;
+
+    /**
+     * Starts a new request with a command for a server that does not unescape fields.
+     * The previous request is discarded.
+     *
+     * @param command   the command, which is not escaped
+     * @return  this encoder
+     */
+    RequestEncoder begin(final String command) {
+        return begin(command, false);
+    }
+
+    /**
+     * Starts a new request with a command. The previous request is discarded.
+     *
+     * @param command               the command, which is not escaped
+     * @param isBackslashEscaped    {@code true} if the server unescapes fields,
+     *                              so that a backslash in a field must be escaped
+     * @return  this encoder
+     */
+    RequestEncoder begin(final String command, final boolean isBackslashEscaped) {
+        this.length = 0;
+        this.isBackslashEscaped = isBackslashEscaped;
+        ensureCapacity(command.length() * MAX_BYTES_PER_CHAR);
+        for (int i = 0; i < command.length(); i++) {
+            put(command.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Appends a field to the request.
+     *
+     * @param value the value of the field, which is escaped
+     * @return  this encoder
+     */
+    RequestEncoder field(final CharSequence value) {
+        final int count = value.length();
+        // Each char takes at most as many bytes as escaping or encoding it needs
+        ensureCapacity(1 + count * MAX_BYTES_PER_CHAR);
+        final byte[] target = this.bytes;
+        int position = this.length;
+        target[position++] = SEPARATOR;
+        for (int i = 0; i < count; i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80 && c != SEPARATOR && c != LINE_FEED && c != CARRIAGE_RETURN
+                    && (c != ESCAPE || !this.isBackslashEscaped)) {
+                target[position++] = (byte) c;
+                continue;
+            }
+
+            this.length = position;
+            switch (c) {
+                case SEPARATOR:
+                case ESCAPE:
+                    putEscaped((byte) c);
+                    break;
+                case LINE_FEED:
+                    putEscaped(ESCAPED_LINE_FEED);
+                    break;
+                case CARRIAGE_RETURN:
+                    putEscaped(ESCAPED_CARRIAGE_RETURN);
+                    break;
+                default:
+                    if (Character.isHighSurrogate(c) && i + 1 < count
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        putCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+                    } else {
+                        put(c);
+                    }
+                    break;
+            }
+            position = this.length;
+        }
+        this.length = position;
+        return this;
+    }
+
+    /**
+     * Returns the encoded request. The buffer is reused by the next request,
+     * so it must not be used after {@link #begin(String)} has been called again.
+     *
+     * @return  the bytes of the request from the position to the limit of the buffer
+     */
+    ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(this.bytes, 0, this.length);
+    }
+
+    /**
+     * Returns the encoded request as a string, for channels that only accept strings.
+     *
+     * @return  the request
+     */
+    @Override
+    public String toString() {
+        return new String(this.bytes, 0, this.length, StandardCharsets.UTF_8);
+    }
+
+    private void putEscaped(final byte escaped) {
+        this.bytes[this.length++] = ESCAPE;
+        this.bytes[this.length++] = escaped;
+    }
+
+    private void put(final char c) {
+        final byte[] target = this.bytes;
+        if (c < 0x80) {
+            target[this.length++] = (byte) c;
+        } else if (c < 0x800) {
+            target[this.length++] = (byte) (0xC0 | c >> 6);
+            target[this.length++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isSurrogate(c)) {
+            target[this.length++] = REPLACEMENT;
+        } else {
+            target[this.length++] = (byte) (0xE0 | c >> 12);
+            target[this.length++] = (byte) (0x80 | c >> 6 & 0x3F);
+            target[this.length++] = (byte) (0x80 | c & 0x3F);
+        }
+    }
+
+    private void putCodePoint(final int codePoint) {
+        final byte[] target = this.bytes;
+        target[this.length++] = (byte) (0xF0 | codePoint >> 18);
+        target[this.length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        target[this.length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        target[this.length++] = (byte) (0x80 | codePoint & 0x3F);
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (this.bytes.length - this.length < additional) {
+            final byte[] larger = new byte[Math.max(2 * this.bytes.length,
+                    this.length + additional)];
+            System.arraycopy(this.bytes, 0, larger, 0, this.length);
+            this.bytes = larger;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import edu.kit.informatik.adminapp.model.UserId;
+import edu.kit.informatik.adminapp.model.UserSnapshot;
+
+/**
+ * This class caches the results of searches, including the users they contain as
+ * {@link UserSnapshot}s, which cannot be changed and are therefore handed out without copies.
+ * The cache holds a bounded number of results and evicts the least recently used one
+ * when it is full. A result expires after a time to live; a result without users,
+ * i.e. a miss, expires after a shorter time, so that a new user shows up soon.
+ *
+ * <p>Caches are registered process-wide by an ID, so that a {@link CachingServerAdapter}
+ * that has been passed to another activity in a parcel continues to use the same cache.
+ * A cache is dropped from the registry once no adapter uses it any more.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class SearchCache {
+    // guarded by itself
+    private static final Map<String, WeakReference<SearchCache>> REGISTRY = new HashMap<>();
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int capacity;
+    private final long timeToLive;
+    private final long missTimeToLive;
+    private final LongSupplier clock;
+    // the results in the order of their last access, guarded by this
+    private final LinkedHashMap<Object, Result> results;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a new empty cache.
+     *
+     * @param capacity          the maximum number of results
+     * @param timeToLive        the time in milliseconds after which a result expires
+     * @param missTimeToLive    the time in milliseconds after which a result without users expires
+     * @param clock             returns the current time in milliseconds
+     */
+    SearchCache(final int capacity, final long timeToLive, final long missTimeToLive,
+                final LongSupplier clock) {
+        this.capacity = capacity;
+        this.timeToLive = timeToLive;
+        this.missTimeToLive = missTimeToLive;
+        this.clock = clock;
+        this.results = new LinkedHashMap<Object, Result>(
+                (int) Math.ceil(capacity / LOAD_FACTOR) + 1, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, Result> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    SearchCache.this.evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache registered with an ID, or registers a new empty cache with the ID.
+     *
+     * @param id                the ID of the cache
+     * @param capacity          the maximum number of results of a new cache
+     * @param timeToLive        the time to live of a result of a new cache in milliseconds
+     * @param missTimeToLive    the time to live of a miss of a new cache in milliseconds
+     * @return  the cache
+     */
+    static SearchCache register(final String id, final int capacity, final long timeToLive,
+                                final long missTimeToLive) {
+        synchronized (REGISTRY) {
+            final WeakReference<SearchCache> reference = REGISTRY.get(id);
+            SearchCache cache = reference != null ? reference.get() : null;
+            if (cache == null) {
+                // Caches of adapters that are no longer used are dropped
+                REGISTRY.values().removeIf((WeakReference<SearchCache> entry) ->
+                        entry.get() == null);
+                cache = new SearchCache(capacity, timeToLive, missTimeToLive,
+                        System::currentTimeMillis);
+                REGISTRY.put(id, new WeakReference<>(cache));
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Returns the result of a search, or {@code null} if it is not cached or has expired.
+     *
+     * @param key   identifies the search
+     * @return  the result, or {@code null} if it is not cached
+     */
+    synchronized Result get(final Object key) {
+        final Result result = this.results.get(key);
+        if (result == null || result.expiry <= this.clock.getAsLong()) {
+            if (result != null) {
+                this.results.remove(key);
+            }
+            this.missCount++;
+            return null;
+        }
+        this.hitCount++;
+        return result;
+    }
+
+    /**
+     * Caches the result of a search.
+     *
+     * @param key   identifies the search
+     * @param users the users found
+     * @param page  the page of a paged search, or {@code null}
+     */
+    synchronized void put(final Object key, final List<UserSnapshot> users,
+                          final SearchPage page) {
+        final long lifetime = users.isEmpty() ? this.missTimeToLive : this.timeToLive;
+        this.results.put(key, new Result(users, page, this.clock.getAsLong() + lifetime));
+    }
+
+    /**
+     * Removes every result that contains a user, because the tokens of the user
+     * have been changed.
+     *
+     * @param uid   the ID of the user
+     */
+    synchronized void invalidate(final UserId uid) {
+        final Iterator<Result> iterator = this.results.values().iterator();
+        while (iterator.hasNext()) {
+            for (final UserSnapshot user : iterator.next().users) {
+                if (user.getId().equals(uid)) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all results.
+     */
+    synchronized void clear() {
+        this.results.clear();
+    }
+
+    /**
+     * Returns the number of searches whose result was cached.
+     *
+     * @return  the number of hits
+     */
+    synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * Returns the number of searches whose result was not cached or had expired.
+     *
+     * @return  the number of misses
+     */
+    synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * Returns the number of results that have been evicted because the cache was full.
+     *
+     * @return  the number of evictions
+     */
+    synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    int getCapacity() {
+        return this.capacity;
+    }
+
+    long getTimeToLive() {
+        return this.timeToLive;
+    }
+
+    long getMissTimeToLive() {
+        return this.missTimeToLive;
+    }
+
+    /**
+     * This class represents the cached result of a search.
+     */
+    static final class Result {
+        private final List<UserSnapshot> users;
+        private final SearchPage page;
+        private final long expiry;
+
+        private Result(final List<UserSnapshot> users, final SearchPage page, final long expiry) {
+            this.users = users;
+            this.page = page;
+            this.expiry = expiry;
+        }
+
+        /**
+         * Returns the users found, in the order in which they were received.
+         *
+         * @return  the users
+         */
+        List<UserSnapshot> getUsers() {
+            return this.users;
+        }
+
+        /**
+         * Returns the page of a paged search.
+         *
+         * @return  the page, or {@code null} if the search was not paged
+         */
+        SearchPage getPage() {
+            return this.page;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.util.List;
+import java.util.Objects;
+
+import edu.kit.informatik.adminapp.model.User;
+
+/**
+ * This class represents the position after a page of a search, from which the next page
+ * is continued. A cursor is opaque: it is only obtained from a {@link SearchPage} and passed
+ * back to the same search of the same server adapter.
+ *
+ * <p>A cursor either has been issued by the server, or holds the complete result of the search
+ * and the number of users of the previous pages if the pages are sliced from the complete
+ * result by the client. Thus the search is only conducted once for all pages.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class SearchCursor {
+    private final String token;
+    private final int offset;
+    private final List<User> users;
+
+    private SearchCursor(final String token, final int offset, final List<User> users) {
+        this.token = token;
+        this.offset = offset;
+        this.users = users;
+    }
+
+    /**
+     * Creates a cursor that has been issued by the server.
+     *
+     * @param token the cursor as sent by the server
+     * @return  the cursor
+     */
+    static SearchCursor of(final String token) {
+        return new SearchCursor(Objects.requireNonNull(token), 0, null);
+    }
+
+    /**
+     * Creates a cursor that slices the next page from the complete result of a search.
+     *
+     * @param users     the complete result of the search, which is not copied
+     *                  and must not be changed afterwards
+     * @param offset    the number of users of the previous pages
+     * @return  the cursor
+     */
+    static SearchCursor atOffset(final List<User> users, final int offset) {
+        return new SearchCursor(null, offset, Objects.requireNonNull(users));
+    }
+
+    /**
+     * Returns the cursor as sent by the server,
+     * or {@code null} if the pages are sliced by the client.
+     *
+     * @return  the cursor as sent by the server
+     */
+    String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Returns the number of users of the previous pages if the pages are sliced by the client.
+     *
+     * @return  the number of users of the previous pages
+     */
+    int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Returns the complete result of the search if the pages are sliced by the client.
+     *
+     * @return  the complete result of the search, or {@code null} if the cursor has been
+     *          issued by the server
+     */
+    List<User> getUsers() {
+        return this.users;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final SearchCursor cursor = (SearchCursor) o;
+        // The result is compared by identity, comparing the users would cost more than it saves
+        return this.offset == cursor.offset && Objects.equals(this.token, cursor.token)
+                && this.users == cursor.users;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.token, this.offset, System.identityHashCode(this.users));
+    }
+}
@@ -0,0 +1,51 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+/**
+ * This class represents the outcome of loading one page of a search:
+ * the number of users on the page and where the next page continues.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class SearchPage {
+    private final int userCount;
+    private final SearchCursor next;
+
+    /**
+     * Creates a new SearchPage.
+     *
+     * @param userCount the number of users on the page
+     * @param next      the cursor of the next page, or {@code null} if this is the last page
+     */
+    SearchPage(final int userCount, final SearchCursor next) {
+        this.userCount = userCount;
+        this.next = next;
+    }
+
+    /**
+     * Returns the number of users on the page.
+     *
+     * @return  the number of users on the page
+     */
+    public int getUserCount() {
+        return this.userCount;
+    }
+
+    /**
+     * Returns whether further users follow this page.
+     *
+     * @return  {@code true} if this is not the last page
+     */
+    public boolean hasNext() {
+        return this.next != null;
+    }
+
+    /**
+     * Returns the cursor from which the next page is loaded.
+     *
+     * @return  the cursor of the next page, or {@code null} if this is the last page
+     */
+    public SearchCursor getNext() {
+        return this.next;
+    }
+}
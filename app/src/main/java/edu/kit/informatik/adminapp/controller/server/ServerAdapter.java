@@ -3,13 +3,19 @@ package edu.kit.informatik.adminapp.controller.server;
 import android.os.Parcelable;
 
 import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 import edu.kit.informatik.adminapp.model.Attribute;
 import edu.kit.informatik.adminapp.model.Password;
 import edu.kit.informatik.adminapp.model.Token;
 import edu.kit.informatik.adminapp.model.User;
 import edu.kit.informatik.adminapp.model.UserId;
+import edu.kit.informatik.adminapp.model.resources.Errors;
 
 /**
  * This interface defines a communication interface with a server.
@@ -18,6 +24,18 @@ import edu.kit.informatik.adminapp.model.UserId;
  * @version 1.0
  */
 public interface ServerAdapter extends AutoCloseable, Parcelable {
+    /**
+     * Returns whether a request failed because the server could not be reached,
+     * rather than because the server rejected it or its response was invalid.
+     * Only such a request can succeed if it is sent again later.
+     *
+     * @param error the error of the request
+     * @return  {@code true} if the server could not be reached
+     */
+    static boolean isUnreachable(final Throwable error) {
+        return error instanceof IOException && !(error instanceof ProtocolException);
+    }
+
     /**
      * Sets a user ID for accessing the server.
      *
@@ -60,6 +78,17 @@ public interface ServerAdapter extends AutoCloseable, Parcelable {
      */
     boolean isClosed();
 
+    /**
+     * Returns the I/O thread on which a {@link ThreadedServerAdapter} executes the requests
+     * of this adapter. Adapters that share a connection return the same thread, so that
+     * their requests are not interleaved. By default, one thread is shared by the process.
+     *
+     * @return  the I/O thread
+     */
+    default Executor getExecutor() {
+        return ThreadedServerAdapter.SHARED_EXECUTOR;
+    }
+
     /**
      * Checks whether access to the server is possible with the user ID and password
      * of this PiAdapter. {@link #connect()} must have been successfully executed.
@@ -83,6 +112,76 @@ public interface ServerAdapter extends AutoCloseable, Parcelable {
     Collection<User> search(
             final String base, final Attribute... attributes) throws IOException;
 
+    /**
+     * Searches like {@link #search(String, Attribute...)}, but passes every user to
+     * {@code consumer} as soon as it has been received, so that the first users can be
+     * processed before the search is complete.
+     * The consumer is called on the thread that executes the search.
+     * {@link #connect()} must have been successfully executed.
+     *
+     * @param base          the distinguished name from which the search should be conducted
+     * @param consumer      receives the users that meet all attributes
+     * @param attributes    the attributes
+     * @return              the number of users passed to {@code consumer}
+     * @throws IOException if an error occurs during the search
+     */
+    default int search(final String base, final Consumer<? super User> consumer,
+                       final Attribute... attributes) throws IOException {
+        final Collection<User> users = search(base, attributes);
+        for (final User user : users) {
+            consumer.accept(user);
+        }
+        return users.size();
+    }
+
+    /**
+     * Searches like {@link #search(String, Consumer, Attribute...)}, but passes at most
+     * {@code pageSize} users to {@code consumer}, starting after the users of the previous pages.
+     * The next page is loaded by passing the cursor of the returned page, so that a broad
+     * search can be displayed as it is scrolled through instead of all at once.
+     * {@link #connect()} must have been successfully executed.
+     *
+     * <p>By default, the first page runs the complete search, passes on the users of the page
+     * as soon as they have been received and keeps the others in the returned cursor.
+     * The following pages are sliced from the cursor without contacting the server.
+     *
+     * @param base          the distinguished name from which the search should be conducted
+     * @param pageSize      the maximum number of users on the page
+     * @param cursor        the cursor of the previous page, or {@code null} for the first page
+     * @param consumer      receives the users of the page that meet all attributes
+     * @param attributes    the attributes
+     * @return              the number of users on the page and the cursor of the next page
+     * @throws IOException if an error occurs during the search
+     */
+    default SearchPage search(final String base, final int pageSize, final SearchCursor cursor,
+                              final Consumer<? super User> consumer,
+                              final Attribute... attributes) throws IOException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format(Errors.NON_POSITIVE_PAGE_SIZE, pageSize));
+        }
+
+        if (cursor != null && cursor.getUsers() != null) {
+            final List<User> users = cursor.getUsers();
+            final int end = (int) Math.min((long) cursor.getOffset() + pageSize, users.size());
+            for (int i = cursor.getOffset(); i < end; i++) {
+                consumer.accept(users.get(i));
+            }
+            return new SearchPage(end - cursor.getOffset(),
+                    end < users.size() ? SearchCursor.atOffset(users, end) : null);
+        }
+
+        final List<User> users = new ArrayList<>();
+        search(base, (User user) -> {
+            if (users.size() < pageSize) {
+                consumer.accept(user);
+            }
+            users.add(user);
+        }, attributes);
+        final int end = Math.min(pageSize, users.size());
+        return new SearchPage(end, end < users.size() ? SearchCursor.atOffset(users, end) : null);
+    }
+
     /**
      * Adds a token to the user on the server.
      * If no access rights to the server exist, nothing is done.
@@ -90,9 +189,24 @@ public interface ServerAdapter extends AutoCloseable, Parcelable {
      *
      * @param user  the user
      * @param token the token
+     * @return  whether the token has been added, or why not
      * @throws IOException  if an error occurs while adding the token
      */
-    void addToken(User user, Token token) throws IOException;
+    AddTokenResult addToken(User user, Token token) throws IOException;
+
+    /**
+     * Adds several tokens to the user on the server.
+     * Behaves like calling {@link #addToken(User, Token)} for every token,
+     * but the requests may be sent together.
+     * {@link #connect()} must have been successfully executed.
+     *
+     * @param user      the user
+     * @param tokens    the tokens
+     * @return  the result of every addition in the iteration order of {@code tokens}
+     * @throws IOException  if an error occurs while adding the tokens
+     * @see #changeTokens(List)
+     */
+    List<TokenResult> addTokens(User user, Collection<Token> tokens) throws IOException;
 
     /**
      * Removes a token from the specified user.
@@ -106,6 +220,33 @@ public interface ServerAdapter extends AutoCloseable, Parcelable {
      */
     void removeToken(User user, Token token) throws IOException;
 
+    /**
+     * Removes several tokens from the specified user.
+     * Behaves like calling {@link #removeToken(User, Token)} for every token,
+     * but the requests may be sent together.
+     * {@link #connect()} must have been successfully executed.
+     *
+     * @param user      the user
+     * @param tokens    the tokens
+     * @return  the result of every removal in the iteration order of {@code tokens}
+     * @throws IOException  if an error occurs while removing the tokens
+     * @see #changeTokens(List)
+     */
+    List<TokenResult> removeTokens(User user, Collection<Token> tokens) throws IOException;
+
+    /**
+     * Adds tokens to and removes tokens from any number of users on the server.
+     * The changes are applied in the given order and, if the server supports it,
+     * sent as a single request, so that the whole batch costs one round trip.
+     * A change that fails does not prevent the following changes.
+     * {@link #connect()} must have been successfully executed.
+     *
+     * @param changes   the changes
+     * @return  the result of every change in the order of {@code changes}
+     * @throws IOException  if an error occurs while sending the changes
+     */
+    List<TokenResult> changeTokens(List<TokenChange> changes) throws IOException;
+
     /**
      * Removes all tokens from the user.
      * If no access rights to the server exist, nothing is done.
@@ -0,0 +1,189 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import edu.kit.informatik.adminapp.model.Attribute;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.User;
+
+/**
+ * This class executes the requests of a {@link ServerAdapter} asynchronously
+ * on the I/O thread of its connection, see {@link ServerAdapter#getExecutor()}.
+ * The thread is shared with every other adapter that uses the same connection,
+ * e.g. in other activities, so creating a ThreadedServerAdapter does not start a thread.
+ * Requests are processed in the order in which they were submitted.
+ * Before each request, a connection to the server is established if none exists.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public class ThreadedServerAdapter implements AsyncServerAdapter {
+    private static final String THREAD_NAME = "server-io";
+    // the I/O thread of server adapters without a connection of their own
+    static final Executor SHARED_EXECUTOR = Executors.newSingleThreadExecutor(
+            (Runnable runnable) -> {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final ServerAdapter serverAdapter;
+    private boolean isClosed;   // guarded by this
+
+    /**
+     * Creates a new ThreadedServerAdapter that uses the I/O thread of the server adapter.
+     * No connection to the server is established.
+     *
+     * @param serverAdapter the server adapter that executes the requests
+     */
+    public ThreadedServerAdapter(final ServerAdapter serverAdapter) {
+        this.serverAdapter = serverAdapter;
+    }
+
+    @Override
+    public ServerAdapter getServerAdapter() {
+        return this.serverAdapter;
+    }
+
+    @Override
+    public CompletableFuture<Void> connect() {
+        return submit(() -> {
+            ensureConnected();
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isAuthenticated() {
+        return submit(() -> {
+            ensureConnected();
+            return this.serverAdapter.isAuthenticated();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Collection<User>> search(
+            final String base, final Attribute... attributes) {
+        return submit(() -> {
+            ensureConnected();
+            return this.serverAdapter.search(base, attributes);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> search(final String base,
+                                             final Consumer<? super User> consumer,
+                                             final Attribute... attributes) {
+        return submit(() -> {
+            ensureConnected();
+            return this.serverAdapter.search(base, consumer, attributes);
+        });
+    }
+
+    @Override
+    public CompletableFuture<SearchPage> search(final String base, final int pageSize,
+                                                final SearchCursor cursor,
+                                                final Consumer<? super User> consumer,
+                                                final Attribute... attributes) {
+        return submit(() -> {
+            ensureConnected();
+            return this.serverAdapter.search(base, pageSize, cursor, consumer, attributes);
+        });
+    }
+
+    @Override
+    public CompletableFuture<AddTokenResult> addToken(final User user, final Token token) {
+        return submit(() -> {
+            ensureConnected();
+            return this.serverAdapter.addToken(user, token);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeToken(final User user, final Token token) {
+        return submit(() -> {
+            ensureConnected();
+            this.serverAdapter.removeToken(user, token);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAllTokens(final User user) {
+        return submit(() -> {
+            ensureConnected();
+            this.serverAdapter.removeAllTokens(user);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> execute(final Task<T> task) {
+        return submit(() -> {
+            ensureConnected();
+            return task.execute(this.serverAdapter);
+        });
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> close() {
+        CompletableFuture<Void> future = submit(() -> {
+            this.serverAdapter.close();
+            return null;
+        });
+        // The thread is shared, only this adapter stops accepting requests
+        this.isClosed = true;
+        return future;
+    }
+
+    private void ensureConnected() throws IOException {
+        if (!this.serverAdapter.isConnected()) {
+            this.serverAdapter.connect();
+        }
+    }
+
+    private synchronized <T> CompletableFuture<T> submit(final Request<T> request) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        if (this.isClosed) {
+            future.completeExceptionally(new IOException(new RejectedExecutionException()));
+            return future;
+        }
+        final Runnable task = () -> {
+            // Cancelled requests are not sent to the server
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(request.execute());
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            this.serverAdapter.getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            // The idle connection has just been evicted with its thread, a new one is created
+            try {
+                this.serverAdapter.getExecutor().execute(task);
+            } catch (RejectedExecutionException again) {
+                future.completeExceptionally(new IOException(again));
+            }
+        }
+        return future;
+    }
+
+    /**
+     * This interface describes a request that is executed on the I/O thread.
+     *
+     * @param <T>   the type of the result
+     */
+    private interface Request<T> {
+        T execute() throws IOException;
+    }
+}
@@ -0,0 +1,106 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class encodes a batch of token changes as a single request to a Raspberry Pi
+ * and decodes the result of every change from the response.
+ * A request has the form {@code batch$credentials$command$userId$tokenId$...} with one
+ * command, user ID and token ID per change, where the credentials are the ID of a session
+ * or the user ID and password. The response has the form
+ * {@code batch$result$...} with one result per change in the order of the changes.
+ *
+ * <p>A server that does not support batches answers with {@value #UNKNOWN_COMMAND}, like to
+ * any request it does not know; the changes then have to be sent as individual requests.
+ * A server that denies access answers with {@value #DENIED}, and every change fails.
+ * Any other response is invalid, so that an error does not disable batches for good.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class TokenBatch {
+    /** The command of a batch request. */
+    static final String COMMAND = "batch";
+    /** The response of a server to a request whose command it does not know. */
+    static final String UNKNOWN_COMMAND = "error";
+    /** The response of a server that denies access. */
+    static final String DENIED = "denied";
+    private static final char SEPARATOR = '$';
+    private static final String ADD_COMMAND = "addToken";
+    private static final String REMOVE_COMMAND = "deleteToken";
+    private static final String SUCCEEDED = "ok";
+    private static final String FAILED = "failed";
+
+    private TokenBatch() {
+    }
+
+    /**
+     * Appends the fields of all changes to a batch request, whose command and credentials
+     * have already been encoded.
+     *
+     * @param encoder   encodes the request
+     * @param changes   the changes
+     */
+    static void appendChanges(final RequestEncoder encoder, final List<TokenChange> changes) {
+        for (final TokenChange change : changes) {
+            encoder.field(change.getKind() == TokenChange.Kind.ADD ? ADD_COMMAND : REMOVE_COMMAND)
+                    .field(change.getUser().getId().toString())
+                    .field(change.getToken().getId().toString());
+        }
+    }
+
+    /**
+     * Returns the results of the changes from the response,
+     * or {@code null} if the server does not support batches.
+     *
+     * @param response  the response
+     * @param size      the number of changes in the request
+     * @return  the result of every change in the order of the changes,
+     *          or {@code null} if the server does not support batches
+     * @throws ProtocolException    if the response does not contain one valid result per change
+     *                              and is neither an unknown command nor a denial
+     */
+    static List<TokenResult> parseResponse(final String response, final int size)
+            throws ProtocolException {
+        if (UNKNOWN_COMMAND.equals(response)) {
+            return null;
+        }
+        if (DENIED.equals(response)) {
+            return Collections.nCopies(size, TokenResult.FAILED);
+        }
+        if (!response.startsWith(COMMAND)
+                || response.length() > COMMAND.length()
+                && response.charAt(COMMAND.length()) != SEPARATOR) {
+            throw new ProtocolException(response);
+        }
+
+        final List<TokenResult> results = new ArrayList<>(size);
+        int start = COMMAND.length() + 1;
+        while (start <= response.length()) {
+            int end = response.indexOf(SEPARATOR, start);
+            if (end == -1) {
+                end = response.length();
+            }
+            results.add(parseResult(response.substring(start, end)));
+            start = end + 1;
+        }
+        if (results.size() != size) {
+            throw new ProtocolException(response);
+        }
+        return results;
+    }
+
+    private static TokenResult parseResult(final String result) throws ProtocolException {
+        switch (result) {
+            case SUCCEEDED:
+                return TokenResult.SUCCEEDED;
+            case FAILED:
+                return TokenResult.FAILED;
+            default:
+                throw new ProtocolException(result);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.util.Objects;
+
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.User;
+
+/**
+ * This class represents the addition of a token to a user or the removal of a token
+ * from a user, as part of a batch of changes.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class TokenChange {
+    private final Kind kind;
+    private final User user;
+    private final Token token;
+
+    private TokenChange(final Kind kind, final User user, final Token token) {
+        this.kind = Objects.requireNonNull(kind);
+        this.user = Objects.requireNonNull(user);
+        this.token = Objects.requireNonNull(token);
+    }
+
+    /**
+     * Creates the addition of a token to a user.
+     *
+     * @param user  the user
+     * @param token the token
+     * @return  the change
+     */
+    public static TokenChange add(final User user, final Token token) {
+        return new TokenChange(Kind.ADD, user, token);
+    }
+
+    /**
+     * Creates the removal of a token from a user.
+     *
+     * @param user  the user
+     * @param token the token
+     * @return  the change
+     */
+    public static TokenChange remove(final User user, final Token token) {
+        return new TokenChange(Kind.REMOVE, user, token);
+    }
+
+    /**
+     * Returns whether the token is added or removed.
+     *
+     * @return  the kind of the change
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Returns the user whose tokens are changed.
+     *
+     * @return  the user
+     */
+    public User getUser() {
+        return this.user;
+    }
+
+    /**
+     * Returns the token that is added or removed.
+     *
+     * @return  the token
+     */
+    public Token getToken() {
+        return this.token;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final TokenChange change = (TokenChange) o;
+        return this.kind == change.kind && this.user.equals(change.user)
+                && this.token.equals(change.token);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.kind, this.user, this.token);
+    }
+
+    /**
+     * This enum represents whether a token is added or removed.
+     */
+    public enum Kind {
+        /** The token is added to the user. */
+        ADD,
+        /** The token is removed from the user. */
+        REMOVE
+    }
+}
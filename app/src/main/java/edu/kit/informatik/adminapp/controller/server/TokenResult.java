@@ -0,0 +1,16 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+/**
+ * This enum represents the outcome of a single change of a batch of token changes.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public enum TokenResult {
+    /** The server has applied the change. */
+    SUCCEEDED,
+    /** The server has rejected the change, e.g. because the token belongs to another user. */
+    FAILED,
+    /** The change has been sent, but the server does not report whether it has applied it. */
+    UNCONFIRMED
+}
@@ -0,0 +1,192 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class parses the users of a search response of a Raspberry Pi in a single pass.
+ * The users are separated by {@value #USER_SEPARATOR}, and each user has the form
+ * {@code lastname,firstname;uid;group:token;token;...}.
+ * A user that does not have this form is skipped, exactly as if it had been matched
+ * against the pattern {@code ([^,]+),([^;]+);([^;]+);([^:]+):([^;]+(?:;[^;]+)*)?}.
+ *
+ * <p>The response is scanned character by character while it is being received,
+ * so that neither the response nor a record has to be held in memory as a whole.
+ * An instance reuses its buffers and must not be used by several threads at the same time.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class UserParser {
+    private static final char USER_SEPARATOR = '$';
+    private static final char LASTNAME_END = ',';
+    private static final char FIELD_END = ';';
+    private static final char GROUP_END = ':';
+    private static final char TOKEN_SEPARATOR = ';';
+    private static final String NAME_SEPARATOR = " "; // separates first and last name
+    private static final int READ_CHUNK_SIZE = 1024;
+
+    private final char[] chunk = new char[READ_CHUNK_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> tokens = new ArrayList<>();
+    private State state;
+    private String lastname;
+    private String firstname;
+    private String uid;
+    private boolean hasGroup;
+    private int count;
+
+    /**
+     * Parses the users of a response and passes each user to {@code consumer}
+     * as soon as its record has been read.
+     *
+     * @param response  the response
+     * @param consumer  receives the users in the order of the response
+     * @return  the number of users passed to {@code consumer}
+     * @throws IOException  if an error occurs while reading the response
+     */
+    int parse(final Reader response, final Consumer<? super User> consumer) throws IOException {
+        begin();
+        this.count = 0;
+        int length;
+        while ((length = response.read(this.chunk)) != -1) {
+            for (int i = 0; i < length; i++) {
+                accept(this.chunk[i], consumer);
+            }
+        }
+        end(consumer);
+        return this.count;
+    }
+
+    /**
+     * Parses the users of a complete response.
+     *
+     * @param response  the response
+     * @param consumer  receives the users in the order of the response
+     * @return  the number of users passed to {@code consumer}
+     */
+    int parse(final CharSequence response, final Consumer<? super User> consumer) {
+        begin();
+        this.count = 0;
+        for (int i = 0; i < response.length(); i++) {
+            accept(response.charAt(i), consumer);
+        }
+        end(consumer);
+        return this.count;
+    }
+
+    private void begin() {
+        this.state = State.LASTNAME;
+        this.field.setLength(0);
+        this.tokens.clear();
+        this.hasGroup = false;
+    }
+
+    private void accept(final char c, final Consumer<? super User> consumer) {
+        if (c == USER_SEPARATOR) {
+            end(consumer);
+            begin();
+            return;
+        }
+
+        switch (this.state) {
+            case LASTNAME:
+                if (c == LASTNAME_END) {
+                    this.lastname = takeField();
+                } else {
+                    this.field.append(c);
+                }
+                break;
+            case FIRSTNAME:
+                if (c == FIELD_END) {
+                    this.firstname = takeField();
+                } else {
+                    this.field.append(c);
+                }
+                break;
+            case UID:
+                if (c == FIELD_END) {
+                    this.uid = takeField();
+                } else {
+                    this.field.append(c);
+                }
+                break;
+            case GROUP:
+                // the group is not part of the user, only its presence is checked
+                if (c == GROUP_END) {
+                    this.state = this.hasGroup ? State.TOKENS : State.INVALID;
+                } else {
+                    this.hasGroup = true;
+                }
+                break;
+            case TOKENS:
+                if (c == TOKEN_SEPARATOR) {
+                    // empty tokens are not allowed, the token list is not matched then
+                    if (this.field.length() == 0) {
+                        this.state = State.INVALID;
+                    } else {
+                        this.tokens.add(this.field.toString());
+                        this.field.setLength(0);
+                    }
+                } else {
+                    this.field.append(c);
+                }
+                break;
+            default:
+                // the rest of an invalid record is skipped
+                break;
+        }
+    }
+
+    /**
+     * Ends the current field and advances to the next one,
+     * or marks the record as invalid if the field is empty.
+     */
+    private String takeField() {
+        if (this.field.length() == 0) {
+            this.state = State.INVALID;
+            return null;
+        }
+        final String value = this.field.toString();
+        this.field.setLength(0);
+        this.state = this.state.next();
+        return value;
+    }
+
+    private void end(final Consumer<? super User> consumer) {
+        if (this.state != State.TOKENS) {
+            return;
+        }
+        if (this.field.length() > 0) {
+            this.tokens.add(this.field.toString());
+        } else if (!this.tokens.isEmpty()) {
+            // a trailing separator
+            return;
+        }
+
+        final User user = new User(Name.of(this.firstname + NAME_SEPARATOR + this.lastname),
+                UserId.of(this.uid));
+        for (final String token : this.tokens) {
+            user.add(new Token(TokenId.of(token)));
+        }
+        this.count++;
+        consumer.accept(user);
+    }
+
+    private enum State {
+        LASTNAME, FIRSTNAME, UID, GROUP, TOKENS, INVALID;
+
+        State next() {
+            return values()[ordinal() + 1];
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package edu.kit.informatik.adminapp.controller.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenData;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.UserId;
+import edu.kit.informatik.adminapp.model.UserSnapshot;
+
+/**
+ * This class stores the users and their tokens on the device, so that users that have been
+ * received from the server once can be displayed immediately after a restart of the app
+ * and while the server cannot be reached.
+ *
+ * <p>The users are kept in memory as {@link UserSnapshot}s, which are handed out without
+ * copies, with an index by user ID, an index by every word of
+ * their names, which allows lookups by name prefix, and an index by the IDs of their tokens,
+ * which finds the owner of a scanned token without asking the server. Changes are written
+ * to a compact binary file in the background; the file is replaced atomically, so that
+ * a crash while writing leaves the previous version intact. The file starts with a magic
+ * number and a version, followed by the number of users and, for every user, its ID,
+ * its name, the number of its tokens and the ID and data of every token. Token IDs are
+ * written in their binary form, see {@link TokenId#write(java.io.DataOutput)}, and files
+ * of the first version, whose token IDs are strings, are still read. The indexes are not
+ * written, they are rebuilt while the file is read.
+ *
+ * <p>There is one store per file in the process, which is read in the background once
+ * it has been opened. Users that are stored before the file has been read take precedence
+ * over the users of the file.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class DirectoryStore {
+    /** The name of the file of the store in the files directory of the app. */
+    public static final String FILE_NAME = "directory.bin";
+    private static final int MAGIC = 0x41444D53; // "ADMS"
+    private static final int VERSION = 2;
+    // the version whose token IDs are strings
+    private static final int VERSION_STRING_IDS = 1;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String THREAD_NAME = "directory-store";
+    // separates a word from the user ID in a key of the name index
+    private static final char KEY_SEPARATOR = '\0';
+    // sorts after every character that can follow a prefix in a key of the name index
+    private static final char KEY_END = Character.MAX_VALUE;
+    private static final String WORD_SEPARATORS = "[\\s,]+";
+    // guarded by itself
+    private static final Map<File, DirectoryStore> INSTANCES = new HashMap<>();
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+            (Runnable runnable) -> {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final File file;
+    // reads and writes the file
+    private final Executor executor;
+    // the users by ID and their keys in the name index, guarded by this
+    private final Map<UserId, UserSnapshot> users = new HashMap<>();
+    private final NavigableMap<String, UserId> names = new TreeMap<>();
+    private final Map<TokenId, UserId> owners = new HashMap<>();
+    // when the users have last been received from the server by this process,
+    // users that have only been read from the file are missing
+    private final Map<UserId, Long> refreshTimes = new HashMap<>();
+    private boolean isSaveScheduled;
+
+    /**
+     * Creates a new empty store for a file, which is written by an executor.
+     * The file is not read.
+     *
+     * @param file      the file
+     * @param executor  writes the file after changes
+     */
+    DirectoryStore(final File file, final Executor executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the store of a file and starts reading the file in the background
+     * if it has not been opened before.
+     * A file that cannot be read is replaced with the next change.
+     *
+     * @param file  the file
+     * @return  the store
+     */
+    public static DirectoryStore open(final File file) {
+        synchronized (INSTANCES) {
+            DirectoryStore store = INSTANCES.get(file);
+            if (store == null) {
+                store = new DirectoryStore(file, EXECUTOR);
+                INSTANCES.put(file, store);
+                // The file is read before it is written, since both happen on the same thread
+                final DirectoryStore loading = store;
+                EXECUTOR.execute(() -> {
+                    try {
+                        loading.load();
+                    } catch (IOException e) {
+                        // The store starts empty and overwrites the file
+                    }
+                });
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Reads the users of the file. A file that does not exist is treated as an empty store.
+     *
+     * @throws IOException  if an error occurs while reading the file or its format is invalid
+     */
+    void load() throws IOException {
+        final List<UserSnapshot> loaded = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(this.file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new StreamCorruptedException(this.file.getPath());
+            }
+            final int version = in.readInt();
+            if (version != VERSION && version != VERSION_STRING_IDS) {
+                throw new StreamCorruptedException(this.file.getPath());
+            }
+            final int userCount = in.readInt();
+            for (int i = 0; i < userCount; i++) {
+                final UserId uid = UserId.of(in.readUTF());
+                final Name name = Name.of(in.readUTF());
+                // The counts are not trusted for allocations, the file may be damaged
+                final List<Token> tokens = new ArrayList<>();
+                final int tokenCount = in.readInt();
+                for (int j = 0; j < tokenCount; j++) {
+                    final TokenId tokenId = version == VERSION_STRING_IDS
+                            ? TokenId.of(in.readUTF()) : TokenId.read(in);
+                    tokens.add(new Token(tokenId, TokenData.of(in.readUTF())));
+                }
+                loaded.add(new UserSnapshot(name, uid, tokens.toArray(new Token[0])));
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing has been stored yet
+            return;
+        } catch (EOFException | IllegalArgumentException e) {
+            throw new StreamCorruptedException(this.file.getPath());
+        }
+
+        synchronized (this) {
+            for (final UserSnapshot user : loaded) {
+                if (!this.users.containsKey(user.getId())) {
+                    index(user, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes all users to the file, replacing it atomically.
+     *
+     * @throws IOException  if an error occurs while writing the file
+     */
+    void save() throws IOException {
+        final List<UserSnapshot> snapshot;
+        synchronized (this) {
+            this.isSaveScheduled = false;
+            snapshot = new ArrayList<>(this.users.values());
+        }
+
+        final File temporary = new File(this.file.getPath() + TEMPORARY_SUFFIX);
+        try (FileOutputStream stream = new FileOutputStream(temporary)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (final UserSnapshot user : snapshot) {
+                out.writeUTF(user.getId().toString());
+                out.writeUTF(user.getName().toString());
+                final Collection<Token> tokens = user.getTokens();
+                out.writeInt(tokens.size());
+                for (final Token token : tokens) {
+                    token.getId().write(out);
+                    out.writeUTF(token.getData().getData());
+                }
+            }
+            out.flush();
+            // The new version must be on disk before it replaces the previous one
+            stream.getFD().sync();
+        }
+        Files.move(temporary.toPath(), this.file.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Stores a user, replacing a stored user with the same ID. The file is written
+     * in the background.
+     *
+     * @param user  the user
+     */
+    public void put(final UserSnapshot user) {
+        synchronized (this) {
+            unindex(user.getId());
+            index(user, true);
+            this.refreshTimes.put(user.getId(), System.currentTimeMillis());
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Stores several users, see {@link #put(UserSnapshot)}.
+     *
+     * @param users the users
+     */
+    public void putAll(final Collection<UserSnapshot> users) {
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            for (final UserSnapshot user : users) {
+                unindex(user.getId());
+                index(user, true);
+                this.refreshTimes.put(user.getId(), now);
+            }
+        }
+        scheduleSave();
+    }
+
+    /**
+     * Removes a user, e.g. because the server no longer knows it.
+     * The file is written in the background.
+     *
+     * @param uid   the ID of the user
+     */
+    public void remove(final UserId uid) {
+        final boolean isRemoved;
+        synchronized (this) {
+            isRemoved = unindex(uid);
+        }
+        if (isRemoved) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Returns the stored user with an ID.
+     *
+     * @param uid   the ID of the user
+     * @return  the user, or {@code null} if no user with the ID is stored
+     */
+    public synchronized UserSnapshot get(final UserId uid) {
+        return this.users.get(uid);
+    }
+
+    /**
+     * Returns the stored users whose ID is the query or one of whose names starts with
+     * the query, ignoring case. The user with the ID comes first, the other users are
+     * sorted by the matching name.
+     *
+     * @param query the user ID or the beginning of a first or last name
+     * @return  the users
+     */
+    public synchronized List<UserSnapshot> find(final String query) {
+        final Set<UserId> found = new LinkedHashSet<>();
+        if (query.matches(UserId.REGEX_USER_ID)) {
+            final UserId uid = new UserId(query);
+            if (this.users.containsKey(uid)) {
+                found.add(uid);
+            }
+        }
+
+        final String prefix = normalize(query);
+        if (!prefix.isEmpty()) {
+            found.addAll(this.names.subMap(prefix, true, prefix + KEY_END, true).values());
+        }
+
+        final List<UserSnapshot> result = new ArrayList<>(found.size());
+        for (final UserId uid : found) {
+            result.add(this.users.get(uid));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the stored user who owns a token.
+     *
+     * @param tokenId   the ID of the token
+     * @return  the owner, or {@code null} if no stored user owns the token
+     */
+    public synchronized UserSnapshot findOwner(final TokenId tokenId) {
+        final UserId owner = this.owners.get(tokenId);
+        return owner == null ? null : this.users.get(owner);
+    }
+
+    /**
+     * Returns whether a stored user may have changed on the server since it has been stored,
+     * because it has not been received from the server for some time.
+     * Users that have only been read from the file are always stale.
+     *
+     * @param uid       the ID of the user
+     * @param maxAge    the time in milliseconds after which a user is stale
+     * @return  {@code true} if the user is stale or not stored
+     */
+    public synchronized boolean isStale(final UserId uid, final long maxAge) {
+        final Long refreshTime = this.refreshTimes.get(uid);
+        return refreshTime == null || System.currentTimeMillis() - refreshTime >= maxAge;
+    }
+
+    /**
+     * Returns the number of stored users.
+     *
+     * @return  the number of stored users
+     */
+    public synchronized int size() {
+        return this.users.size();
+    }
+
+    private void scheduleSave() {
+        synchronized (this) {
+            // Changes that arrive before the file is written are written together
+            if (this.isSaveScheduled) {
+                return;
+            }
+            this.isSaveScheduled = true;
+        }
+        this.executor.execute(() -> {
+            try {
+                save();
+            } catch (IOException e) {
+                // The users are written again with the next change
+            }
+        });
+    }
+
+    /**
+     * Adds a user to the indexes. If {@code isNewer}, the user takes its tokens from other
+     * users that are stored with them, otherwise the tokens stay indexed for the other users.
+     */
+    private void index(final UserSnapshot user, final boolean isNewer) {
+        this.users.put(user.getId(), user);
+        for (final String word : words(user)) {
+            this.names.put(word + KEY_SEPARATOR + user.getId(), user.getId());
+        }
+        for (final Token token : user.getTokens()) {
+            final UserId previous = this.owners.get(token.getId());
+            if (previous == null) {
+                this.owners.put(token.getId(), user.getId());
+            } else if (isNewer && !previous.equals(user.getId())) {
+                // The token has been moved to this user
+                this.owners.put(token.getId(), user.getId());
+                takeToken(previous, token.getId());
+            }
+        }
+    }
+
+    private void takeToken(final UserId uid, final TokenId tokenId) {
+        final UserSnapshot user = this.users.get(uid);
+        for (final Token token : user.getTokens()) {
+            if (token.getId().equals(tokenId)) {
+                this.users.put(uid, user.withoutToken(token));
+                return;
+            }
+        }
+    }
+
+    private boolean unindex(final UserId uid) {
+        final UserSnapshot user = this.users.remove(uid);
+        if (user == null) {
+            return false;
+        }
+        for (final String word : words(user)) {
+            this.names.remove(word + KEY_SEPARATOR + uid);
+        }
+        for (final Token token : user.getTokens()) {
+            this.owners.remove(token.getId(), uid);
+        }
+        this.refreshTimes.remove(uid);
+        return true;
+    }
+
+    /**
+     * Returns the keys of a user in the name index: every word of the name,
+     * so that the first and the last name can be looked up, and the whole name.
+     */
+    private static Set<String> words(final UserSnapshot user) {
+        final Set<String> words = new LinkedHashSet<>();
+        final String name = user.getName().toString();
+        for (final String word : name.split(WORD_SEPARATORS)) {
+            if (!word.isEmpty()) {
+                words.add(normalize(word));
+            }
+        }
+        if (!name.trim().isEmpty()) {
+            words.add(normalize(name));
+        }
+        return words;
+    }
+
+    private static String normalize(final String word) {
+        return word.trim().toLowerCase(Locale.ROOT);
+    }
+}
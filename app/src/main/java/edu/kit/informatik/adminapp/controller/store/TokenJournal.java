@@ -0,0 +1,675 @@
+package edu.kit.informatik.adminapp.controller.store;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.ProtocolException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.kit.informatik.adminapp.controller.server.AsyncServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.ServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.TokenChange;
+import edu.kit.informatik.adminapp.controller.server.TokenResult;
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class records changes of tokens that could not be sent to the server in a journal
+ * on the device, and sends them once the server can be reached again.
+ *
+ * <p>The journal is a file to which records are only appended. A change is recorded with
+ * a sequence number; once it has been sent, a record acknowledges all changes up to its
+ * sequence number. Records that arrive while the file is being synced are written and
+ * synced together, so that recording many changes costs few syncs. The file is emptied
+ * once all changes have been sent. A record that has been cut off by a crash is discarded
+ * together with everything after it; its change has not been reported as recorded.
+ *
+ * <p>The changes are sent in the order in which they have been recorded. Consecutive
+ * additions and removals of tokens are sent as one batch, see
+ * {@link ServerAdapter#changeTokens(List)}. A change the server rejects is not sent again,
+ * but reported to the {@link Listener}, so that it can be undone on the device. Rejections
+ * that occur while there is no listener are reported to the next one; they are not written
+ * to the file.
+ * Sending a change twice has no further effect, so a change whose acknowledgement has been
+ * lost in a crash is simply sent again.
+ *
+ * <p>There is one journal per file in the process.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class TokenJournal {
+    /** The name of the file of the journal in the files directory of the app. */
+    public static final String FILE_NAME = "journal.bin";
+    private static final int MAGIC = 0x41444D4A; // "ADMJ"
+    private static final int VERSION = 1;
+    private static final byte ACKNOWLEDGEMENT = 0;
+    private static final int BATCH_SIZE = 32;
+    // the time after which sending is tried again while the server cannot be reached
+    private static final long RETRY_DELAY = 30_000;
+    private static final String THREAD_NAME = "token-journal";
+    // guarded by itself
+    private static final Map<File, TokenJournal> INSTANCES = new HashMap<>();
+
+    private final File file;
+    // writes and syncs the file and retries sending
+    private final ScheduledExecutorService executor;
+    // the changes that have been recorded but not sent, guarded by this
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    // the records that wait for the next sync, guarded by this
+    private final List<Pending> pending = new ArrayList<>();
+    // counted down once the file has been read, even if reading it failed
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private boolean isSyncScheduled;
+    private long nextSequence = 1;
+    private FileOutputStream out;   // only used by the executor
+    private AsyncServerAdapter replayServer;
+    private boolean isReplaying;
+    private Listener listener;
+    // the changes the server has rejected and that have not been reported, guarded by this
+    private final List<Entry> rejected = new ArrayList<>();
+
+    /**
+     * Creates a new journal for a file. The file is not read; {@link #size()} waits until
+     * {@link #load()} has been called.
+     *
+     * @param file      the file
+     * @param executor  writes the file and retries sending
+     */
+    TokenJournal(final File file, final ScheduledExecutorService executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the journal of a file and reads the changes that have not been sent yet
+     * if the journal has not been opened before.
+     *
+     * @param file  the file
+     * @return  the journal
+     */
+    public static TokenJournal open(final File file) {
+        synchronized (INSTANCES) {
+            TokenJournal journal = INSTANCES.get(file);
+            if (journal == null) {
+                journal = new TokenJournal(file, Executors.newSingleThreadScheduledExecutor(
+                        (Runnable runnable) -> {
+                            Thread thread = new Thread(runnable, THREAD_NAME);
+                            thread.setDaemon(true);
+                            return thread;
+                        }));
+                INSTANCES.put(file, journal);
+                // The file is read before it is written, since both happen on the same thread
+                final TokenJournal loading = journal;
+                journal.executor.execute(() -> {
+                    try {
+                        loading.load();
+                    } catch (IOException e) {
+                        // The journal starts empty and overwrites the file
+                    }
+                });
+            }
+            return journal;
+        }
+    }
+
+    /**
+     * Reads the changes of the file that have not been acknowledged.
+     * A file that does not exist is treated as an empty journal.
+     *
+     * @throws IOException  if an error occurs while reading the file or its format is invalid
+     */
+    void load() throws IOException {
+        try {
+            read();
+        } finally {
+            this.loaded.countDown();
+        }
+    }
+
+    private void read() throws IOException {
+        final Deque<Entry> loaded = new ArrayDeque<>();
+        long lastSequence = 0;
+        boolean isTorn = false;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(this.file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new StreamCorruptedException(this.file.getPath());
+            }
+            while (true) {
+                final int type = in.read();
+                if (type == -1) {
+                    break;
+                }
+                final long sequence = in.readLong();
+                lastSequence = Math.max(lastSequence, sequence);
+                if (type == ACKNOWLEDGEMENT) {
+                    while (!loaded.isEmpty() && loaded.peekFirst().sequence <= sequence) {
+                        loaded.removeFirst();
+                    }
+                } else {
+                    loaded.addLast(Entry.read(sequence, type, in));
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing has been recorded yet
+            return;
+        } catch (EOFException | IllegalArgumentException e) {
+            // The last record has been cut off, the records before it are intact
+            isTorn = true;
+        }
+
+        synchronized (this) {
+            // The changes of the file have been recorded before the changes of this process
+            for (final Pending record : this.pending) {
+                if (record.entry != null) {
+                    record.entry.sequence += lastSequence;
+                }
+            }
+            this.nextSequence += lastSequence;
+            this.entries.addAll(loaded);
+        }
+        if (isTorn) {
+            // Records must not be appended to the part of a record
+            rewrite();
+        }
+    }
+
+    /**
+     * Replaces the file by the changes that have not been sent yet.
+     */
+    private void rewrite() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(bytes);
+        synchronized (this) {
+            for (final Entry entry : this.entries) {
+                entry.write(data);
+            }
+        }
+        truncate();
+        this.out.write(bytes.toByteArray());
+        this.out.getFD().sync();
+    }
+
+    /**
+     * Records the addition of a token to a user.
+     *
+     * @param user  the user
+     * @param token the token
+     * @return  a future that is completed once the change has been written to the device
+     */
+    public CompletableFuture<Void> addToken(final User user, final Token token) {
+        return record(Operation.ADD, user, token.getId());
+    }
+
+    /**
+     * Records the removal of a token from a user.
+     *
+     * @param user  the user
+     * @param token the token
+     * @return  a future that is completed once the change has been written to the device
+     */
+    public CompletableFuture<Void> removeToken(final User user, final Token token) {
+        return record(Operation.REMOVE, user, token.getId());
+    }
+
+    /**
+     * Records the removal of all tokens from a user.
+     *
+     * @param user  the user
+     * @return  a future that is completed once the change has been written to the device
+     */
+    public CompletableFuture<Void> removeAllTokens(final User user) {
+        return record(Operation.REMOVE_ALL, user, null);
+    }
+
+    /**
+     * Returns whether all recorded changes have been sent. Further changes must be recorded
+     * as long as this is not the case, so that they are not sent before earlier changes.
+     * Waits until the changes of the file have been read.
+     *
+     * @return  {@code true} if no change waits to be sent
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of changes that have not been sent.
+     * Waits until the changes of the file have been read.
+     *
+     * @return  the number of changes
+     */
+    public int size() {
+        awaitLoaded();
+        synchronized (this) {
+            int size = this.entries.size();
+            for (final Pending record : this.pending) {
+                if (record.entry != null) {
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+
+    private void awaitLoaded() {
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                this.loaded.await();
+                break;
+            } catch (InterruptedException e) {
+                // The changes of the file must not be overtaken
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets the listener that is told about the changes the server rejects, and reports the
+     * changes that have been rejected while there was no listener.
+     * The listener is called on the thread that sends the changes.
+     *
+     * @param listener  the listener, or {@code null} to keep the rejections until there is one
+     */
+    public void setListener(final Listener listener) {
+        synchronized (this) {
+            this.listener = listener;
+        }
+        reportRejected();
+    }
+
+    /**
+     * Starts sending the recorded changes with a server adapter in the background.
+     * While the server cannot be reached, sending is tried again regularly until the
+     * server adapter is closed or sending is started with another server adapter.
+     * Any other error stops sending until this method is called again.
+     *
+     * @param server    the server adapter
+     */
+    public void replay(final AsyncServerAdapter server) {
+        synchronized (this) {
+            this.replayServer = server;
+            if (this.isReplaying) {
+                return;
+            }
+            this.isReplaying = true;
+        }
+        startReplay();
+    }
+
+    private void startReplay() {
+        final AsyncServerAdapter server;
+        synchronized (this) {
+            server = this.replayServer;
+        }
+        // The changes are sent in order with the requests of the activity
+        server.execute(this::replayNow).whenComplete((Integer count, Throwable error) -> {
+            final boolean isRetry;
+            synchronized (this) {
+                if (error == null && this.entries.isEmpty()
+                        || error != null && server == this.replayServer
+                        && (error.getCause() instanceof RejectedExecutionException
+                        || !ServerAdapter.isUnreachable(error))) {
+                    // Everything has been sent, the server adapter has been closed,
+                    // or sending again would fail again
+                    this.isReplaying = false;
+                    return;
+                }
+                // A new server adapter is tried at once
+                isRetry = error != null && server == this.replayServer;
+            }
+            this.executor.schedule(this::startReplay,
+                    isRetry ? RETRY_DELAY : 0, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Sends the recorded changes in batches, in the order in which they have been recorded.
+     * The changes the server rejects are dropped and reported to the listener, as is a
+     * batch whose response is invalid, so that it does not hold up the following changes.
+     *
+     * @param serverAdapter the server adapter, which must be connected
+     * @return  the number of changes that have been sent
+     * @throws IOException  if an error occurs while sending, the remaining changes are kept
+     */
+    int replayNow(final ServerAdapter serverAdapter) throws IOException {
+        awaitLoaded();
+        int count = 0;
+        List<Entry> batch;
+        while (!(batch = nextBatch()).isEmpty()) {
+            try {
+                send(serverAdapter, batch);
+            } catch (ProtocolException e) {
+                // The server would answer the same batch in the same way
+                for (final Entry entry : batch) {
+                    reject(entry);
+                }
+            }
+            acknowledge(batch.get(batch.size() - 1).sequence);
+            reportRejected();
+            count += batch.size();
+        }
+        return count;
+    }
+
+    private void send(final ServerAdapter serverAdapter, final List<Entry> batch)
+            throws IOException {
+        final Entry first = batch.get(0);
+        if (first.operation == Operation.REMOVE_ALL) {
+            serverAdapter.removeAllTokens(first.toUser());
+            return;
+        }
+
+        final List<TokenChange> changes = new ArrayList<>(batch.size());
+        for (final Entry entry : batch) {
+            changes.add(entry.toChange());
+        }
+        final List<TokenResult> results = serverAdapter.changeTokens(changes);
+        for (int i = 0; i < batch.size(); i++) {
+            // A rejected change would be rejected again
+            if (results.get(i) == TokenResult.FAILED) {
+                reject(batch.get(i));
+            }
+        }
+    }
+
+    private synchronized void reject(final Entry entry) {
+        this.rejected.add(entry);
+    }
+
+    private void reportRejected() {
+        final Listener current;
+        final List<Entry> entries;
+        synchronized (this) {
+            if (this.listener == null || this.rejected.isEmpty()) {
+                return;
+            }
+            current = this.listener;
+            entries = new ArrayList<>(this.rejected);
+            this.rejected.clear();
+        }
+        for (final Entry entry : entries) {
+            if (entry.operation == Operation.REMOVE_ALL) {
+                current.onRemoveAllRejected(entry.toUser());
+            } else {
+                current.onRejected(entry.toChange());
+            }
+        }
+    }
+
+    /**
+     * Returns the next changes that can be sent together: a removal of all tokens,
+     * or consecutive additions and removals of single tokens.
+     */
+    private synchronized List<Entry> nextBatch() {
+        final List<Entry> batch = new ArrayList<>();
+        for (final Entry entry : this.entries) {
+            if (batch.size() == BATCH_SIZE || entry.operation == Operation.REMOVE_ALL
+                    && !batch.isEmpty()) {
+                break;
+            }
+            batch.add(entry);
+            if (entry.operation == Operation.REMOVE_ALL) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private void acknowledge(final long sequence) {
+        synchronized (this) {
+            while (!this.entries.isEmpty() && this.entries.peekFirst().sequence <= sequence) {
+                this.entries.removeFirst();
+            }
+            this.pending.add(new Pending(null, sequence, null));
+        }
+        scheduleSync();
+    }
+
+    private CompletableFuture<Void> record(final Operation operation, final User user,
+                                           final TokenId tokenId) {
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+        synchronized (this) {
+            final Entry entry = new Entry(this.nextSequence++, operation, user.getId(),
+                    user.getName(), tokenId);
+            this.pending.add(new Pending(entry, entry.sequence, written));
+        }
+        scheduleSync();
+        return written;
+    }
+
+    private void scheduleSync() {
+        synchronized (this) {
+            // Records that arrive before the file is synced are synced together
+            if (this.isSyncScheduled) {
+                return;
+            }
+            this.isSyncScheduled = true;
+        }
+        this.executor.execute(this::sync);
+    }
+
+    /**
+     * Writes all waiting records to the file and syncs it once.
+     */
+    void sync() {
+        final List<Pending> records;
+        final boolean isDrained;
+        synchronized (this) {
+            this.isSyncScheduled = false;
+            records = new ArrayList<>(this.pending);
+            this.pending.clear();
+            // The sequence numbers of records that wait are not yet final before load()
+            isDrained = this.entries.isEmpty();
+            for (final Pending record : records) {
+                if (record.entry != null) {
+                    record.sequence = record.entry.sequence;
+                }
+            }
+        }
+
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream data = new DataOutputStream(bytes);
+            boolean hasEntries = false;
+            for (final Pending record : records) {
+                if (record.entry == null) {
+                    data.writeByte(ACKNOWLEDGEMENT);
+                    data.writeLong(record.sequence);
+                } else {
+                    record.entry.write(data);
+                    hasEntries = true;
+                }
+            }
+            if (isDrained && !hasEntries) {
+                // Every change has been sent, the journal starts over
+                truncate();
+            } else {
+                output().write(bytes.toByteArray());
+            }
+            output().getFD().sync();
+        } catch (IOException e) {
+            this.out = null;
+            for (final Pending record : records) {
+                if (record.written != null) {
+                    record.written.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+
+        synchronized (this) {
+            for (final Pending record : records) {
+                if (record.entry != null) {
+                    this.entries.addLast(record.entry);
+                }
+            }
+        }
+        for (final Pending record : records) {
+            if (record.written != null) {
+                record.written.complete(null);
+            }
+        }
+    }
+
+    private FileOutputStream output() throws IOException {
+        if (this.out == null) {
+            final boolean isNew = !this.file.exists() || this.file.length() == 0;
+            this.out = new FileOutputStream(this.file, true);
+            if (isNew) {
+                writeHeader();
+            }
+        }
+        return this.out;
+    }
+
+    private void truncate() throws IOException {
+        if (this.out != null) {
+            this.out.close();
+        }
+        this.out = new FileOutputStream(this.file, false);
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+        final DataOutputStream header = new DataOutputStream(this.out);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.flush();
+    }
+
+    /**
+     * This interface is told about the recorded changes the server has rejected.
+     * A rejected change has been dropped from the journal and is not sent again.
+     */
+    public interface Listener {
+        /**
+         * Is called once the server has rejected the addition or removal of a token.
+         *
+         * @param change    the rejected change
+         */
+        void onRejected(TokenChange change);
+
+        /**
+         * Is called once the server has rejected the removal of all tokens from a user.
+         *
+         * @param user  the user, without tokens
+         */
+        void onRemoveAllRejected(User user);
+    }
+
+    /**
+     * This enum represents the kinds of changes, with the type of their records.
+     */
+    private enum Operation {
+        ADD(1), REMOVE(2), REMOVE_ALL(3);
+
+        private final byte type;
+
+        Operation(final int type) {
+            this.type = (byte) type;
+        }
+
+        static Operation of(final int type) {
+            for (final Operation operation : values()) {
+                if (operation.type == type) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException(Integer.toString(type));
+        }
+    }
+
+    /**
+     * This class represents a recorded change.
+     */
+    private static final class Entry {
+        private long sequence;
+        private final Operation operation;
+        private final UserId uid;
+        private final Name name;
+        private final TokenId tokenId;  // null if all tokens are removed
+
+        Entry(final long sequence, final Operation operation, final UserId uid,
+              final Name name, final TokenId tokenId) {
+            this.sequence = sequence;
+            this.operation = operation;
+            this.uid = uid;
+            this.name = name;
+            this.tokenId = tokenId;
+        }
+
+        static Entry read(final long sequence, final int type, final DataInputStream in)
+                throws IOException {
+            final Operation operation = Operation.of(type);
+            final UserId uid = UserId.of(in.readUTF());
+            final Name name = Name.of(in.readUTF());
+            final TokenId tokenId = operation == Operation.REMOVE_ALL
+                    ? null : TokenId.of(in.readUTF());
+            return new Entry(sequence, operation, uid, name, tokenId);
+        }
+
+        void write(final DataOutputStream out) throws IOException {
+            out.writeByte(this.operation.type);
+            out.writeLong(this.sequence);
+            out.writeUTF(this.uid.toString());
+            out.writeUTF(this.name.toString());
+            if (this.tokenId != null) {
+                out.writeUTF(this.tokenId.toString());
+            }
+        }
+
+        User toUser() {
+            return new User(this.name, this.uid);
+        }
+
+        TokenChange toChange() {
+            final Token token = new Token(this.tokenId);
+            return this.operation == Operation.ADD
+                    ? TokenChange.add(toUser(), token) : TokenChange.remove(toUser(), token);
+        }
+    }
+
+    /**
+     * This class represents a record that waits to be written: a change,
+     * or an acknowledgement if there is no change.
+     */
+    private static final class Pending {
+        private final Entry entry;
+        private long sequence;
+        private final CompletableFuture<Void> written;
+
+        Pending(final Entry entry, final long sequence, final CompletableFuture<Void> written) {
+            this.entry = entry;
+            this.sequence = sequence;
+            this.written = written;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package edu.kit.informatik.adminapp.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * This class returns a shared instance of an immutable value object for equal values,
+ * so that the same value parsed many times is held in memory only once.
+ * An instance is dropped from the pool once it is no longer used anywhere else.
+ *
+ * @param <K>   the type of the keys, which must be held by the value objects
+ * @param <T>   the type of the value objects
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class Interner<K, T> {
+    // The key is held by the instance, so that both become unreachable together
+    private final Map<K, WeakReference<T>> instances = new WeakHashMap<>();
+    private final Function<K, T> factory;
+
+    /**
+     * Creates a new empty pool.
+     *
+     * @param factory   creates a new instance that holds the given key itself, not a copy,
+     *                  or that is the key itself
+     */
+    Interner(final Function<K, T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the shared instance for a value and creates it if there is none.
+     *
+     * @param value the value
+     * @return  the shared instance
+     * @throws IllegalArgumentException if the factory rejects the value
+     */
+    synchronized T intern(final K value) {
+        final WeakReference<T> reference = this.instances.get(value);
+        T instance = reference != null ? reference.get() : null;
+        if (instance == null) {
+            instance = this.factory.apply(value);
+            this.instances.put(value, new WeakReference<>(instance));
+        }
+        return instance;
+    }
+}
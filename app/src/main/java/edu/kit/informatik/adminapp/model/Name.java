@@ -4,6 +4,7 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 import edu.kit.informatik.adminapp.model.resources.Errors;
 
@@ -20,7 +21,7 @@ public class Name implements Parcelable {
     public static final Creator<Name> CREATOR = new Creator<Name>() {
         @Override
         public Name createFromParcel(final Parcel in) {
-            return new Name(in);
+            return of(in.readString());
         }
 
         @Override
@@ -29,7 +30,10 @@ public class Name implements Parcelable {
         }
     };
 
-    private String name;
+    private static final Pattern PATTERN = Pattern.compile(REGEX_NAME);
+    private static final Interner<String, Name> INSTANCES = new Interner<>(Name::new);
+
+    private final String name;
 
     /**
      * Creates a new name and checks whether it conforms to the {@link #REGEX_NAME regex}.
@@ -39,15 +43,24 @@ public class Name implements Parcelable {
      * regex}
      */
     public Name(final String name) {
-        if (name == null || !name.matches(REGEX_NAME)) {
+        if (name == null || !PATTERN.matcher(name).matches()) {
             throw new IllegalArgumentException(
                     String.format(Errors.REGEX_NOT_MATCHED, name, REGEX_NAME));
         }
         this.name = name;
     }
 
-    private Name(final Parcel in) {
-        this(in.readString());
+    /**
+     * Returns a name that is shared with every other name created by this method for the
+     * same value, and checks whether it conforms to the {@link #REGEX_NAME regex}.
+     *
+     * @param name  the name
+     * @return  the shared name
+     * @throws IllegalArgumentException if {@code name} does not conform to the {@link #REGEX_NAME
+     * regex}
+     */
+    public static Name of(final String name) {
+        return INSTANCES.intern(name);
     }
 
     @Override
@@ -3,8 +3,6 @@ package edu.kit.informatik.adminapp.model;
 import android.os.Parcel;
 import android.os.Parcelable;
 
-import java.util.Objects;
-
 /**
  * This class represents a token with an ID, on which data can be stored.
  *
@@ -51,7 +49,7 @@ public class Token implements Parcelable {
      * @param id   the ID of the token, must not be {@code null}
      */
     public Token(final TokenId id) {
-        this(id, new TokenData());
+        this(id, TokenData.EMPTY);
     }
 
     private Token(final Parcel in) {
@@ -98,6 +96,7 @@ public class Token implements Parcelable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, getData());
+        // Equal to Objects.hash(id, data), without allocating the array of its arguments
+        return 31 * (31 + this.id.hashCode()) + this.data.hashCode();
     }
 }
@@ -4,6 +4,7 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 import edu.kit.informatik.adminapp.model.resources.Errors;
 
@@ -19,7 +20,7 @@ public class TokenData implements Parcelable {
     public static final Creator<TokenData> CREATOR = new Creator<TokenData>() {
         @Override
         public TokenData createFromParcel(Parcel in) {
-            return new TokenData(in);
+            return of(in.readString());
         }
 
         @Override
@@ -27,6 +28,10 @@ public class TokenData implements Parcelable {
             return new TokenData[size];
         }
     };
+    // must be initialized before EMPTY
+    private static final Pattern PATTERN = Pattern.compile(REGEX_TOKEN_DATA);
+    /** The data of every token without data, shared by all of them. */
+    public static final TokenData EMPTY = new TokenData();
 
     private final String data;
 
@@ -39,7 +44,7 @@ public class TokenData implements Parcelable {
      * the {@link #REGEX_TOKEN_DATA regex}
      */
     public TokenData(final String data) {
-        if (data == null || !data.matches(REGEX_TOKEN_DATA)) {
+        if (data == null || !PATTERN.matcher(data).matches()) {
             throw new IllegalArgumentException(
                     String.format(Errors.REGEX_NOT_MATCHED, data, REGEX_TOKEN_DATA));
         }
@@ -53,8 +58,16 @@ public class TokenData implements Parcelable {
         this(NO_DATA);
     }
 
-    private TokenData(Parcel in) {
-        this(in.readString());
+    /**
+     * Returns {@link #EMPTY} for {@link #NO_DATA}, and new TokenData with any other data.
+     *
+     * @param data  the data of the token
+     * @return  the TokenData object
+     * @throws IllegalArgumentException if {@code data} does not conform to
+     * the {@link #REGEX_TOKEN_DATA regex}
+     */
+    public static TokenData of(final String data) {
+        return NO_DATA.equals(data) ? EMPTY : new TokenData(data);
     }
 
     /**
@@ -3,13 +3,23 @@ package edu.kit.informatik.adminapp.model;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import edu.kit.informatik.adminapp.model.resources.Errors;
 
 /**
  * This class represents the ID of a token.
  *
+ * <p>The IDs of scanned tokens are SHA-256 hashes in lowercase hexadecimal. Such an ID is
+ * held as its 32 bytes, and converted to hexadecimal only when it is sent or parcelled;
+ * in binary files, it is written as its 32 bytes as well. Any other ID is held as a string.
+ *
  * @author Daniel Luckey
  * @version 1.0
  */
@@ -18,7 +28,7 @@ public class TokenId implements Parcelable {
     public static final Creator<TokenId> CREATOR = new Creator<TokenId>() {
         @Override
         public TokenId createFromParcel(final Parcel in) {
-            return new TokenId(in);
+            return of(in.readString());
         }
 
         @Override
@@ -29,7 +39,24 @@ public class TokenId implements Parcelable {
     /** The regex that the token ID must conform to. */
     public static final String REGEX_TOKEN_ID = "[^$]*";
 
-    private final String id;
+    private static final Pattern PATTERN = Pattern.compile(REGEX_TOKEN_ID);
+    private static final Interner<String, TokenId> INSTANCES = new Interner<>(TokenId::new);
+    // A hash holds no string, so it is pooled under its own words
+    private static final Interner<TokenId, TokenId> HASHES = new Interner<>(Function.identity());
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int HASH_WORDS = 4;
+    private static final int HEX_DIGITS_PER_WORD = 16;
+    private static final int BITS_PER_HEX_DIGIT = 4;
+    // the first byte of a token ID in its binary form
+    private static final byte STRING_MARKER = 0;
+    private static final byte HASH_MARKER = 1;
+
+    private final String id;    // null if the ID is a hash
+    // the words of a hash, most significant first, all 0 if the ID is not a hash
+    private final long hash0;
+    private final long hash1;
+    private final long hash2;
+    private final long hash3;
 
     /**
      * Creates a new token ID and checks whether it conforms to the {@link #REGEX_TOKEN_ID regex}.
@@ -39,15 +66,116 @@ public class TokenId implements Parcelable {
      * regex}
      */
     public TokenId(final String id) {
-        if (id == null || !id.matches(REGEX_TOKEN_ID)) {
+        if (id == null || !PATTERN.matcher(id).matches()) {
             throw new IllegalArgumentException(
                     String.format(Errors.REGEX_NOT_MATCHED, id, REGEX_TOKEN_ID));
         }
-        this.id = id;
+        final long[] hash = parseHash(id);
+        if (hash == null) {
+            this.id = id;
+            this.hash0 = this.hash1 = this.hash2 = this.hash3 = 0;
+        } else {
+            this.id = null;
+            this.hash0 = hash[0];
+            this.hash1 = hash[1];
+            this.hash2 = hash[2];
+            this.hash3 = hash[3];
+        }
+    }
+
+    private TokenId(final long[] hash) {
+        this.id = null;
+        this.hash0 = hash[0];
+        this.hash1 = hash[1];
+        this.hash2 = hash[2];
+        this.hash3 = hash[3];
+    }
+
+    /**
+     * Returns a token ID that is shared with every other token ID created by this method for the
+     * same value, and checks whether it conforms to the {@link #REGEX_TOKEN_ID regex}.
+     * A hash is shared as well; since it holds no string, it is looked up by its words.
+     *
+     * @param id    the ID of the token
+     * @return  the token ID
+     * @throws IllegalArgumentException if {@code id} does not conform to the {@link #REGEX_TOKEN_ID
+     * regex}
+     */
+    public static TokenId of(final String id) {
+        final long[] hash = parseHash(id);
+        // A hash always conforms to the regex
+        return hash == null ? INSTANCES.intern(id) : HASHES.intern(new TokenId(hash));
+    }
+
+    /**
+     * Reads a token ID in the binary form written by {@link #write(DataOutput)}.
+     * The token ID is shared as if it had been created by {@link #of(String)}.
+     *
+     * @param in    the input
+     * @return  the token ID
+     * @throws IOException  if an error occurs while reading or the input is no token ID
+     */
+    public static TokenId read(final DataInput in) throws IOException {
+        final byte marker = in.readByte();
+        if (marker == STRING_MARKER) {
+            try {
+                return of(in.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new StreamCorruptedException(e.getMessage());
+            }
+        } else if (marker != HASH_MARKER) {
+            throw new StreamCorruptedException(String.valueOf(marker));
+        }
+        final long[] hash = new long[HASH_WORDS];
+        for (int i = 0; i < HASH_WORDS; i++) {
+            hash[i] = in.readLong();
+        }
+        return HASHES.intern(new TokenId(hash));
+    }
+
+    /**
+     * Writes this token ID in a binary form: a marker byte, followed by the 32 bytes of
+     * a hash or by the modified UTF-8 of any other ID.
+     *
+     * @param out   the output
+     * @throws IOException  if an error occurs while writing
+     */
+    public void write(final DataOutput out) throws IOException {
+        if (this.id != null) {
+            out.writeByte(STRING_MARKER);
+            out.writeUTF(this.id);
+            return;
+        }
+        out.writeByte(HASH_MARKER);
+        for (int i = 0; i < HASH_WORDS; i++) {
+            out.writeLong(word(i));
+        }
     }
 
-    private TokenId(final Parcel in) {
-        this(in.readString());
+    /**
+     * Returns the words of a hash in lowercase hexadecimal,
+     * or {@code null} if the string is no such hash.
+     */
+    private static long[] parseHash(final String id) {
+        if (id == null || id.length() != HASH_WORDS * HEX_DIGITS_PER_WORD) {
+            return null;
+        }
+        final long[] hash = new long[HASH_WORDS];
+        for (int i = 0; i < id.length(); i++) {
+            final char c = id.charAt(i);
+            final int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else {
+                // Other IDs, including uppercase hashes, are kept as they are
+                return null;
+            }
+            final int word = i / HEX_DIGITS_PER_WORD;
+            hash[word] = hash[word] << BITS_PER_HEX_DIGIT | digit;
+        }
+        return hash;
     }
 
     @Override
@@ -57,12 +185,34 @@ public class TokenId implements Parcelable {
 
     @Override
     public void writeToParcel(final Parcel parcel, final int flag) {
-        parcel.writeString(this.id);
+        parcel.writeString(toString());
     }
 
     @Override
     public String toString() {
-        return this.id;
+        if (this.id != null) {
+            return this.id;
+        }
+        final char[] hex = new char[HASH_WORDS * HEX_DIGITS_PER_WORD];
+        for (int i = 0; i < hex.length; i++) {
+            final int shift = (HEX_DIGITS_PER_WORD - 1 - i % HEX_DIGITS_PER_WORD)
+                    * BITS_PER_HEX_DIGIT;
+            hex[i] = HEX_DIGITS[(int) (word(i / HEX_DIGITS_PER_WORD) >>> shift) & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private long word(final int index) {
+        switch (index) {
+            case 0:
+                return this.hash0;
+            case 1:
+                return this.hash1;
+            case 2:
+                return this.hash2;
+            default:
+                return this.hash3;
+        }
     }
 
     @Override
@@ -70,11 +220,15 @@ public class TokenId implements Parcelable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         final TokenId tokenId = (TokenId) o;
-        return id.equals(tokenId.id);
+        // An ID is a hash exactly if its string would be one, so the forms never mix
+        return Objects.equals(this.id, tokenId.id) && this.hash0 == tokenId.hash0
+                && this.hash1 == tokenId.hash1 && this.hash2 == tokenId.hash2
+                && this.hash3 == tokenId.hash3;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        // The bits of a hash are already evenly distributed
+        return this.id != null ? Objects.hash(this.id) : Long.hashCode(this.hash0);
     }
 }
@@ -0,0 +1,189 @@
+package edu.kit.informatik.adminapp.model;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents the set of tokens of a user. The tokens are held in an array with
+ * open addressing and linear probing, next to an array of their hash codes, so that neither
+ * a node nor a boxed hash code is allocated per token, and a lookup compares hash codes
+ * before it calls {@link Token#equals(Object)}.
+ *
+ * <p>The set does not permit {@code null}. Its iterator does not support removal.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class TokenSet extends AbstractSet<Token> {
+    private static final Token[] NO_TOKENS = new Token[0];
+    private static final int[] NO_HASHES = new int[0];
+    private static final int MIN_CAPACITY = 4;
+
+    // the length is 0 or a power of two, and at most half of the slots are used
+    private Token[] tokens = NO_TOKENS;
+    private int[] hashes = NO_HASHES;
+    private int size;
+    private int modCount;
+
+    /**
+     * Creates a new set with tokens.
+     *
+     * @param tokens    the tokens, must not contain {@code null}
+     */
+    TokenSet(final Token... tokens) {
+        for (final Token token : tokens) {
+            add(token);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof Token && indexOf((Token) o) >= 0;
+    }
+
+    @Override
+    public boolean add(final Token token) {
+        if (token == null) {
+            throw new NullPointerException();
+        }
+        if (indexOf(token) >= 0) {
+            return false;
+        }
+        if (2 * (this.size + 1) > this.tokens.length) {
+            resize(Math.max(MIN_CAPACITY, 2 * this.tokens.length));
+        }
+        insert(token, hash(token));
+        this.size++;
+        this.modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        if (!(o instanceof Token)) {
+            return false;
+        }
+        final int index = indexOf((Token) o);
+        if (index < 0) {
+            return false;
+        }
+        delete(index);
+        this.size--;
+        this.modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        this.tokens = NO_TOKENS;
+        this.hashes = NO_HASHES;
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+            private final int expectedModCount = TokenSet.this.modCount;
+            private int next = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.next < TokenSet.this.tokens.length;
+            }
+
+            @Override
+            public Token next() {
+                if (TokenSet.this.modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Token token = TokenSet.this.tokens[this.next];
+                this.next = advance(this.next + 1);
+                return token;
+            }
+
+            private int advance(final int index) {
+                int slot = index;
+                while (slot < TokenSet.this.tokens.length && TokenSet.this.tokens[slot] == null) {
+                    slot++;
+                }
+                return slot;
+            }
+        };
+    }
+
+    /**
+     * Spreads the high bits of the hash code to the low bits, which select the slot.
+     */
+    private static int hash(final Token token) {
+        final int hash = token.hashCode();
+        return hash ^ hash >>> 16;
+    }
+
+    private int indexOf(final Token token) {
+        if (this.size == 0) {
+            return -1;
+        }
+        final int hash = hash(token);
+        final int mask = this.tokens.length - 1;
+        for (int i = hash & mask; this.tokens[i] != null; i = i + 1 & mask) {
+            if (this.hashes[i] == hash && this.tokens[i].equals(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(final Token token, final int hash) {
+        final int mask = this.tokens.length - 1;
+        int i = hash & mask;
+        while (this.tokens[i] != null) {
+            i = i + 1 & mask;
+        }
+        this.tokens[i] = token;
+        this.hashes[i] = hash;
+    }
+
+    /**
+     * Empties a slot and moves the following tokens of its run back, so that every token
+     * can still be reached from its home slot without markers for removed tokens.
+     */
+    private void delete(final int index) {
+        final int mask = this.tokens.length - 1;
+        int gap = index;
+        for (int i = index + 1 & mask; this.tokens[i] != null; i = i + 1 & mask) {
+            final int home = this.hashes[i] & mask;
+            // The token may move to the gap if its home slot is not between the gap and it
+            final boolean isBetween = gap < i ? gap < home && home <= i : gap < home || home <= i;
+            if (!isBetween) {
+                this.tokens[gap] = this.tokens[i];
+                this.hashes[gap] = this.hashes[i];
+                gap = i;
+            }
+        }
+        this.tokens[gap] = null;
+        this.hashes[gap] = 0;
+    }
+
+    private void resize(final int capacity) {
+        final Token[] oldTokens = this.tokens;
+        final int[] oldHashes = this.hashes;
+        this.tokens = new Token[capacity];
+        this.hashes = new int[capacity];
+        for (int i = 0; i < oldTokens.length; i++) {
+            if (oldTokens[i] != null) {
+                insert(oldTokens[i], oldHashes[i]);
+            }
+        }
+    }
+}
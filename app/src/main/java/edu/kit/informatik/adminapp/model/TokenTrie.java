@@ -0,0 +1,339 @@
+package edu.kit.informatik.adminapp.model;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class represents an immutable set of tokens. Adding or removing a token returns
+ * a new set that shares all of its structure with this set except the path to the token,
+ * so a change copies a few small arrays instead of the whole set.
+ *
+ * <p>The set is a hash trie: every level selects one of 32 children by 5 bits of the
+ * hash code of a token. A child is a single token, or a node with more levels if several
+ * tokens share the bits. Tokens with the same hash code are kept in a collision node
+ * below the last level. A node that is left with a single token is replaced by the token,
+ * so that the shape of the trie only depends on its tokens.
+ *
+ * <p>The set does not permit {@code null}. Since it cannot be changed, it can be shared
+ * between threads without synchronization.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class TokenTrie extends AbstractSet<Token> {
+    /** The empty set. */
+    static final TokenTrie EMPTY = new TokenTrie(BitmapNode.EMPTY, 0, 0);
+
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+    private final Node root;
+    private final int size;
+    private final int hashCode;     // the sum of the hash codes of the tokens
+
+    private TokenTrie(final Node root, final int size, final int hashCode) {
+        this.root = root;
+        this.size = size;
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * Returns a set with the tokens of this set and a token.
+     *
+     * @param token the token
+     * @return  the set, or this set if it already contains the token
+     */
+    TokenTrie with(final Token token) {
+        final int hash = token.hashCode();
+        final Node root = this.root.with(token, hash, 0);
+        return root == this.root
+                ? this : new TokenTrie(root, this.size + 1, this.hashCode + hash);
+    }
+
+    /**
+     * Returns a set with the tokens of this set except a token.
+     *
+     * @param token the token
+     * @return  the set, or this set if it does not contain the token
+     */
+    TokenTrie without(final Token token) {
+        final int hash = token.hashCode();
+        final Node root = this.root.without(token, hash, 0);
+        if (root == this.root) {
+            return this;
+        }
+        return this.size == 1 ? EMPTY : new TokenTrie(root, this.size - 1, this.hashCode - hash);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        if (!(o instanceof Token)) {
+            return false;
+        }
+        return this.root.contains((Token) o, o.hashCode(), 0);
+    }
+
+    @Override
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+            // the entries of the nodes on the path to the next token, and the index in them
+            private final Deque<Object[]> entries = new ArrayDeque<>();
+            private final Deque<Integer> indices = new ArrayDeque<>();
+            private Token next;
+
+            {
+                this.entries.push(TokenTrie.this.root.entries());
+                this.indices.push(0);
+                advance();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public Token next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+                final Token token = this.next;
+                advance();
+                return token;
+            }
+
+            private void advance() {
+                this.next = null;
+                while (this.next == null && !this.entries.isEmpty()) {
+                    final Object[] current = this.entries.peek();
+                    final int index = this.indices.pop();
+                    if (index == current.length) {
+                        this.entries.pop();
+                        continue;
+                    }
+                    this.indices.push(index + 1);
+                    final Object entry = current[index];
+                    if (entry instanceof Token) {
+                        this.next = (Token) entry;
+                    } else {
+                        this.entries.push(((Node) entry).entries());
+                        this.indices.push(0);
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    /**
+     * Returns the token that is the only entry of a node, or {@code null}.
+     */
+    private static Token single(final Node node) {
+        final Object[] entries = node.entries();
+        return entries.length == 1 && entries[0] instanceof Token ? (Token) entries[0] : null;
+    }
+
+    /**
+     * This class represents a node of the trie. Nodes are never changed.
+     */
+    private abstract static class Node {
+        abstract boolean contains(Token token, int hash, int shift);
+
+        /** Returns a node with the token, or this node if it contains the token. */
+        abstract Node with(Token token, int hash, int shift);
+
+        /** Returns a node without the token, or this node if it does not contain the token. */
+        abstract Node without(Token token, int hash, int shift);
+
+        /** Returns the tokens and child nodes, which must not be changed. */
+        abstract Object[] entries();
+    }
+
+    /**
+     * This class represents a node whose entries are selected by the bits of the hash code
+     * at its level. The bitmap has a bit for every selection that is used, and the entries
+     * are ordered by their bit.
+     */
+    private static final class BitmapNode extends Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] entries;
+
+        BitmapNode(final int bitmap, final Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        @Override
+        boolean contains(final Token token, final int hash, final int shift) {
+            final int bit = bit(hash, shift);
+            if ((this.bitmap & bit) == 0) {
+                return false;
+            }
+            final Object entry = this.entries[index(bit)];
+            return entry instanceof Token
+                    ? entry.equals(token)
+                    : ((Node) entry).contains(token, hash, shift + BITS_PER_LEVEL);
+        }
+
+        @Override
+        Node with(final Token token, final int hash, final int shift) {
+            final int bit = bit(hash, shift);
+            final int index = index(bit);
+            if ((this.bitmap & bit) == 0) {
+                final Object[] entries = new Object[this.entries.length + 1];
+                System.arraycopy(this.entries, 0, entries, 0, index);
+                entries[index] = token;
+                System.arraycopy(this.entries, index, entries, index + 1,
+                        this.entries.length - index);
+                return new BitmapNode(this.bitmap | bit, entries);
+            }
+
+            final Object entry = this.entries[index];
+            final Node child;
+            if (entry instanceof Token) {
+                if (entry.equals(token)) {
+                    return this;
+                }
+                child = merge((Token) entry, entry.hashCode(), token, hash,
+                        shift + BITS_PER_LEVEL);
+            } else {
+                child = ((Node) entry).with(token, hash, shift + BITS_PER_LEVEL);
+                if (child == entry) {
+                    return this;
+                }
+            }
+            return replace(index, child);
+        }
+
+        @Override
+        Node without(final Token token, final int hash, final int shift) {
+            final int bit = bit(hash, shift);
+            if ((this.bitmap & bit) == 0) {
+                return this;
+            }
+            final int index = index(bit);
+            final Object entry = this.entries[index];
+            if (entry instanceof Token) {
+                if (!entry.equals(token)) {
+                    return this;
+                }
+                final Object[] entries = new Object[this.entries.length - 1];
+                System.arraycopy(this.entries, 0, entries, 0, index);
+                System.arraycopy(this.entries, index + 1, entries, index,
+                        entries.length - index);
+                return new BitmapNode(this.bitmap & ~bit, entries);
+            }
+
+            final Node child = ((Node) entry).without(token, hash, shift + BITS_PER_LEVEL);
+            if (child == entry) {
+                return this;
+            }
+            final Token single = single(child);
+            return replace(index, single != null ? single : child);
+        }
+
+        @Override
+        Object[] entries() {
+            return this.entries;
+        }
+
+        private BitmapNode replace(final int index, final Object entry) {
+            final Object[] entries = this.entries.clone();
+            entries[index] = entry;
+            return new BitmapNode(this.bitmap, entries);
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        private static int bit(final int hash, final int shift) {
+            return 1 << (hash >>> shift & LEVEL_MASK);
+        }
+
+        /**
+         * Returns a node with two different tokens at a level.
+         */
+        private static Node merge(final Token token1, final int hash1, final Token token2,
+                                  final int hash2, final int shift) {
+            if (shift >= Integer.SIZE) {
+                return new CollisionNode(new Token[]{token1, token2});
+            }
+            final int bit1 = bit(hash1, shift);
+            final int bit2 = bit(hash2, shift);
+            if (bit1 == bit2) {
+                return new BitmapNode(bit1, new Object[]{
+                        merge(token1, hash1, token2, hash2, shift + BITS_PER_LEVEL)});
+            }
+            return new BitmapNode(bit1 | bit2, Integer.compareUnsigned(bit1, bit2) < 0
+                    ? new Object[]{token1, token2} : new Object[]{token2, token1});
+        }
+    }
+
+    /**
+     * This class represents a node of tokens that have the same hash code.
+     */
+    private static final class CollisionNode extends Node {
+        private final Token[] tokens;
+
+        CollisionNode(final Token[] tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        boolean contains(final Token token, final int hash, final int shift) {
+            return indexOf(token) >= 0;
+        }
+
+        @Override
+        Node with(final Token token, final int hash, final int shift) {
+            if (indexOf(token) >= 0) {
+                return this;
+            }
+            final Token[] tokens = Arrays.copyOf(this.tokens, this.tokens.length + 1);
+            tokens[this.tokens.length] = token;
+            return new CollisionNode(tokens);
+        }
+
+        @Override
+        Node without(final Token token, final int hash, final int shift) {
+            final int index = indexOf(token);
+            if (index < 0) {
+                return this;
+            }
+            final Token[] tokens = new Token[this.tokens.length - 1];
+            System.arraycopy(this.tokens, 0, tokens, 0, index);
+            System.arraycopy(this.tokens, index + 1, tokens, index, tokens.length - index);
+            return new CollisionNode(tokens);
+        }
+
+        @Override
+        Object[] entries() {
+            return this.tokens;
+        }
+
+        private int indexOf(final Token token) {
+            for (int i = 0; i < this.tokens.length; i++) {
+                if (this.tokens[i].equals(token)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
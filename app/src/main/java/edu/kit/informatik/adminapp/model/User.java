@@ -4,10 +4,8 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Objects;
 
 /**
@@ -34,7 +32,7 @@ public class User implements Parcelable {
 
     private final Name name;
     private final UserId uid;
-    private Collection<Token> tokens;
+    private final TokenSet tokens;
 
     /**
      * Creates a new user.
@@ -46,7 +44,7 @@ public class User implements Parcelable {
     public User(final Name name, final UserId uid, final Token... tokens) {
         this.name = name;
         this.uid = uid;
-        this.tokens = new HashSet<>(Arrays.asList(tokens));
+        this.tokens = new TokenSet(tokens);
     }
 
     private User(final Parcel in) {
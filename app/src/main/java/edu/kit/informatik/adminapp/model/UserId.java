@@ -4,6 +4,7 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 import edu.kit.informatik.adminapp.model.resources.Errors;
 
@@ -24,7 +25,7 @@ public class UserId implements Parcelable {
     public static final Creator<UserId> CREATOR = new Creator<UserId>() {
         @Override
         public UserId createFromParcel(final Parcel in) {
-            return new UserId(in);
+            return of(in.readString());
         }
 
         @Override
@@ -33,6 +34,9 @@ public class UserId implements Parcelable {
         }
     };
 
+    private static final Pattern PATTERN = Pattern.compile(REGEX_USER_ID);
+    private static final Interner<String, UserId> INSTANCES = new Interner<>(UserId::new);
+
     private final String uid;
 
     /**
@@ -43,15 +47,24 @@ public class UserId implements Parcelable {
      * regex}
      */
     public UserId(final String uid) {
-        if (uid == null || !uid.matches(REGEX_USER_ID)) {
+        if (uid == null || !PATTERN.matcher(uid).matches()) {
             throw new IllegalArgumentException(
                     String.format(Errors.REGEX_NOT_MATCHED, uid, REGEX_USER_ID));
         }
         this.uid = uid;
     }
 
-    private UserId(final Parcel in) {
-        this(in.readString());
+    /**
+     * Returns a user ID that is shared with every other user ID created by this method for the
+     * same value, and checks whether it conforms to the {@link #REGEX_USER_ID regex}.
+     *
+     * @param uid   the user ID
+     * @return  the shared user ID
+     * @throws IllegalArgumentException if {@code uid} does not conform to the {@link #REGEX_USER_ID
+     * regex}
+     */
+    public static UserId of(final String uid) {
+        return INSTANCES.intern(uid);
     }
 
     @Override
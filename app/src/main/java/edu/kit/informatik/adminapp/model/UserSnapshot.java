@@ -0,0 +1,150 @@
+package edu.kit.informatik.adminapp.model;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class represents the state of a user at one point in time. Unlike a {@link User},
+ * a snapshot cannot be changed: changing its tokens returns a new snapshot, which shares
+ * the unchanged tokens with this one. A snapshot can therefore be read by any thread,
+ * e.g. by the UI thread while a background thread derives the next snapshot, without
+ * locks or copies, and its hash code never changes.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public final class UserSnapshot {
+    private final Name name;
+    private final UserId uid;
+    private final TokenTrie tokens;
+
+    private UserSnapshot(final Name name, final UserId uid, final TokenTrie tokens) {
+        this.name = name;
+        this.uid = uid;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Creates a new snapshot of a user.
+     *
+     * @param name      the name of the user
+     * @param uid       the ID of the user
+     * @param tokens    the tokens of the user
+     */
+    public UserSnapshot(final Name name, final UserId uid, final Token... tokens) {
+        this.name = name;
+        this.uid = uid;
+        TokenTrie trie = TokenTrie.EMPTY;
+        for (final Token token : tokens) {
+            trie = trie.with(token);
+        }
+        this.tokens = trie;
+    }
+
+    /**
+     * Returns a snapshot of the current state of a user.
+     *
+     * @param user  the user
+     * @return  the snapshot
+     */
+    public static UserSnapshot of(final User user) {
+        TokenTrie tokens = TokenTrie.EMPTY;
+        for (final Token token : user.getTokens()) {
+            tokens = tokens.with(token);
+        }
+        return new UserSnapshot(user.getName(), user.getId(), tokens);
+    }
+
+    /**
+     * Returns the name of the user.
+     *
+     * @return  the name of the user
+     */
+    public Name getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the ID of the user.
+     *
+     * @return  the ID of the user
+     */
+    public UserId getId() {
+        return this.uid;
+    }
+
+    /**
+     * Returns the tokens of the user as a set that cannot be changed.
+     *
+     * @return  the tokens of the user
+     */
+    public Set<Token> getTokens() {
+        return this.tokens;
+    }
+
+    /**
+     * Returns a snapshot in which the user additionally owns a token.
+     *
+     * @param token the token
+     * @return  the new snapshot, or this snapshot if the user already owns the token
+     */
+    public UserSnapshot withToken(final Token token) {
+        final TokenTrie tokens = this.tokens.with(token);
+        return tokens == this.tokens ? this : new UserSnapshot(this.name, this.uid, tokens);
+    }
+
+    /**
+     * Returns a snapshot in which the user does not own a token.
+     *
+     * @param token the token
+     * @return  the new snapshot, or this snapshot if the user does not own the token
+     */
+    public UserSnapshot withoutToken(final Token token) {
+        final TokenTrie tokens = this.tokens.without(token);
+        return tokens == this.tokens ? this : new UserSnapshot(this.name, this.uid, tokens);
+    }
+
+    /**
+     * Returns a snapshot in which the user owns no tokens.
+     *
+     * @return  the new snapshot, or this snapshot if the user owns no tokens
+     */
+    public UserSnapshot withoutTokens() {
+        return this.tokens.isEmpty()
+                ? this : new UserSnapshot(this.name, this.uid, TokenTrie.EMPTY);
+    }
+
+    /**
+     * Returns a new user with the state of this snapshot, which can be changed independently
+     * of the snapshot.
+     *
+     * @return  the user
+     */
+    public User toUser() {
+        return new User(this.name, this.uid, this.tokens.toArray(new Token[0]));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final UserSnapshot snapshot = (UserSnapshot) o;
+        return Objects.equals(this.name, snapshot.name) && Objects.equals(this.uid, snapshot.uid)
+                && this.tokens.equals(snapshot.tokens);
+    }
+
+    /**
+     * Returns the hash code, which is the hash code of a {@link User} in the same state.
+     *
+     * @return  the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.name, this.uid, this.tokens);
+    }
+
+    @Override
+    public String toString() {
+        return this.name.toString();
+    }
+}
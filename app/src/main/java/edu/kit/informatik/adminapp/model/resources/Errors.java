@@ -15,4 +15,7 @@ public final class Errors {
      * Format includes the expected number of parameters. */
     public static final String WRONG_NUMBER_SEARCH_ARGUMENTS
             = "can only search for '%d' arguments";
+    /** Error message for a page of a search that cannot hold a user.
+     * Format includes the incorrect page size. */
+    public static final String NON_POSITIVE_PAGE_SIZE = "'%d' should be > 0";
 }
@@ -16,13 +16,12 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.preference.PreferenceManager;
 
-import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 import edu.kit.informatik.adminapp.R;
+import edu.kit.informatik.adminapp.controller.server.AsyncServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.CachingServerAdapter;
 import edu.kit.informatik.adminapp.controller.server.PiAdapter;
 import edu.kit.informatik.adminapp.controller.server.ServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.ThreadedServerAdapter;
 import edu.kit.informatik.adminapp.core.Output;
 import edu.kit.informatik.adminapp.model.Hostname;
 import edu.kit.informatik.adminapp.model.Milliseconds;
@@ -45,7 +44,7 @@ public class LoginActivity extends AppCompatActivity {
             () -> ((TextView) findViewById(R.id.mainActivityErrorOutput)).setText(message));
 
     private ServerAdapter serverAdapter;
-    private ExecutorService executor;
+    private AsyncServerAdapter server;
     private EditText loginName;
     private EditText password;
     private Button loginButton;
@@ -119,15 +118,21 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     /**
-     * Attempts to establish a connection to the server in a new thread.
+     * Attempts to establish a connection to the server in the background.
      * If the connection fails, an appropriate error message is displayed.
      */
     @Override
     protected void onStart() {
         super.onStart();
         createServer(); // If server settings have changed
-        this.executor = Executors.newSingleThreadExecutor(); // To process tasks sequentially
-        this.executor.submit(this::connect);
+        this.server = new ThreadedServerAdapter(this.serverAdapter);
+        this.server.connect().whenComplete((Void result, Throwable error) -> {
+            if (error == null) {
+                clearErrorMessage(); // Remove connection error message
+            } else {
+                errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+            }
+        });
     }
 
     private void createServer() {
@@ -142,18 +147,8 @@ public class LoginActivity extends AppCompatActivity {
         Milliseconds timeout = new Milliseconds(Integer.parseInt(preferences.getString(
                 getString(R.string.fragment_preferences_timeout_key),
                 getString(R.string.fragment_preferences_timeout_default_value))));
-        this.serverAdapter = new PiAdapter(hostname, port, timeout);
-    }
-
-    private void connect() {
-        try {
-            if (!this.serverAdapter.isConnected()) {
-                this.serverAdapter.connect();
-            }
-            clearErrorMessage(); // Remove connection error message
-        } catch (IOException e) {
-            errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
-        }
+        // Returning to a screen reuses the users that have just been fetched
+        this.serverAdapter = new CachingServerAdapter(new PiAdapter(hostname, port, timeout));
     }
 
     private void clearErrorMessage() {
@@ -164,25 +159,20 @@ public class LoginActivity extends AppCompatActivity {
         try {
             this.serverAdapter.set(new UserId(this.loginName.getText().toString()));
             this.serverAdapter.set(new Password(this.password.getText().toString()));
-            this.executor.submit(this::login);
+            this.server.isAuthenticated().whenComplete(this::onLoginResult);
         } catch (IllegalArgumentException e) {
             errorOutput.output(getString(R.string.ERROR_AUTHENTIFICATION_FAILED));
         }
     }
 
-    private void login() {
-        try {
-            if (!this.serverAdapter.isConnected()) {
-                this.serverAdapter.connect();
-            }
-            if (this.serverAdapter.isAuthenticated()) {
-                clearErrorMessage();    // Remove authentication error message
-                startSearchUserActivity();
-            } else {
-                errorOutput.output(getString(R.string.ERROR_AUTHENTIFICATION_FAILED));
-            }
-        } catch (IOException e) {
+    private void onLoginResult(final Boolean isAuthenticated, final Throwable error) {
+        if (error != null) {
             errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+        } else if (isAuthenticated) {
+            clearErrorMessage();    // Remove authentication error message
+            startSearchUserActivity();
+        } else {
+            errorOutput.output(getString(R.string.ERROR_AUTHENTIFICATION_FAILED));
         }
     }
 
@@ -193,20 +183,13 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     /**
-     * Closes the connection to the server.
+     * Returns the connection to the server to the connection pool, so that the next
+     * activity can reuse it.
      */
     @Override
     protected void onStop() {
         super.onStop();
-        this.executor.submit(this::close);
-        this.executor.shutdown();
-    }
-
-    private void close() {
-        try {
-            this.serverAdapter.close();
-        } catch (IOException e) {
-            // No way to handle the error
-        }
+        // No way to handle an error while closing
+        this.server.close();
     }
 }
@@ -4,7 +4,10 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
@@ -12,18 +15,28 @@ import android.widget.EditText;
 import android.widget.ListView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.io.IOException;
-import java.util.Collection;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import edu.kit.informatik.adminapp.R;
+import edu.kit.informatik.adminapp.controller.server.AsyncServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.SearchCursor;
+import edu.kit.informatik.adminapp.controller.server.SearchPage;
 import edu.kit.informatik.adminapp.controller.server.ServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.ThreadedServerAdapter;
+import edu.kit.informatik.adminapp.controller.store.DirectoryStore;
+import edu.kit.informatik.adminapp.controller.store.TokenJournal;
 import edu.kit.informatik.adminapp.core.Output;
 import edu.kit.informatik.adminapp.model.Attribute;
 import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+import edu.kit.informatik.adminapp.model.UserSnapshot;
 import edu.kit.informatik.adminapp.model.resources.Extras;
 
 /**
@@ -36,19 +49,29 @@ public class SearchUserActivity extends AppCompatActivity {
     // ATTRIBUTE_KEY_USER_NAME, BASE are not used by PiAdapter
     private static final String ATTRIBUTE_KEY_USER_NAME = "sn";
     private static final String BASE = "";
+    // the users are loaded in pages as the list is scrolled through
+    private static final int PAGE_SIZE = 50;
+    // the next page is loaded once no more than this many users are left below the list
+    private static final int LOAD_AHEAD = 10;
     private final Output errorOutput = (String message) -> runOnUiThread(
             () -> Toast.makeText(this, message, Toast.LENGTH_LONG).show());
 
     private ServerAdapter serverAdapter;
-    private ExecutorService executor;
+    private AsyncServerAdapter server;
+    private CompletableFuture<SearchPage> pendingSearch;
+    private int searchNumber;   // identifies the search whose users are displayed
+    private Attribute searchAttribute;
+    private SearchCursor nextPage;  // null if all users of the search are displayed
+    private DirectoryStore store;
+    private boolean isShowingStoredUsers;   // until the server has answered the search
     private EditText searchName;
     private Button searchButton;
     private ListView userList;
-    private ArrayAdapter<User> userListAdapter;
+    private ArrayAdapter<UserSnapshot> userListAdapter;
 
     /**
      * Loads the view elements of the activity and attempts to establish a connection to
-     * the server in a new thread. If the connection fails, an appropriate error message
+     * the server in the background. If the connection fails, an appropriate error message
      * is displayed.
      *
      * @param savedInstanceState    contains the state of a previously saved activity,
@@ -59,8 +82,9 @@ public class SearchUserActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_search_user);
 
-        this.executor = Executors.newSingleThreadExecutor(); // To process tasks sequentially
         this.serverAdapter = getIntent().getParcelableExtra(Extras.EXTRA_SERVER_ADAPTER);
+        this.server = new ThreadedServerAdapter(this.serverAdapter);
+        this.store = DirectoryStore.open(new File(getFilesDir(), DirectoryStore.FILE_NAME));
         this.searchName = findViewById(R.id.activity_search_user_et_searchName);
         this.searchButton = findViewById(R.id.activity_search_user_btn_search);
         this.userList = findViewById(R.id.activity_search_user_lv_users);
@@ -90,17 +114,70 @@ public class SearchUserActivity extends AppCompatActivity {
                 this, android.R.layout.simple_list_item_1);
         this.userList.setAdapter(this.userListAdapter);
         this.userList.setOnItemClickListener(this::onItemClick);
+        this.userList.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(final AbsListView view, final int scrollState) {}
+
+            @Override
+            public void onScroll(final AbsListView view, final int firstVisibleItem,
+                                 final int visibleItemCount, final int totalItemCount) {
+                if (firstVisibleItem + visibleItemCount + LOAD_AHEAD >= totalItemCount) {
+                    loadNextPage();
+                }
+            }
+        });
 
         // connect() cannot be called in onStart() because connect() must also be called in
         // onRestart(), which could result in connect() being called twice
-        this.executor.submit(this::connect);
+        this.server.connect().whenComplete((Void result, Throwable error) -> {
+            if (error != null) {
+                errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+                return;
+            }
+            // Changes of tokens that could not be sent earlier are sent now
+            final TokenJournal journal = TokenJournal.open(
+                    new File(getFilesDir(), TokenJournal.FILE_NAME));
+            if (!journal.isEmpty()) {
+                journal.replay(this.server);
+            }
+        });
+    }
+
+    /**
+     * Initializes the content of the options menu of the activity.
+     *
+     * @param menu  the menu in which the content is placed
+     * @return  {@code true}
+     */
+    @Override
+    public boolean onCreateOptionsMenu(final Menu menu) {
+        getMenuInflater().inflate(R.menu.activity_search_user, menu);
+        return true;
+    }
+
+    /**
+     * Starts {@link TokenOwnerActivity} if the menu for finding the owner of a token
+     * is clicked.
+     *
+     * @param item  the MenuItem that was clicked
+     * @return  {@code true}
+     */
+    @Override
+    public boolean onOptionsItemSelected(@NonNull final MenuItem item) {
+        if (item.getItemId() == R.id.activity_search_user_item_token_owner) {
+            Intent intent = new Intent(this, TokenOwnerActivity.class);
+            intent.putExtra(Extras.EXTRA_SERVER_ADAPTER, this.serverAdapter);
+            startActivity(intent);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
     }
 
     private void onItemClick(final AdapterView<?> adapterView,
                              final View view, final int position, final long id) {
         Intent intent = new Intent(this, ShowUserActivity.class);
         intent.putExtra(Extras.EXTRA_SERVER_ADAPTER, this.serverAdapter)
-                .putExtra(Extras.EXTRA_USER, this.userListAdapter.getItem(position));
+                .putExtra(Extras.EXTRA_USER, this.userListAdapter.getItem(position).toUser());
         startActivity(intent);
     }
 
@@ -113,40 +190,97 @@ public class SearchUserActivity extends AppCompatActivity {
     }
 
     private void onSearchButtonClick() {
-        this.executor.submit(this::searchForUsers);
+        clearUserList();    // Clear previous search results
+        if (this.pendingSearch != null) {
+            // The results of the previous search are no longer needed
+            this.pendingSearch.cancel(false);
+        }
+
+        // Users of a previous search that are still being received are not displayed
+        ++this.searchNumber;
+        this.searchAttribute = new Attribute(
+                ATTRIBUTE_KEY_USER_NAME, this.searchName.getText().toString());
+        this.nextPage = null;
+
+        // Stored users are displayed immediately and replaced once the server answers
+        final List<UserSnapshot> storedUsers = this.store.find(this.searchAttribute.getValue());
+        this.userListAdapter.addAll(storedUsers);
+        this.isShowingStoredUsers = !storedUsers.isEmpty();
+        loadPage(null);
     }
 
-    private void searchForUsers() {
-        runOnUiThread(() -> clearUserList());    // Clear previous search results
-        try {
-            if (!this.serverAdapter.isConnected()) {
-                this.serverAdapter.connect();
-            }
-            Attribute searchAttribute = new Attribute(
-                    ATTRIBUTE_KEY_USER_NAME, this.searchName.getText().toString());
-            Collection<User> users = this.serverAdapter.search(BASE, searchAttribute);
-            if (users != null && users.size() > 0) {
-                runOnUiThread(() -> this.userListAdapter.addAll(users));
-            } else {
-                this.errorOutput.output(getString(R.string.ERROR_NO_ENTRY_FOUND));
-            }
-        } catch (IOException e) {
-            this.errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+    private void loadNextPage() {
+        // The list is extended by one page at a time
+        if (this.nextPage != null && this.pendingSearch == null) {
+            loadPage(this.nextPage);
         }
     }
 
-    private void clearUserList() {
-        this.userListAdapter.clear();
+    private void loadPage(final SearchCursor cursor) {
+        final int search = this.searchNumber;
+        this.pendingSearch = this.server.search(BASE, PAGE_SIZE, cursor,
+                (User user) -> runOnUiThread(() -> onUserFound(search, user)),
+                this.searchAttribute);
+        this.pendingSearch.whenComplete((SearchPage page, Throwable error) -> runOnUiThread(
+                () -> onPageLoaded(search, cursor == null, page, error)));
     }
 
-    private void connect() {
-        try {
-            if (!this.serverAdapter.isConnected()) {
-                serverAdapter.connect();
-            }
-        } catch (IOException e) {
-            errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+    private void onUserFound(final int search, final User user) {
+        if (search != this.searchNumber) {
+            return;
+        }
+        if (this.isShowingStoredUsers) {
+            clearUserList();
+            this.isShowingStoredUsers = false;
         }
+        final UserSnapshot snapshot = UserSnapshot.of(user);
+        this.userListAdapter.add(snapshot);
+        this.store.put(snapshot);
+    }
+
+    private void onPageLoaded(final int search, final boolean isFirstPage,
+                              final SearchPage page, final Throwable error) {
+        if (search != this.searchNumber || error instanceof CancellationException
+                || error instanceof CompletionException
+                && error.getCause() instanceof CancellationException) {
+            // A newer search has been started
+            return;
+        }
+
+        this.pendingSearch = null;
+        if (error != null) {
+            // The search is not continued, so that scrolling does not repeat the error.
+            // Stored users stay displayed while the server cannot be reached
+            this.nextPage = null;
+            this.errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+            return;
+        }
+        if (isFirstPage && page.getUserCount() == 0) {
+            removeStoredUsers();
+            this.errorOutput.output(getString(R.string.ERROR_NO_ENTRY_FOUND));
+        }
+        this.nextPage = page.getNext();
+        // The list may not be long enough to be scrolled
+        if (this.userList.getLastVisiblePosition() + LOAD_AHEAD
+                >= this.userListAdapter.getCount() - 1) {
+            loadNextPage();
+        }
+    }
+
+    private void removeStoredUsers() {
+        if (this.isShowingStoredUsers) {
+            clearUserList();
+            this.isShowingStoredUsers = false;
+        }
+        // The server searches by user ID, a user with the ID no longer exists
+        final String query = this.searchAttribute.getValue();
+        if (query.matches(UserId.REGEX_USER_ID)) {
+            this.store.remove(new UserId(query));
+        }
+    }
+
+    private void clearUserList() {
+        this.userListAdapter.clear();
     }
 
     /**
@@ -157,25 +291,18 @@ public class SearchUserActivity extends AppCompatActivity {
     @Override
     protected void onRestart() {
         super.onRestart();
-        this.executor = Executors.newSingleThreadExecutor(); // To process tasks sequentially
+        this.server = new ThreadedServerAdapter(this.serverAdapter);
         onSearchButtonClick();
     }
 
     /**
-     * Closes the connection to the server.
+     * Returns the connection to the server to the connection pool, so that the next
+     * activity can reuse it.
      */
     @Override
     protected void onStop() {
         super.onStop();
-        this.executor.submit(this::close);
-        this.executor.shutdown();
-    }
-
-    private void close() {
-        try {
-            this.serverAdapter.close();
-        } catch (IOException e) {
-            // No way to handle the error
-        }
+        // No way to handle an error while closing
+        this.server.close();
     }
 }
@@ -2,10 +2,7 @@ package edu.kit.informatik.adminapp.view;
 
 import android.app.PendingIntent;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.nfc.NfcAdapter;
-import android.nfc.Tag;
-import android.nfc.tech.MifareClassic;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.MenuItem;
@@ -19,22 +16,24 @@ import androidx.annotation.RequiresApi;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.io.IOException;
+import java.io.File;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 import edu.kit.informatik.adminapp.R;
-import edu.kit.informatik.adminapp.controller.HashFunction;
-import edu.kit.informatik.adminapp.controller.SHA256;
+import edu.kit.informatik.adminapp.controller.server.AddTokenResult;
+import edu.kit.informatik.adminapp.controller.server.AsyncServerAdapter;
 import edu.kit.informatik.adminapp.controller.server.ServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.ThreadedServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.TokenChange;
+import edu.kit.informatik.adminapp.controller.store.DirectoryStore;
+import edu.kit.informatik.adminapp.controller.store.TokenJournal;
 import edu.kit.informatik.adminapp.core.Output;
-import edu.kit.informatik.adminapp.model.Attribute;
 import edu.kit.informatik.adminapp.model.Token;
-import edu.kit.informatik.adminapp.model.TokenId;
 import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserSnapshot;
 import edu.kit.informatik.adminapp.model.resources.Extras;
 
 /**
@@ -45,16 +44,6 @@ import edu.kit.informatik.adminapp.model.resources.Extras;
  * @version 1.0
  */
 public class ShowUserActivity extends AppCompatActivity {
-    // ATTRIBUTE_KEY_USER_NAME, BASE are not used by PiAdapter
-    private static final String ATTRIBUTE_KEY_UID = "?";
-    private static final String BASE = "?";
-    // Defines filters and technologies for NFC tag detection
-    private static final IntentFilter[] INTENT_FILTERS = new IntentFilter[]{
-            new IntentFilter(NfcAdapter.ACTION_TECH_DISCOVERED)};
-    private static final String[][] TECH_LIST = new String[][]{
-            new String[]{MifareClassic.class.getName()}};
-    // Hash function used to encrypt the NFC token ID
-    private static final HashFunction HASH_FUNCTION = new SHA256();
     private final Output errorOutput = (String message) -> runOnUiThread(
             () -> Toast.makeText(this, message, Toast.LENGTH_LONG).show());
 
@@ -62,9 +51,30 @@ public class ShowUserActivity extends AppCompatActivity {
     private TextView activity_showUser_tv_tokens;
     private Button deleteTokenButton;
 
-    private ExecutorService executor;
+    private AsyncServerAdapter server;
     private ServerAdapter serverAdapter;
-    private User user;
+    // replaced by the I/O threads and read by the UI thread
+    private final AtomicReference<UserSnapshot> user = new AtomicReference<>();
+    // identifies the displayed user in requests, which only send its ID and name
+    private User requestUser;
+    private DirectoryStore store;
+    private TokenJournal journal;   // changes that wait until the server can be reached
+    private final TokenJournal.Listener rejections = new TokenJournal.Listener() {
+        @Override
+        public void onRejected(final TokenChange change) {
+            final Token token = change.getToken();
+            undo(change.getUser(), change.getKind() == TokenChange.Kind.ADD
+                    ? (UserSnapshot user) -> user.withoutToken(token)
+                    : (UserSnapshot user) -> user.withToken(token));
+        }
+
+        @Override
+        public void onRemoveAllRejected(final User user) {
+            // The removed tokens are unknown, the user is searched again instead
+            store.remove(user.getId());
+            errorOutput.output(getString(R.string.ERROR_CHANGE_REJECTED, user.getName()));
+        }
+    };
 
     private NfcAdapter nfcAdapter;
     private PendingIntent pendingIntent; // Intent triggered when reading an NFC token
@@ -84,15 +94,18 @@ public class ShowUserActivity extends AppCompatActivity {
         this.activity_showUser_tv_tokens = findViewById(R.id.activity_show_user_et_tokens);
         this.deleteTokenButton = findViewById(R.id.activity_show_user_btn_delete);
         this.serverAdapter = getIntent().getParcelableExtra(Extras.EXTRA_SERVER_ADAPTER);
-        this.user = getIntent().getParcelableExtra(Extras.EXTRA_USER);
+        final User shown = getIntent().getParcelableExtra(Extras.EXTRA_USER);
+        this.user.set(UserSnapshot.of(shown));
+        this.requestUser = new User(shown.getName(), shown.getId());
+        this.store = DirectoryStore.open(new File(getFilesDir(), DirectoryStore.FILE_NAME));
+        this.journal = TokenJournal.open(new File(getFilesDir(), TokenJournal.FILE_NAME));
         this.nfcAdapter = NfcAdapter.getDefaultAdapter(this);
         Intent intent = new Intent(
                 this, getClass()).addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
         this.pendingIntent = PendingIntent.getActivity(
                 this, 0, intent, PendingIntent.FLAG_MUTABLE);
 
-        this.deleteTokenButton.setOnClickListener(
-                (View view) -> executor.submit(this::onDeleteTokenClick));
+        this.deleteTokenButton.setOnClickListener((View view) -> onDeleteTokenClick());
 
         // Enables the home button in the toolbar
         ActionBar actionBar = getSupportActionBar();
@@ -118,30 +131,80 @@ public class ShowUserActivity extends AppCompatActivity {
     }
 
     private void onDeleteTokenClick() {
-        this.executor.submit(this::deleteAllTokens);
+        // Changes must not overtake the changes that wait in the journal
+        if (!this.journal.isEmpty()) {
+            enqueue(this.journal.removeAllTokens(this.requestUser),
+                    UserSnapshot::withoutTokens);
+            return;
+        }
+
+        this.server.removeAllTokens(this.requestUser)
+                .whenComplete((Void result, Throwable error) -> {
+                    if (error == null) {
+                        update(UserSnapshot::withoutTokens);
+                    } else if (ServerAdapter.isUnreachable(error)) {
+                        enqueue(this.journal.removeAllTokens(this.requestUser),
+                                UserSnapshot::withoutTokens);
+                    } else {
+                        errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+                    }
+                });
     }
 
-    private void deleteAllTokens() {
-        try {
-            if (!this.serverAdapter.isConnected()) {
-                this.serverAdapter.connect();
+    /**
+     * Applies a change that has been recorded in the journal to the displayed user once it
+     * has been written, and starts sending the journal.
+     */
+    private void enqueue(final CompletableFuture<Void> written,
+                         final UnaryOperator<UserSnapshot> change) {
+        written.whenComplete((Void result, Throwable error) -> {
+            if (error != null) {
+                errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+                return;
+            }
+
+            update(change);
+            errorOutput.output(getString(R.string.activity_show_user_change_queued));
+            this.journal.replay(this.server);
+        });
+    }
+
+    /**
+     * Undoes a change the server has rejected after it had been applied on the device,
+     * and reports it.
+     */
+    private void undo(final User changed, final UnaryOperator<UserSnapshot> undo) {
+        if (changed.getId().equals(this.user.get().getId())) {
+            update(undo);
+        } else {
+            final UserSnapshot stored = this.store.get(changed.getId());
+            if (stored != null) {
+                this.store.put(undo.apply(stored));
             }
-            serverAdapter.removeAllTokens(user);
-            this.user.removeAllTokens();
-            runOnUiThread(this::updateView);
-        } catch (IOException e) {
-            errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
         }
+        errorOutput.output(getString(R.string.ERROR_CHANGE_REJECTED, changed.getName()));
+    }
+
+    /**
+     * Replaces the displayed user by a changed snapshot, stores it and updates the view.
+     * Changes from several threads are applied one after another.
+     */
+    private void update(final UnaryOperator<UserSnapshot> change) {
+        final UserSnapshot user = this.user.updateAndGet(change);
+        this.store.put(user);
+        runOnUiThread(this::updateView);
     }
 
     private void updateView() {
-        this.activity_showUser_tv_name.setText(this.user.getName().toString());
-        this.activity_showUser_tv_tokens.setText(String.valueOf(this.user.getTokens().size()));
+        // A single snapshot, so that the name and the tokens belong together
+        final UserSnapshot user = this.user.get();
+        this.activity_showUser_tv_name.setText(user.getName().toString());
+        this.activity_showUser_tv_tokens.setText(String.valueOf(user.getTokens().size()));
     }
 
     /**
      * Checks if NFC is enabled and attempts to establish a connection to the server
-     * in a new thread.
+     * in the background.
      * If NFC is not enabled or no connection to the server is possible, an appropriate
      * error message is displayed.
      */
@@ -153,18 +216,15 @@ public class ShowUserActivity extends AppCompatActivity {
             this.errorOutput.output(getString(R.string.ERROR_NFC_DISABLED));
         }
 
-        this.executor = Executors.newSingleThreadExecutor(); // To process tasks sequentially
-        this.executor.submit(this::connect);
-    }
-
-    private void connect() {
-        try {
-            if (!this.serverAdapter.isConnected()) {
-                this.serverAdapter.connect();
+        this.server = new ThreadedServerAdapter(this.serverAdapter);
+        this.journal.setListener(this.rejections);
+        this.server.connect().whenComplete((Void result, Throwable error) -> {
+            if (error != null) {
+                errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+            } else if (!this.journal.isEmpty()) {
+                this.journal.replay(this.server);
             }
-        } catch (IOException e) {
-            errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
-        }
+        });
     }
 
     /**
@@ -176,7 +236,7 @@ public class ShowUserActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
         this.nfcAdapter.enableForegroundDispatch(
-                this, this.pendingIntent, INTENT_FILTERS, TECH_LIST);
+                this, this.pendingIntent, TokenScanner.INTENT_FILTERS, TokenScanner.TECH_LIST);
     }
 
     @Override
@@ -198,43 +258,48 @@ public class ShowUserActivity extends AppCompatActivity {
         super.onNewIntent(intent);
 
         Token token = createHashedToken(intent);
-        if (token != null && !this.user.getTokens().contains(token)) {
-            this.executor.submit(() -> addToken(token));
+        if (token != null && !this.user.get().getTokens().contains(token)) {
+            addToken(token);
         }
     }
 
-    private void addToken(Token token) {
-        try {
-            if (!this.serverAdapter.isConnected()) {
-                this.serverAdapter.connect();
-            }
-            this.serverAdapter.addToken(this.user, token);
-
-            // Since only tokens not already stored on the server are added,
-            // we must check whether the addition was successful
-            Collection<Token> newTokens = new ArrayList<>(this.serverAdapter.search(
-                    BASE, new Attribute(ATTRIBUTE_KEY_UID, this.user.getId().toString())))
-                    .get(0).getTokens();
-            if (newTokens.contains(token)) {
-                // Adding was successful
-                this.user.add(token);
-                runOnUiThread(this::updateView);
-            } else {
-                errorOutput.output(getString(R.string.ERROR_ADD_FAILED));
-            }
-        } catch (IOException e) {
-            errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+    private void addToken(final Token token) {
+        if (!this.journal.isEmpty()) {
+            enqueue(this.journal.addToken(this.requestUser, token),
+                    (UserSnapshot user) -> user.withToken(token));
+            return;
         }
+
+        this.server.addToken(this.requestUser, token)
+                .whenComplete((AddTokenResult result, Throwable error) -> {
+                    if (error != null && ServerAdapter.isUnreachable(error)) {
+                        enqueue(this.journal.addToken(this.requestUser, token),
+                                (UserSnapshot user) -> user.withToken(token));
+                        return;
+                    }
+                    if (error != null) {
+                        errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+                        return;
+                    }
+
+                    switch (result) {
+                        case ADDED:
+                        case ALREADY_OWNED:
+                            update((UserSnapshot user) -> user.withToken(token));
+                            break;
+                        case OWNED_BY_OTHER:
+                            errorOutput.output(getString(R.string.ERROR_TOKEN_OWNED_BY_OTHER));
+                            break;
+                        default:
+                            errorOutput.output(getString(R.string.ERROR_ADD_FAILED));
+                            break;
+                    }
+                });
     }
 
     private Token createHashedToken(Intent intent) {
-        final Tag tag = intent.getParcelableExtra(NfcAdapter.EXTRA_TAG);
-        final byte[] bytes = tag.getId();
-        final String bytesToHex = bytesToHex(bytes);
-
         try {
-            String hashedHex = HASH_FUNCTION.hash(bytesToHex);
-            return new Token(new TokenId(hashedHex));
+            return TokenScanner.createHashedToken(intent);
         } catch (final NoSuchAlgorithmException e) {
             errorOutput.output(getString(R.string.ERROR_HASH_FAILURE));
             return null;
@@ -242,42 +307,15 @@ public class ShowUserActivity extends AppCompatActivity {
     }
 
     /**
-     * Converts a byte array into a hexadecimal string representation.
-     *
-     * Note: This method is adapted from
-     * https://stackoverflow.com/questions/9655181/
-     * how-to-convert-a-byte-array-to-a-hex-string-in-java
-     *
-     * @param bytes the byte array
-     * @return  the hexadecimal representation of {@code bytes}
-     */
-    private static String bytesToHex(final byte[] bytes) {
-        final char[] HEX_ARRAY = "0123456789abcdef".toCharArray();
-        final char[] hexChars = new char[bytes.length * 2];
-        for (int j = 0; j < bytes.length; j++) {
-            final int v = bytes[j] & 0xFF;
-            hexChars[j * 2] = HEX_ARRAY[v >>> 4];
-            hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
-        }
-        return new String(hexChars);
-    }
-
-    /**
-     * Closes the connection to the server.
+     * Returns the connection to the server to the connection pool, so that the next
+     * activity can reuse it.
      */
     @Override
     protected void onStop() {
         super.onStop();
-        this.executor.submit(this::close);
-        this.executor.shutdown();
-    }
-
-    private void close() {
-        try {
-            this.serverAdapter.close();
-        } catch (IOException e) {
-            // No way to handle the error
-        }
+        this.journal.setListener(null);
+        // No way to handle an error while closing
+        this.server.close();
     }
 
 }
\ No newline at end of file
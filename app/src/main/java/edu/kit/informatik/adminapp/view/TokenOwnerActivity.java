@@ -0,0 +1,232 @@
+package edu.kit.informatik.adminapp.view;
+
+import android.app.PendingIntent;
+import android.content.Intent;
+import android.nfc.NfcAdapter;
+import android.os.Bundle;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.ActionBar;
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.File;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import edu.kit.informatik.adminapp.R;
+import edu.kit.informatik.adminapp.controller.server.AsyncServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.ServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.ThreadedServerAdapter;
+import edu.kit.informatik.adminapp.controller.store.DirectoryStore;
+import edu.kit.informatik.adminapp.core.Output;
+import edu.kit.informatik.adminapp.model.Attribute;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserSnapshot;
+import edu.kit.informatik.adminapp.model.resources.Extras;
+
+/**
+ * This class represents an activity that displays the owner of a scanned NFC token.
+ * The owner is looked up in the {@link DirectoryStore}, and only confirmed by the server
+ * if it has not been received from the server for some time.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+public class TokenOwnerActivity extends AppCompatActivity {
+    // ATTRIBUTE_KEY_UID, BASE are not used by PiAdapter
+    private static final String ATTRIBUTE_KEY_UID = "uid";
+    private static final String BASE = "";
+    // a stored owner is confirmed by the server once it is older than this
+    private static final long MAX_OWNER_AGE = 5 * 60_000;
+    private final Output errorOutput = (String message) -> runOnUiThread(
+            () -> Toast.makeText(this, message, Toast.LENGTH_LONG).show());
+
+    private TextView ownerName;
+
+    private AsyncServerAdapter server;
+    private ServerAdapter serverAdapter;
+    private DirectoryStore store;
+    private UserSnapshot owner; // null if the owner of the scanned token is unknown
+    private int scanNumber; // identifies the scan whose owner is displayed
+
+    private NfcAdapter nfcAdapter;
+    private PendingIntent pendingIntent; // Intent triggered when reading an NFC token
+
+    /**
+     * Loads the view elements of the activity.
+     *
+     * @param savedInstanceState    contains the state of a previously saved activity,
+     *                              {@code null} if the activity has never been exited
+     */
+    @Override
+    protected void onCreate(final Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_token_owner);
+
+        this.ownerName = findViewById(R.id.activity_token_owner_tv_owner);
+        this.serverAdapter = getIntent().getParcelableExtra(Extras.EXTRA_SERVER_ADAPTER);
+        this.store = DirectoryStore.open(new File(getFilesDir(), DirectoryStore.FILE_NAME));
+        this.nfcAdapter = NfcAdapter.getDefaultAdapter(this);
+        Intent intent = new Intent(
+                this, getClass()).addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        this.pendingIntent = PendingIntent.getActivity(
+                this, 0, intent, PendingIntent.FLAG_MUTABLE);
+
+        this.ownerName.setOnClickListener((View view) -> onOwnerClick());
+
+        // Enables the home button in the toolbar
+        ActionBar actionBar = getSupportActionBar();
+        if (actionBar != null) {
+            actionBar.setDisplayHomeAsUpEnabled(true);
+        }
+    }
+
+    /**
+     * Ends this activity if the home button in the toolbar is clicked.
+     *
+     * @param item  the MenuItem that was clicked
+     * @return      {@code true}
+     */
+    @Override
+    public boolean onOptionsItemSelected(@NonNull final MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {
+            finish();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void onOwnerClick() {
+        if (this.owner == null) {
+            return;
+        }
+        Intent intent = new Intent(this, ShowUserActivity.class);
+        intent.putExtra(Extras.EXTRA_SERVER_ADAPTER, this.serverAdapter)
+                .putExtra(Extras.EXTRA_USER, this.owner.toUser());
+        startActivity(intent);
+    }
+
+    /**
+     * Checks if NFC is enabled and attempts to establish a connection to the server
+     * in the background.
+     * If NFC is not enabled or no connection to the server is possible, an appropriate
+     * error message is displayed.
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Check if NFC is enabled
+        if (this.nfcAdapter == null || !this.nfcAdapter.isEnabled()) {
+            this.errorOutput.output(getString(R.string.ERROR_NFC_DISABLED));
+        }
+
+        this.server = new ThreadedServerAdapter(this.serverAdapter);
+        this.server.connect().exceptionally((Throwable error) -> {
+            errorOutput.output(getString(R.string.ERROR_CONNECT_FAILED));
+            return null;
+        });
+    }
+
+    /**
+     * Enables foreground dispatch for NFC tokens of type Mifare Classic, so that this
+     * activity is notified of a newly scanned NFC token via {@link #onNewIntent(Intent)}.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        this.nfcAdapter.enableForegroundDispatch(
+                this, this.pendingIntent, TokenScanner.INTENT_FILTERS, TokenScanner.TECH_LIST);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        this.nfcAdapter.disableForegroundDispatch(this);
+    }
+
+    /**
+     * Displays the owner of a scanned NFC token.
+     * If no known user owns the token, an appropriate error message is displayed.
+     *
+     * @param intent    the new intent started for this activity
+     */
+    @Override
+    protected void onNewIntent(final Intent intent) {
+        super.onNewIntent(intent);
+
+        try {
+            lookUpOwner(TokenScanner.createHashedToken(intent));
+        } catch (final NoSuchAlgorithmException e) {
+            errorOutput.output(getString(R.string.ERROR_HASH_FAILURE));
+        }
+    }
+
+    private void lookUpOwner(final Token token) {
+        // The owner of a previous scan that is still being confirmed is not displayed
+        final int scan = ++this.scanNumber;
+        final UserSnapshot stored = this.store.findOwner(token.getId());
+        showOwner(stored);
+        if (stored == null) {
+            this.errorOutput.output(getString(R.string.ERROR_OWNER_UNKNOWN));
+            return;
+        }
+
+        if (this.store.isStale(stored.getId(), MAX_OWNER_AGE)) {
+            this.server.search(BASE, new Attribute(ATTRIBUTE_KEY_UID, stored.getId().toString()))
+                    .whenComplete((Collection<User> users, Throwable error) -> runOnUiThread(
+                            () -> onOwnerConfirmed(scan, token, stored, users, error)));
+        }
+    }
+
+    private void onOwnerConfirmed(final int scan, final Token token, final UserSnapshot stored,
+                                  final Collection<User> users, final Throwable error) {
+        if (scan != this.scanNumber || error != null) {
+            // The stored owner stays displayed while the server cannot be reached
+            return;
+        }
+
+        if (users.isEmpty()) {
+            this.store.remove(stored.getId());
+        }
+        final List<UserSnapshot> snapshots = new ArrayList<>(users.size());
+        UserSnapshot confirmed = null;
+        for (final User user : users) {
+            final UserSnapshot snapshot = UserSnapshot.of(user);
+            snapshots.add(snapshot);
+            for (final Token owned : snapshot.getTokens()) {
+                if (owned.getId().equals(token.getId())) {
+                    confirmed = snapshot;
+                }
+            }
+        }
+        this.store.putAll(snapshots);
+
+        showOwner(confirmed);
+        if (confirmed == null) {
+            this.errorOutput.output(getString(R.string.ERROR_OWNER_UNKNOWN));
+        }
+    }
+
+    private void showOwner(final UserSnapshot user) {
+        this.owner = user;
+        this.ownerName.setText(user == null ? "" : user.getName().toString());
+    }
+
+    /**
+     * Returns the connection to the server to the connection pool, so that the next
+     * activity can reuse it.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // No way to handle an error while closing
+        this.server.close();
+    }
+}
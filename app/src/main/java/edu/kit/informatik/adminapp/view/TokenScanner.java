@@ -0,0 +1,70 @@
+package edu.kit.informatik.adminapp.view;
+
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.nfc.NfcAdapter;
+import android.nfc.Tag;
+import android.nfc.tech.MifareClassic;
+
+import java.security.NoSuchAlgorithmException;
+
+import edu.kit.informatik.adminapp.controller.HashFunction;
+import edu.kit.informatik.adminapp.controller.SHA256;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+
+/**
+ * This class contains what the activities that scan NFC tokens have in common:
+ * the tags they are notified of and how a scanned tag becomes a token.
+ *
+ * @author Daniel Luckey
+ * @version 1.0
+ */
+final class TokenScanner {
+    // Defines filters and technologies for NFC tag detection
+    static final IntentFilter[] INTENT_FILTERS = new IntentFilter[]{
+            new IntentFilter(NfcAdapter.ACTION_TECH_DISCOVERED)};
+    static final String[][] TECH_LIST = new String[][]{
+            new String[]{MifareClassic.class.getName()}};
+    // Hash function used to encrypt the NFC token ID
+    private static final HashFunction HASH_FUNCTION = new SHA256();
+
+    private TokenScanner() {}
+
+    /**
+     * Creates a token whose ID is the hashed ID of the scanned NFC tag.
+     *
+     * @param intent    the intent that reports the scanned tag
+     * @return  the token
+     * @throws NoSuchAlgorithmException if the hash function is not available
+     */
+    static Token createHashedToken(final Intent intent) throws NoSuchAlgorithmException {
+        final Tag tag = intent.getParcelableExtra(NfcAdapter.EXTRA_TAG);
+        final byte[] bytes = tag.getId();
+        final String bytesToHex = bytesToHex(bytes);
+
+        String hashedHex = HASH_FUNCTION.hash(bytesToHex);
+        return new Token(new TokenId(hashedHex));
+    }
+
+    /**
+     * Converts a byte array into a hexadecimal string representation.
+     *
+     * Note: This method is adapted from
+     * https://stackoverflow.com/questions/9655181/
+     * how-to-convert-a-byte-array-to-a-hex-string-in-java
+     *
+     * @param bytes the byte array
+     * @return  the hexadecimal representation of {@code bytes}
+     */
+    private static String bytesToHex(final byte[] bytes) {
+        final char[] HEX_ARRAY = "0123456789abcdef".toCharArray();
+        final char[] hexChars = new char[bytes.length * 2];
+        for (int j = 0; j < bytes.length; j++) {
+            final int v = bytes[j] & 0xFF;
+            hexChars[j * 2] = HEX_ARRAY[v >>> 4];
+            hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
+        }
+        return new String(hexChars);
+    }
+}
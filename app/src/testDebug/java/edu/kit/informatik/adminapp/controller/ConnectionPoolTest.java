@@ -0,0 +1,265 @@
+package edu.kit.informatik.adminapp.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import edu.kit.informatik.adminapp.model.Hostname;
+import edu.kit.informatik.adminapp.model.Milliseconds;
+import edu.kit.informatik.adminapp.model.Password;
+import edu.kit.informatik.adminapp.model.Port;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class tests the {@link ConnectionPool} class.
+ */
+public class ConnectionPoolTest {
+    private static final long IDLE_TIMEOUT = 60_000;
+
+    private final ConnectionPool.Key anonymousKey = new ConnectionPool.Key(
+            new Hostname("127.0.0.1"), new Port(5001), new Milliseconds(3000),
+            Transport.BLOCKING, Framing.LINES, null, null);
+    private final ConnectionPool.Key adminKey = new ConnectionPool.Key(
+            new Hostname("127.0.0.1"), new Port(5001), new Milliseconds(3000),
+            Transport.BLOCKING, Framing.LINES, new UserId("admin"), new Password("secret"));
+    private ConnectionPool pool;
+    private List<FakeChannel> created;
+
+    /**
+     * Creates an empty pool.
+     */
+    @Before
+    public void setUp() {
+        this.pool = new ConnectionPool(IDLE_TIMEOUT);
+        this.created = new ArrayList<>();
+    }
+
+    private ClientChannel createChannel() {
+        FakeChannel channel = new FakeChannel();
+        this.created.add(channel);
+        return channel;
+    }
+
+    /**
+     * Tests whether borrowers with the same key share one connection.
+     */
+    @Test
+    public void testBorrow_sameKey() throws IOException {
+        ClientChannel first = this.pool.borrow(this.adminKey, this::createChannel);
+        ClientChannel second = this.pool.borrow(this.adminKey, this::createChannel);
+        first.close();
+        ClientChannel third = this.pool.borrow(this.adminKey, this::createChannel);
+
+        assertEquals(1, this.created.size());
+        assertEquals(1, this.created.get(0).connects);
+        assertTrue(second.isConnected());
+        assertTrue(third.isConnected());
+    }
+
+    /**
+     * Tests whether borrowers with different keys use different connections.
+     */
+    @Test
+    public void testBorrow_differentKey() throws IOException {
+        this.pool.borrow(this.anonymousKey, this::createChannel);
+        this.pool.borrow(this.adminKey, this::createChannel);
+
+        assertEquals(2, this.created.size());
+    }
+
+    /**
+     * Tests whether an idle connection that has been interrupted is reestablished.
+     */
+    @Test
+    public void testBorrow_interrupted() throws IOException {
+        this.pool.borrow(this.adminKey, this::createChannel).close();
+        this.created.get(0).isConnected = false;
+
+        ClientChannel channel = this.pool.borrow(this.adminKey, this::createChannel);
+
+        assertEquals(1, this.created.size());
+        assertEquals(2, this.created.get(0).connects);
+        assertTrue(channel.isConnected());
+    }
+
+    /**
+     * Tests whether connecting a borrowed channel keeps a live connection,
+     * so that the other borrowers are not interrupted, but reestablishes an interrupted one.
+     */
+    @Test
+    public void testConnect_shared() throws IOException {
+        ClientChannel first = this.pool.borrow(this.adminKey, this::createChannel);
+        ClientChannel second = this.pool.borrow(this.adminKey, this::createChannel);
+
+        first.connect();
+        assertEquals(1, this.created.get(0).connects);
+        assertFalse(this.created.get(0).isClosed());
+
+        this.created.get(0).isConnected = false;
+        first.connect();
+        assertEquals(2, this.created.get(0).connects);
+        assertTrue(second.isConnected());
+    }
+
+    /**
+     * Tests whether a returned channel can no longer be used.
+     */
+    @Test
+    public void testClose() throws IOException {
+        ClientChannel channel = this.pool.borrow(this.adminKey, this::createChannel);
+        channel.close();
+
+        assertTrue(channel.isClosed());
+        assertFalse(channel.isConnected());
+        assertThrows(IOException.class, () -> channel.send("search"));
+        assertFalse(this.created.get(0).isClosed());
+    }
+
+    /**
+     * Tests whether only idle connections are evicted.
+     */
+    @Test
+    public void testEvictIdleConnections() throws IOException, InterruptedException {
+        ConnectionPool shortPool = new ConnectionPool(1);
+        shortPool.borrow(this.anonymousKey, this::createChannel).close();
+        shortPool.borrow(this.adminKey, this::createChannel);
+        Thread.sleep(10);
+
+        shortPool.evictIdleConnections();
+
+        assertTrue(this.created.get(0).isClosed());
+        assertFalse(this.created.get(1).isClosed());
+    }
+
+    /**
+     * Tests whether the borrowers of a connection share its I/O thread, and whether an idle
+     * connection is not evicted while its I/O thread is busy.
+     */
+    @Test
+    public void testGetExecutor() throws Exception {
+        Executor shared = this.pool.getExecutor(this.adminKey, this::createChannel);
+        this.pool.borrow(this.adminKey, this::createChannel).close();
+        assertSame(shared, this.pool.getExecutor(this.adminKey, this::createChannel));
+        assertNotSame(shared, this.pool.getExecutor(this.anonymousKey, this::createChannel));
+        assertEquals(2, this.created.size());
+
+        ConnectionPool shortPool = new ConnectionPool(200);
+        Executor executor = shortPool.getExecutor(this.adminKey, this::createChannel);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        busy.await();
+        Thread.sleep(300);
+        shortPool.evictIdleConnections();
+        assertFalse(this.created.get(2).isClosed());
+
+        release.countDown();
+        Thread.sleep(300);
+        shortPool.evictIdleConnections();
+        assertTrue(this.created.get(2).isClosed());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+
+    /**
+     * Tests whether the pool enables heartbeats on the connections it creates.
+     */
+    @Test
+    public void testBorrow_heartbeat() throws IOException {
+        ConnectionPool heartbeatPool = new ConnectionPool(IDLE_TIMEOUT, new Milliseconds(30_000));
+        heartbeatPool.borrow(this.adminKey, this::createChannel);
+
+        assertEquals(30_000, this.created.get(0).heartbeatInterval);
+    }
+
+    /**
+     * Tests whether a connection is reused under its new key after the credentials changed.
+     */
+    @Test
+    public void testRekey() throws IOException {
+        ConnectionPool.Lease login = this.pool.borrow(this.anonymousKey, this::createChannel);
+        login.rekey(this.adminKey);
+        this.pool.borrow(this.adminKey, this::createChannel);
+        login.close();
+
+        assertEquals(1, this.created.size());
+    }
+
+    /**
+     * Tests whether a lease keeps the I/O thread of its connection when the connection is
+     * shared and thus stays filed under the old key.
+     */
+    @Test
+    public void testGetExecutor_rekeyShared() throws IOException {
+        ConnectionPool.Lease login = this.pool.borrow(this.anonymousKey, this::createChannel);
+        ConnectionPool.Lease other = this.pool.borrow(this.anonymousKey, this::createChannel);
+        Executor executor = login.getExecutor();
+        login.rekey(this.adminKey);
+
+        assertSame(executor, login.getExecutor());
+        assertSame(executor, other.getExecutor());
+        assertEquals(1, this.created.size());
+
+        login.close();
+        assertThrows(IOException.class, login::getExecutor);
+    }
+
+    private static class FakeChannel implements ClientChannel {
+        private int connects;
+        private int heartbeatInterval;
+        private boolean isConnected;
+        private boolean isClosed;
+
+        @Override
+        public void connect() {
+            this.connects++;
+            this.isConnected = true;
+            this.isClosed = false;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return this.isConnected;
+        }
+
+        @Override
+        public void setHeartbeatInterval(final Milliseconds interval) {
+            this.heartbeatInterval = interval.asInt();
+        }
+
+        @Override
+        public String send(final String message) {
+            return message;
+        }
+
+        @Override
+        public void close() {
+            this.isConnected = false;
+            this.isClosed = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return this.isClosed;
+        }
+    }
+}
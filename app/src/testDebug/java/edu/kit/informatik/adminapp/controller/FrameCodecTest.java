@@ -0,0 +1,190 @@
+package edu.kit.informatik.adminapp.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * This class tests the {@link FrameCodec} and {@link LineCodec} classes.
+ */
+public class FrameCodecTest {
+    private static final String[] MESSAGES = {"search$a", "", "Müller,Jürgen;x;y:z"};
+
+    private static byte[] encode(final MessageCodec codec) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String message : MESSAGES) {
+            codec.encode(message, out);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests whether messages decoded byte by byte equal the encoded messages.
+     */
+    @Test
+    public void testDecode_byteByByte() throws IOException {
+        for (MessageCodec codec : new MessageCodec[] {
+                new FrameCodec(), new FrameCodec(0), new LineCodec()}) {
+            byte[] bytes = encode(codec);
+            int decoded = 0;
+            for (byte b : bytes) {
+                String message = codec.decode(ByteBuffer.wrap(new byte[] {b}));
+                if (message != null) {
+                    assertEquals(MESSAGES[decoded++], message);
+                }
+            }
+            assertEquals(MESSAGES.length, decoded);
+        }
+    }
+
+    /**
+     * Tests whether several messages are decoded from one chunk.
+     */
+    @Test
+    public void testDecode_oneChunk() throws IOException {
+        for (MessageCodec codec : new MessageCodec[] {
+                new FrameCodec(), new FrameCodec(0), new LineCodec()}) {
+            ByteBuffer in = ByteBuffer.wrap(encode(codec));
+            for (String expected : MESSAGES) {
+                assertEquals(expected, codec.decode(in));
+            }
+            assertNull(codec.decode(in));
+        }
+    }
+
+    /**
+     * Tests whether a compressible payload is compressed and restored.
+     */
+    @Test
+    public void testEncode_compressed() throws IOException {
+        String message = new String(new char[10_000]).replace('\0', 'x');
+        FrameCodec codec = new FrameCodec(Framing.COMPRESSION_THRESHOLD);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(message, out);
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+
+        assertTrue(in.remaining() < message.length() / 10);
+        assertTrue((in.getInt(0) & FrameCodec.COMPRESSED_FLAG) != 0);
+        assertEquals(message, codec.decode(in));
+    }
+
+    /**
+     * Tests whether a compressed frame is rejected if compression has not been negotiated.
+     */
+    @Test
+    public void testDecode_compressionNotNegotiated() throws IOException {
+        FrameCodec compressing = new FrameCodec(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        compressing.encode(new String(new char[100]), out);
+        ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+
+        assertThrows(ProtocolException.class, () -> new FrameCodec().decode(in));
+    }
+
+    /**
+     * Tests whether payloads decoded piece by piece equal the encoded messages,
+     * for any split of the received bytes and any size of the output buffer.
+     */
+    @Test
+    public void testDecodePayload() throws IOException {
+        for (int chunkSize : new int[] {1, 3, 1000}) {
+            for (MessageCodec codec : new MessageCodec[] {
+                    new FrameCodec(), new FrameCodec(0), new LineCodec()}) {
+                ByteBuffer in = ByteBuffer.wrap(encode(codec));
+                for (String expected : MESSAGES) {
+                    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+                    ByteBuffer out = ByteBuffer.allocate(chunkSize);
+                    boolean isComplete = false;
+                    while (!isComplete) {
+                        ByteBuffer chunk = in.slice();
+                        chunk.limit(Math.min(chunkSize, chunk.remaining()));
+                        isComplete = codec.decodePayload(chunk, out);
+                        in.position(in.position() + chunk.position());
+                        payload.write(out.array(), 0, out.position());
+                        out.clear();
+                    }
+                    assertEquals(expected, new String(payload.toByteArray(), "UTF-8"));
+                }
+                assertEquals(0, in.remaining());
+            }
+        }
+    }
+
+    /**
+     * Tests whether only a carriage return before the line feed is dropped.
+     */
+    @Test
+    public void testDecodePayload_carriageReturn() throws IOException {
+        LineCodec codec = new LineCodec();
+        ByteBuffer in = ByteBuffer.wrap("a\rb\r\n\r\r\n".getBytes("UTF-8"));
+        ByteBuffer out = ByteBuffer.allocate(16);
+
+        assertTrue(codec.decodePayload(in, out));
+        assertEquals("a\rb", new String(out.array(), 0, out.position(), "UTF-8"));
+        out.clear();
+        assertTrue(codec.decodePayload(in, out));
+        assertEquals("\r", new String(out.array(), 0, out.position(), "UTF-8"));
+    }
+
+    /**
+     * Tests whether a frame with a negative length is rejected.
+     */
+    @Test
+    public void testDecode_negativeLength() {
+        ByteBuffer in = ByteBuffer.wrap(new byte[] {(byte) 0xff, 0, 0, 1});
+
+        assertThrows(ProtocolException.class, () -> new FrameCodec().decode(in));
+    }
+
+    /**
+     * Tests whether a frame longer than the maximum frame length is rejected
+     * before its payload arrives.
+     */
+    @Test
+    public void testDecode_tooLong() {
+        int length = FrameCodec.MAX_FRAME_LENGTH + 1;
+        ByteBuffer in = ByteBuffer.allocate(FrameCodec.HEADER_LENGTH).putInt(0, length);
+
+        assertThrows(ProtocolException.class, () -> new FrameCodec().decode(in));
+        in.rewind();
+        assertThrows(ProtocolException.class,
+                () -> new FrameCodec().decodePayload(in, ByteBuffer.allocate(16)));
+    }
+
+    /**
+     * Tests whether a compressed frame that inflates beyond the maximum frame length
+     * is rejected, whether it is decoded as a whole or piece by piece.
+     */
+    @Test
+    public void testDecode_zipBomb() {
+        Deflater deflater = new Deflater();
+        deflater.setInput(new byte[FrameCodec.MAX_FRAME_LENGTH + 1]);
+        deflater.finish();
+        byte[] compressed = new byte[FrameCodec.MAX_FRAME_LENGTH / 256];
+        int length = deflater.deflate(compressed);
+        assertTrue(deflater.finished());
+        deflater.end();
+
+        ByteBuffer in = ByteBuffer.allocate(FrameCodec.HEADER_LENGTH + length);
+        in.putInt(length | FrameCodec.COMPRESSED_FLAG).put(compressed, 0, length).flip();
+
+        assertThrows(ProtocolException.class, () -> new FrameCodec(0).decode(in));
+        in.rewind();
+        FrameCodec codec = new FrameCodec(0);
+        ByteBuffer out = ByteBuffer.allocate(1 << 16);
+        assertThrows(ProtocolException.class, () -> {
+            while (!codec.decodePayload(in, out)) {
+                out.clear();
+            }
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package edu.kit.informatik.adminapp.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import edu.kit.informatik.adminapp.model.Milliseconds;
+
+/**
+ * This class tests the {@link LivenessTracker} class.
+ */
+public class LivenessTrackerTest {
+    private static final Milliseconds HEARTBEAT_INTERVAL = new Milliseconds(20);
+    private static final long WAIT = 200;
+
+    private RecordingChannel channel;
+    private LivenessTracker liveness;
+
+    /**
+     * Creates a tracker for a channel that records the messages sent.
+     */
+    @Before
+    public void setUp() {
+        this.channel = new RecordingChannel();
+        this.liveness = new LivenessTracker(this.channel);
+    }
+
+    /**
+     * Tests whether the connection is alive between connect and failure.
+     */
+    @Test
+    public void testIsAlive() {
+        assertFalse(this.liveness.isAlive());
+        this.liveness.connected();
+        this.liveness.succeeded();
+        assertTrue(this.liveness.isAlive());
+        this.liveness.failed();
+        assertFalse(this.liveness.isAlive());
+    }
+
+    /**
+     * Tests whether no heartbeats are sent by default.
+     */
+    @Test
+    public void testHeartbeat_disabled() throws InterruptedException {
+        this.liveness.connected();
+        Thread.sleep(WAIT);
+
+        assertTrue(this.channel.messages.isEmpty());
+    }
+
+    /**
+     * Tests whether heartbeats are sent on an idle connection.
+     */
+    @Test
+    public void testHeartbeat_idle() throws InterruptedException {
+        this.liveness.setHeartbeatInterval(HEARTBEAT_INTERVAL);
+        this.liveness.connected();
+        Thread.sleep(WAIT);
+
+        assertFalse(this.channel.messages.isEmpty());
+        assertEquals("", this.channel.messages.get(0));
+    }
+
+    /**
+     * Tests whether no heartbeats are sent after the connection has failed.
+     */
+    @Test
+    public void testHeartbeat_failed() throws InterruptedException {
+        this.liveness.setHeartbeatInterval(HEARTBEAT_INTERVAL);
+        this.liveness.connected();
+        this.liveness.failed();
+        Thread.sleep(WAIT);
+
+        assertTrue(this.channel.messages.isEmpty());
+    }
+
+    private static class RecordingChannel implements ClientChannel {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public String send(final String message) throws IOException {
+            this.messages.add(message);
+            return message;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package edu.kit.informatik.adminapp.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class tests the {@link NioSSLClient} class against a {@link PiStandInServer}
+ * that speaks TLS.
+ */
+public class NioSSLClientTest {
+    private static final String UNKNOWN_REQUEST = "error";
+    private static final int LARGE_RESPONSE_LENGTH = 1 << 20;
+
+    private final CountDownLatch received = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private PiStandInServer server;
+    private NioSSLClient client;
+
+    /**
+     * Closes the client and the server.
+     */
+    @After
+    public void tearDown() throws IOException {
+        this.released.countDown();
+        if (this.client != null) this.client.close();
+        if (this.server != null) this.server.close();
+    }
+
+    private String echo(final String request) {
+        if (request.equals("drop")) {
+            return null;
+        } else if (request.equals("hang")) {
+            this.received.countDown();
+            try {
+                this.released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        } else if (request.equals("large")) {
+            char[] response = new char[LARGE_RESPONSE_LENGTH];
+            Arrays.fill(response, 'x');
+            return new String(response);
+        }
+        return request.startsWith("search$") ? "r:" + request : UNKNOWN_REQUEST;
+    }
+
+    private void connect(final Framing supportedFraming, final Framing framing)
+            throws IOException {
+        this.server = new PiStandInServer(supportedFraming, this::echo, true);
+        this.client = this.server.createNioClient(framing);
+        this.client.connect();
+    }
+
+    /**
+     * Tests whether the TLS handshake is completed and a request is answered afterwards.
+     */
+    @Test
+    public void testConnect_handshake() throws IOException {
+        connect(Framing.LINES, Framing.LINES);
+
+        assertTrue(this.client.isConnected());
+        assertEquals("r:search$a", this.client.send("search$a"));
+        assertEquals(1, this.server.requests.size());
+    }
+
+    /**
+     * Tests whether frames are negotiated over TLS if the server supports them.
+     */
+    @Test
+    public void testConnect_framed() throws IOException {
+        connect(Framing.FRAMES, Framing.FRAMES);
+
+        assertEquals("r:search$a", this.client.send("search$a"));
+        assertEquals(1, this.server.framedConnections);
+    }
+
+    /**
+     * Tests whether a reconnect resumes the cached session and is reported as resumed.
+     */
+    @Test
+    public void testConnect_resumed() throws IOException {
+        this.server = new PiStandInServer(Framing.LINES, this::echo, true);
+        this.server.setProtocols("TLSv1.2");
+        TlsSessionCache cache = this.server.createSessionCache();
+        this.client = this.server.createNioClient(Framing.LINES, cache);
+        this.client.connect();
+        this.client.close();
+        int fullHandshakes = cache.getFullHandshakes();
+        int resumedHandshakes = cache.getResumedHandshakes();
+
+        this.client.connect();
+
+        assertEquals("r:search$a", this.client.send("search$a"));
+        assertEquals(fullHandshakes, cache.getFullHandshakes());
+        assertEquals(resumedHandshakes + 1, cache.getResumedHandshakes());
+    }
+
+    /**
+     * Tests whether a connection to a closed port fails.
+     */
+    @Test
+    public void testConnect_refused() throws IOException {
+        this.server = new PiStandInServer(Framing.LINES, this::echo, true);
+        this.client = this.server.createNioClient(Framing.LINES);
+        this.server.close();
+
+        assertThrows(IOException.class, this.client::connect);
+        assertFalse(this.client.isConnected());
+    }
+
+    /**
+     * Tests whether pipelined requests are answered in the order they were sent.
+     */
+    @Test
+    public void testSendAll_pipelined() throws IOException {
+        connect(Framing.FRAMES, Framing.FRAMES);
+        List<String> messages = Arrays.asList("search$a", "unknown", "search$b", "search$c");
+
+        List<String> responses = this.client.sendAll(messages);
+
+        assertEquals(Arrays.asList("r:search$a", UNKNOWN_REQUEST, "r:search$b", "r:search$c"),
+                responses);
+        assertEquals(messages, this.server.requests.subList(1, 5));
+    }
+
+    /**
+     * Tests whether concurrent requests on one connection each receive their own response.
+     */
+    @Test
+    public void testSend_concurrent() throws Exception {
+        connect(Framing.FRAMES, Framing.FRAMES);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[16];
+            for (int i = 0; i < futures.length; i++) {
+                final String message = "search$" + i;
+                futures[i] = threads.submit(() -> {
+                    assertEquals("r:" + message, this.client.send(message));
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests whether a response larger than the TLS buffers is reassembled.
+     */
+    @Test
+    public void testSend_largeResponse() throws IOException {
+        connect(Framing.COMPRESSED_FRAMES, Framing.COMPRESSED_FRAMES);
+
+        assertEquals(LARGE_RESPONSE_LENGTH, this.client.send("large").length());
+    }
+
+    /**
+     * Tests whether a large response with non-ASCII characters is processed while it is
+     * being received, which takes more chunks than may wait for the reader.
+     */
+    @Test
+    public void testSend_streamed() throws IOException {
+        StringBuilder builder = new StringBuilder("search$");
+        while (builder.length() < LARGE_RESPONSE_LENGTH) {
+            builder.append("Müller,Jürgen;");
+        }
+        final String request = builder.toString();
+
+        for (Framing supportedFraming : Framing.values()) {
+            tearDown();
+            connect(supportedFraming, Framing.COMPRESSED_FRAMES);
+            String response = this.client.send(request, (Reader reader) -> {
+                StringBuilder read = new StringBuilder();
+                char[] chunk = new char[100];
+                int count;
+                while ((count = reader.read(chunk)) != -1) {
+                    read.append(chunk, 0, count);
+                }
+                return read.toString();
+            });
+            assertEquals("r:" + request, response);
+        }
+    }
+
+    /**
+     * Tests whether the rest of a response that has not been read is skipped,
+     * so that the next response is assigned to the next request.
+     */
+    @Test
+    public void testSend_streamedPartially() throws IOException {
+        connect(Framing.FRAMES, Framing.FRAMES);
+
+        int first = this.client.send("large", (Reader reader) -> reader.read());
+        assertEquals('x', first);
+        assertEquals("r:search$b", this.client.send("search$b"));
+        assertTrue(this.client.isConnected());
+    }
+
+    /**
+     * Tests whether a connection dropped by the server fails the request
+     * and is no longer considered connected.
+     */
+    @Test
+    public void testSend_dropped() throws IOException {
+        connect(Framing.LINES, Framing.LINES);
+
+        assertThrows(IOException.class, () -> this.client.send("drop"));
+        assertFalse(this.client.isConnected());
+    }
+
+    /**
+     * Tests whether closing the client fails a request whose response is still pending.
+     */
+    @Test
+    public void testClose_pendingRequest() throws Exception {
+        connect(Framing.LINES, Framing.LINES);
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> pending = thread.submit(() -> this.client.send("hang"));
+            assertTrue(this.received.await(5, TimeUnit.SECONDS));
+
+            this.client.close();
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> pending.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(this.client.isClosed());
+            assertFalse(this.client.isConnected());
+        } finally {
+            thread.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests whether a request after closing the client fails.
+     */
+    @Test
+    public void testSend_closed() throws IOException {
+        connect(Framing.LINES, Framing.LINES);
+        this.client.close();
+
+        assertThrows(IOException.class, () -> this.client.send("search$a"));
+    }
+}
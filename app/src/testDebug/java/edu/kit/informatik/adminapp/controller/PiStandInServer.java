@@ -0,0 +1,344 @@
+package edu.kit.informatik.adminapp.controller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+
+import edu.kit.informatik.adminapp.model.Hostname;
+import edu.kit.informatik.adminapp.model.Milliseconds;
+import edu.kit.informatik.adminapp.model.Port;
+
+/**
+ * This class is a local stand-in for the server on the Raspberry Pi.
+ * It speaks the protocol over plain sockets, so that clients can be tested without TLS,
+ * or over TLS with a self-signed certificate for the clients that cannot do without,
+ * and answers every request with a handler. Each connection is served by its own thread.
+ * Frames and compressed frames are accepted up to a configurable {@link Framing}.
+ */
+public class PiStandInServer implements AutoCloseable {
+    private static final Hostname HOSTNAME = new Hostname("127.0.0.1");
+    private static final int LINE_FEED = '\n';
+    private static final String KEY_STORE = "pi-stand-in.p12";
+    private static final char[] KEY_STORE_PASSWORD = "stand-in".toCharArray();
+
+    private final Framing supportedFraming;
+    private final Function<String, String> handler;
+    private final ServerSocket serverSocket;
+    private final SSLContext clientContext;
+    private final Thread acceptor;
+    // the TLS versions of the accepted connections, null for the defaults
+    private volatile String[] protocols;
+    /** The requests received, in the order of their arrival. */
+    public final List<String> requests = new CopyOnWriteArrayList<>();
+    /** The number of connections that switched to frames. */
+    volatile int framedConnections;
+    /** The number of compressed frames received. */
+    volatile int compressedRequests;
+
+    /**
+     * Starts a new server on a free port.
+     *
+     * @param supportedFraming    the most capable framing the server accepts
+     * @param handler             returns the response to a request,
+     *                            {@code null} to drop the connection instead
+     * @throws IOException  if the server cannot be started
+     */
+    public PiStandInServer(final Framing supportedFraming,
+                           final Function<String, String> handler) throws IOException {
+        this(supportedFraming, handler, false);
+    }
+
+    /**
+     * Starts a new server on a free port, which speaks TLS if requested.
+     *
+     * @param supportedFraming    the most capable framing the server accepts
+     * @param handler             returns the response to a request,
+     *                            {@code null} to drop the connection instead
+     * @param isSecure            {@code true} to speak TLS, {@code false} for plain sockets
+     * @throws IOException  if the server cannot be started
+     */
+    PiStandInServer(final Framing supportedFraming, final Function<String, String> handler,
+                    final boolean isSecure) throws IOException {
+        this.supportedFraming = supportedFraming;
+        this.handler = handler;
+        if (isSecure) {
+            KeyStore keyStore = loadKeyStore();
+            this.clientContext = createContext(keyStore, false);
+            this.serverSocket = createContext(keyStore, true).getServerSocketFactory()
+                    .createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        } else {
+            this.clientContext = null;
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        }
+        this.acceptor = new Thread(this::accept);
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * Creates a client of this server that uses plain sockets.
+     *
+     * @param framing   the framing negotiated by the client
+     * @return  the client, not yet connected
+     */
+    public SSLClient createClient(final Framing framing) {
+        return new SSLClient(HOSTNAME, new Port(this.serverSocket.getLocalPort()),
+                new Milliseconds(5000), framing, PiStandInServer::connectPlain);
+    }
+
+    /**
+     * Creates a non-blocking client of this server, which must speak TLS.
+     * The client trusts the certificate of this server and uses a session cache of its own.
+     *
+     * @param framing   the framing negotiated by the client
+     * @return  the client, not yet connected
+     */
+    NioSSLClient createNioClient(final Framing framing) {
+        return createNioClient(framing, createSessionCache());
+    }
+
+    /**
+     * Creates a non-blocking client of this server, which must speak TLS.
+     *
+     * @param framing       the framing negotiated by the client
+     * @param sessionCache  the session cache, created by {@link #createSessionCache()}
+     * @return  the client, not yet connected
+     */
+    NioSSLClient createNioClient(final Framing framing, final TlsSessionCache sessionCache) {
+        return new NioSSLClient(HOSTNAME, new Port(this.serverSocket.getLocalPort()),
+                new Milliseconds(5000), sessionCache, framing);
+    }
+
+    /**
+     * Restricts the TLS versions of the connections accepted afterwards, which must speak TLS.
+     * The versions are set on every accepted socket, since the acceptor may already be
+     * waiting in {@link ServerSocket#accept()} with the settings of the server socket.
+     *
+     * @param protocols the names of the TLS versions, e.g. {@code "TLSv1.2"}
+     */
+    void setProtocols(final String... protocols) {
+        this.protocols = protocols.clone();
+    }
+
+    /**
+     * Creates a session cache whose SSL context trusts the certificate of this server,
+     * which must speak TLS.
+     *
+     * @return  the session cache
+     */
+    TlsSessionCache createSessionCache() {
+        return new TlsSessionCache(this.clientContext);
+    }
+
+    private static KeyStore loadKeyStore() throws IOException {
+        try (InputStream in = PiStandInServer.class.getResourceAsStream(KEY_STORE)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, KEY_STORE_PASSWORD);
+            return keyStore;
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static SSLContext createContext(final KeyStore keyStore, final boolean isServer)
+            throws IOException {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            if (isServer) {
+                KeyManagerFactory keys = KeyManagerFactory.getInstance(
+                        KeyManagerFactory.getDefaultAlgorithm());
+                keys.init(keyStore, KEY_STORE_PASSWORD);
+                context.init(keys.getKeyManagers(), null, null);
+            } else {
+                TrustManagerFactory trust = TrustManagerFactory.getInstance(
+                        TrustManagerFactory.getDefaultAlgorithm());
+                trust.init(keyStore);
+                context.init(null, trust.getTrustManagers(), null);
+            }
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static Socket connectPlain(final Hostname hostname, final Port port,
+                                       final Milliseconds timeout) throws IOException {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(hostname.toString(), port.toInt()), timeout.asInt());
+        socket.setSoTimeout(timeout.asInt());
+        return socket;
+    }
+
+    /**
+     * Stops accepting connections. Once this method returns, new connections are refused.
+     *
+     * @throws IOException  if an error occurs while closing the server socket
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        try {
+            // The socket keeps listening until a pending accept has returned
+            this.acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                final Socket socket = this.serverSocket.accept();
+                final String[] enabled = this.protocols;
+                if (enabled != null) {
+                    // The handshake starts with the first read of the worker
+                    ((SSLSocket) socket).setEnabledProtocols(enabled);
+                }
+                Thread worker = new Thread(() -> serve(socket));
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                // The server has been closed
+            }
+        }
+    }
+
+    private void serve(final Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(s.getOutputStream()));
+            boolean isFramed = false;
+            boolean isCompressed = false;
+            while (true) {
+                String request = isFramed ? readFrame(in) : readLine(in);
+                if (request == null) {
+                    return;
+                }
+                this.requests.add(request);
+
+                String response;
+                boolean switchToFrames = false;
+                if (!isFramed && request.equals(Framing.COMPRESSED_FRAMES_REQUEST)
+                        && this.supportedFraming == Framing.COMPRESSED_FRAMES) {
+                    response = Framing.COMPRESSED_FRAMES_ACCEPTED;
+                    switchToFrames = true;
+                    isCompressed = true;
+                } else if (!isFramed && request.startsWith(Framing.FRAMES_REQUEST)
+                        && this.supportedFraming != Framing.LINES) {
+                    response = Framing.FRAMES_ACCEPTED;
+                    switchToFrames = true;
+                } else {
+                    response = this.handler.apply(request);
+                }
+                if (response == null) {
+                    return;
+                }
+
+                byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+                if (isFramed && isCompressed && bytes.length >= Framing.COMPRESSION_THRESHOLD) {
+                    byte[] compressed = deflate(bytes);
+                    out.writeInt(compressed.length | FrameCodec.COMPRESSED_FLAG);
+                    out.write(compressed);
+                } else if (isFramed) {
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                } else {
+                    out.write(bytes);
+                    out.write(LINE_FEED);
+                }
+                // Only flush if no further request is already waiting, as a real server would
+                if (in.available() == 0) {
+                    out.flush();
+                }
+
+                if (switchToFrames) {
+                    isFramed = true;
+                    this.framedConnections++;
+                }
+            }
+        } catch (IOException e) {
+            // The client has gone away
+        }
+    }
+
+    private static String readLine(final DataInputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != LINE_FEED) {
+            if (b < 0) {
+                return null;
+            }
+            line.write(b);
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String readFrame(final DataInputStream in) throws IOException {
+        try {
+            int header = in.readInt();
+            byte[] payload = new byte[header & ~FrameCodec.COMPRESSED_FLAG];
+            in.readFully(payload);
+            if ((header & FrameCodec.COMPRESSED_FLAG) != 0) {
+                this.compressedRequests++;
+                payload = inflate(payload);
+            }
+            return new String(payload, StandardCharsets.UTF_8);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static byte[] deflate(final byte[] bytes) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(final byte[] bytes) throws IOException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        try {
+            while (!inflater.finished()) {
+                out.write(chunk, 0, inflater.inflate(chunk));
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+}
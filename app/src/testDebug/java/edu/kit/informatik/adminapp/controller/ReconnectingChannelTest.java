@@ -0,0 +1,217 @@
+package edu.kit.informatik.adminapp.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import edu.kit.informatik.adminapp.model.Milliseconds;
+
+/**
+ * This class tests the {@link ReconnectingChannel} class.
+ */
+public class ReconnectingChannelTest {
+    private static final int MAX_RETRIES = 3;
+
+    private FlakyChannel flaky;
+    private ClientChannel channel;
+
+    /**
+     * Creates a channel for which only searches are idempotent.
+     */
+    @Before
+    public void setUp() throws IOException {
+        this.flaky = new FlakyChannel();
+        this.channel = new ReconnectingChannel(this.flaky,
+                (String message) -> message.startsWith("search$"),
+                MAX_RETRIES, new Milliseconds(1), new Milliseconds(5));
+        this.channel.connect();
+    }
+
+    /**
+     * Tests whether an idempotent message is sent again after the connection was interrupted.
+     */
+    @Test
+    public void testSend_idempotent() throws IOException {
+        this.flaky.failedSends = 2;
+
+        assertEquals("search$a", this.channel.send("search$a"));
+        assertEquals(3, this.flaky.connects);
+    }
+
+    /**
+     * Tests whether a message that is not idempotent is not sent again.
+     */
+    @Test
+    public void testSend_notIdempotent() {
+        this.flaky.failedSends = 1;
+
+        assertThrows(IOException.class, () -> this.channel.send("addToken$a"));
+        assertEquals(1, this.flaky.sends);
+    }
+
+    /**
+     * Tests whether a message that is not idempotent is sent after a failed reconnect,
+     * since it had not reached the server.
+     */
+    @Test
+    public void testSend_unsent() throws IOException {
+        this.flaky.isConnected = false;
+        this.flaky.failedConnects = 2;
+
+        assertEquals("addToken$a", this.channel.send("addToken$a"));
+        assertEquals(1, this.flaky.sends);
+    }
+
+    /**
+     * Tests whether the failure is surfaced once the retry budget is used up.
+     */
+    @Test
+    public void testSend_budgetUsedUp() {
+        this.flaky.failedSends = MAX_RETRIES + 1;
+
+        assertThrows(IOException.class, () -> this.channel.send("search$a"));
+        assertEquals(MAX_RETRIES + 1, this.flaky.sends);
+    }
+
+    /**
+     * Tests whether an idempotent message whose response is processed while it is being
+     * received is sent again if the connection was interrupted before the response was read.
+     */
+    @Test
+    public void testSendStreaming_idempotent() throws IOException {
+        this.flaky.failedSends = 2;
+
+        assertEquals("search$a", this.channel.send("search$a", ReconnectingChannelTest::readLine));
+        assertEquals(3, this.flaky.connects);
+
+        this.flaky.failedSends = 1;
+        assertThrows(IOException.class,
+                () -> this.channel.send("addToken$a", ReconnectingChannelTest::readLine));
+    }
+
+    /**
+     * Tests whether a message is not sent again once a part of its response has been read,
+     * even if it is idempotent.
+     */
+    @Test
+    public void testSendStreaming_partlyRead() {
+        this.flaky.failedReads = 1;
+
+        assertThrows(IOException.class,
+                () -> this.channel.send("search$a", ReconnectingChannelTest::readLine));
+        assertEquals(1, this.flaky.sends);
+    }
+
+    private static String readLine(final Reader response) throws IOException {
+        return new BufferedReader(response).readLine();
+    }
+
+    /**
+     * Tests whether several messages are only sent again if all of them are idempotent.
+     */
+    @Test
+    public void testSendAll() throws IOException {
+        this.flaky.failedSends = 1;
+        assertEquals(Arrays.asList("search$a", "search$b"),
+                this.channel.sendAll(Arrays.asList("search$a", "search$b")));
+
+        this.flaky.failedSends = 1;
+        assertThrows(IOException.class,
+                () -> this.channel.sendAll(Arrays.asList("search$a", "deleteToken$b")));
+    }
+
+    /**
+     * Tests whether a closed channel is not reconnected.
+     */
+    @Test
+    public void testClose() throws IOException {
+        this.channel.close();
+
+        assertThrows(IOException.class, () -> this.channel.send("search$a"));
+        assertEquals(1, this.flaky.connects);
+    }
+
+    private static class FlakyChannel implements ClientChannel {
+        private int failedConnects;
+        private int failedSends;
+        private int failedReads;
+        private int connects;
+        private int sends;
+        private boolean isConnected;
+
+        @Override
+        public void connect() throws IOException {
+            if (this.failedConnects > 0) {
+                this.failedConnects--;
+                throw new IOException();
+            }
+            this.connects++;
+            this.isConnected = true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return this.isConnected;
+        }
+
+        @Override
+        public String send(final String message) throws IOException {
+            this.sends++;
+            if (this.failedSends > 0) {
+                this.failedSends--;
+                this.isConnected = false;
+                throw new IOException();
+            }
+            return message;
+        }
+
+        @Override
+        public <T> T send(final String message, final ResponseReader<T> reader)
+                throws IOException {
+            final String response = send(message);
+            if (this.failedReads == 0) {
+                return reader.read(new StringReader(response));
+            }
+            this.failedReads--;
+            this.isConnected = false;
+            // The connection is interrupted after the first character of the response
+            return reader.read(new Reader() {
+                private boolean isRead;
+
+                @Override
+                public int read(final char[] buffer, final int offset, final int length)
+                        throws IOException {
+                    if (this.isRead) {
+                        throw new IOException();
+                    }
+                    this.isRead = true;
+                    buffer[offset] = response.charAt(0);
+                    return 1;
+                }
+
+                @Override
+                public void close() {
+                    // Nothing to close
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            this.isConnected = false;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !this.isConnected;
+        }
+    }
+}
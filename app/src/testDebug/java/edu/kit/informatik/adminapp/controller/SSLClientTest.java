@@ -0,0 +1,198 @@
+package edu.kit.informatik.adminapp.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class tests the {@link SSLClient} class against a {@link PiStandInServer}.
+ */
+public class SSLClientTest {
+    private static final String UNKNOWN_REQUEST = "error";
+    private static final int LARGE_RESPONSE_LENGTH = 1 << 20;
+
+    private PiStandInServer server;
+    private SSLClient client;
+
+    /**
+     * Closes the client and the server.
+     */
+    @After
+    public void tearDown() throws IOException {
+        if (this.client != null) this.client.close();
+        if (this.server != null) this.server.close();
+    }
+
+    private static String echo(final String request) {
+        if (request.equals("drop")) {
+            return null;
+        }
+        return request.startsWith("search$") ? "r:" + request : UNKNOWN_REQUEST;
+    }
+
+    private void connect(final Framing supportedFraming, final Framing framing)
+            throws IOException {
+        this.server = new PiStandInServer(supportedFraming, SSLClientTest::echo);
+        this.client = this.server.createClient(framing);
+        this.client.connect();
+    }
+
+    /**
+     * Tests whether frames are used if the server supports them.
+     */
+    @Test
+    public void testConnect_framed() throws IOException {
+        connect(Framing.FRAMES, Framing.FRAMES);
+
+        assertEquals("r:search$a", this.client.send("search$a"));
+        assertEquals(1, this.server.framedConnections);
+        assertTrue(this.client.isConnected());
+        assertTrue(this.client.isFramed());
+    }
+
+    /**
+     * Tests whether lines are used if the server does not support frames.
+     */
+    @Test
+    public void testConnect_legacy() throws IOException {
+        connect(Framing.LINES, Framing.FRAMES);
+
+        assertEquals("r:search$a", this.client.send("search$a"));
+        assertEquals(0, this.server.framedConnections);
+        assertFalse(this.client.isFramed());
+    }
+
+    /**
+     * Tests whether nothing is negotiated if lines are requested.
+     */
+    @Test
+    public void testConnect_lines() throws IOException {
+        connect(Framing.COMPRESSED_FRAMES, Framing.LINES);
+
+        assertEquals("r:search$a", this.client.send("search$a"));
+        assertEquals(1, this.server.requests.size());
+        assertEquals(0, this.server.framedConnections);
+    }
+
+    /**
+     * Tests whether uncompressed frames are used if the server does not support compression.
+     */
+    @Test
+    public void testConnect_framesWithoutCompression() throws IOException {
+        connect(Framing.FRAMES, Framing.COMPRESSED_FRAMES);
+
+        String request = "search$" + new String(new char[4096]).replace('\0', 'a');
+        assertEquals("r:" + request, this.client.send(request));
+        assertEquals(1, this.server.framedConnections);
+        assertEquals(0, this.server.compressedRequests);
+    }
+
+    /**
+     * Tests whether only requests of at least the threshold are compressed.
+     */
+    @Test
+    public void testSend_compressionThreshold() throws IOException {
+        connect(Framing.COMPRESSED_FRAMES, Framing.COMPRESSED_FRAMES);
+
+        this.client.send("search$a");
+        assertEquals(0, this.server.compressedRequests);
+        String request = "search$" + new String(new char[4096]).replace('\0', 'a');
+        assertEquals("r:" + request, this.client.send(request));
+        assertEquals(1, this.server.compressedRequests);
+    }
+
+    /**
+     * Tests whether a large response with non-ASCII characters is received completely.
+     */
+    @Test
+    public void testSend_large() throws IOException {
+        StringBuilder builder = new StringBuilder("search$");
+        while (builder.length() < LARGE_RESPONSE_LENGTH) {
+            builder.append("Müller,Jürgen;");
+        }
+        String request = builder.toString();
+
+        for (Framing supportedFraming : Framing.values()) {
+            tearDown();
+            connect(supportedFraming, Framing.COMPRESSED_FRAMES);
+            assertEquals("r:" + request, this.client.send(request));
+        }
+        assertTrue(this.server.compressedRequests > 0);
+    }
+
+    /**
+     * Tests whether a large response is processed while it is being received.
+     */
+    @Test
+    public void testSend_streamed() throws IOException {
+        StringBuilder builder = new StringBuilder("search$");
+        while (builder.length() < LARGE_RESPONSE_LENGTH) {
+            builder.append("Müller,Jürgen;");
+        }
+        final String request = builder.toString();
+
+        for (Framing supportedFraming : Framing.values()) {
+            tearDown();
+            connect(supportedFraming, Framing.COMPRESSED_FRAMES);
+            String response = this.client.send(request, (Reader reader) -> {
+                StringBuilder read = new StringBuilder();
+                char[] chunk = new char[100];
+                int count;
+                while ((count = reader.read(chunk)) != -1) {
+                    read.append(chunk, 0, count);
+                }
+                return read.toString();
+            });
+            assertEquals("r:" + request, response);
+        }
+    }
+
+    /**
+     * Tests whether the rest of a response that has not been read is skipped.
+     */
+    @Test
+    public void testSend_streamedPartially() throws IOException {
+        connect(Framing.COMPRESSED_FRAMES, Framing.COMPRESSED_FRAMES);
+        String request = "search$" + new String(new char[10_000]).replace('\0', 'a');
+
+        int first = this.client.send(request, (Reader reader) -> reader.read());
+        assertEquals('r', first);
+        assertEquals("r:search$b", this.client.send("search$b"));
+    }
+
+    /**
+     * Tests whether pipelined responses are assigned to their requests.
+     */
+    @Test
+    public void testSendAll() throws IOException {
+        connect(Framing.COMPRESSED_FRAMES, Framing.COMPRESSED_FRAMES);
+        List<String> requests = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add("search$" + i);
+            expected.add("r:search$" + i);
+        }
+
+        assertEquals(expected, this.client.sendAll(requests));
+    }
+
+    /**
+     * Tests whether a connection dropped by the server is detected.
+     */
+    @Test
+    public void testSend_interrupted() throws IOException {
+        connect(Framing.FRAMES, Framing.FRAMES);
+
+        assertThrows(IOException.class, () -> this.client.send("drop"));
+        assertFalse(this.client.isConnected());
+    }
+}
@@ -0,0 +1,153 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import edu.kit.informatik.adminapp.model.Attribute;
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class tests the {@link CachingServerAdapter} class.
+ */
+public class CachingServerAdapterTest {
+    private static final long TIME_TO_LIVE = 1000;
+    private static final long MISS_TIME_TO_LIVE = 100;
+
+    private final FakeServerAdapter server = new FakeServerAdapter();
+    private long time;
+    private final CachingServerAdapter cache = new CachingServerAdapter(this.server,
+            new SearchCache(2, TIME_TO_LIVE, MISS_TIME_TO_LIVE, () -> this.time));
+
+    /**
+     * Tests whether a repeated search is answered from the cache with a copy of the users.
+     */
+    @Test
+    public void testSearch_hit() throws IOException {
+        this.cache.search("", new Attribute("", "ud")).iterator().next()
+                .add(new Token(new TokenId("b")));
+
+        Collection<User> users = this.cache.search("", new Attribute("", "ud"));
+
+        assertEquals(1, this.server.searches);
+        assertEquals(1, users.iterator().next().getTokens().size());
+        assertEquals(1, this.cache.getHitCount());
+        assertEquals(1, this.cache.getMissCount());
+    }
+
+    /**
+     * Tests whether a result expires after its time to live, and a miss sooner.
+     */
+    @Test
+    public void testSearch_expired() throws IOException {
+        this.cache.search("", new Attribute("", "ud"));
+        this.cache.search("", new Attribute("", "nobody"));
+
+        this.time = MISS_TIME_TO_LIVE;
+        this.cache.search("", new Attribute("", "ud"));
+        this.cache.search("", new Attribute("", "nobody"));
+        assertEquals(3, this.server.searches);
+
+        this.time = TIME_TO_LIVE;
+        this.cache.search("", new Attribute("", "ud"));
+        assertEquals(4, this.server.searches);
+    }
+
+    /**
+     * Tests whether the least recently used result is evicted once the cache is full.
+     */
+    @Test
+    public void testSearch_evicted() throws IOException {
+        this.cache.search("", new Attribute("", "a"));
+        this.cache.search("", new Attribute("", "b"));
+        this.cache.search("", new Attribute("", "a"));
+        this.cache.search("", new Attribute("", "c"));
+
+        this.cache.search("", new Attribute("", "a"));
+        assertEquals(3, this.server.searches);
+        this.cache.search("", new Attribute("", "b"));
+        assertEquals(4, this.server.searches);
+        assertEquals(2, this.cache.getEvictionCount());
+    }
+
+    /**
+     * Tests whether the pages of a search are cached separately.
+     */
+    @Test
+    public void testSearchPage() throws IOException {
+        List<User> users = new ArrayList<>();
+
+        SearchPage page = this.cache.search("", 1, null, users::add, new Attribute("", "ud"));
+        SearchPage cached = this.cache.search("", 1, null, users::add, new Attribute("", "ud"));
+
+        assertEquals(1, this.server.searches);
+        assertEquals(2, users.size());
+        assertEquals(page.getUserCount(), cached.getUserCount());
+        assertFalse(cached.hasNext());
+    }
+
+    /**
+     * Tests whether changing the tokens of a user discards the results that contain the user.
+     */
+    @Test
+    public void testAddToken_invalidates() throws IOException {
+        User user = this.cache.search("", new Attribute("", "ud")).iterator().next();
+        this.cache.search("", new Attribute("", "nobody"));
+
+        this.cache.addToken(user, new Token(new TokenId("b")));
+        this.cache.search("", new Attribute("", "ud"));
+        this.cache.search("", new Attribute("", "nobody"));
+
+        assertEquals(3, this.server.searches);
+    }
+
+    /**
+     * Tests whether changing the credentials discards all results.
+     */
+    @Test
+    public void testSet_clears() throws IOException {
+        this.cache.search("", new Attribute("", "ud"));
+
+        this.cache.set(new UserId("jd"));
+        this.cache.search("", new Attribute("", "ud"));
+
+        assertEquals(2, this.server.searches);
+        assertTrue(this.server.uid.equals(new UserId("jd")));
+    }
+
+    /**
+     * Finds one user for every user ID except "nobody" and counts the searches.
+     */
+    private static class FakeServerAdapter extends StubServerAdapter {
+        private int searches;
+        private UserId uid;
+
+        @Override
+        public Collection<User> search(final String base, final Attribute... attributes) {
+            this.searches++;
+            String value = attributes[0].getValue();
+            if (value.equals("nobody")) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new User(new Name("Daniel Luckey"),
+                    new UserId(value), new Token(new TokenId("a"))));
+        }
+
+        @Override
+        public void set(final UserId uid) {
+            this.uid = uid;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import edu.kit.informatik.adminapp.controller.ClientChannel;
+import edu.kit.informatik.adminapp.controller.Framing;
+import edu.kit.informatik.adminapp.controller.PiStandInServer;
+import edu.kit.informatik.adminapp.controller.Transport;
+import edu.kit.informatik.adminapp.model.Attribute;
+import edu.kit.informatik.adminapp.model.Hostname;
+import edu.kit.informatik.adminapp.model.Milliseconds;
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Password;
+import edu.kit.informatik.adminapp.model.Port;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class tests the {@link PiAdapter} class against a scripted server.
+ */
+public class PiAdapterTest {
+    // every adapter gets its own port, so that the pool does not share connections between tests
+    private static final AtomicInteger NEXT_PORT = new AtomicInteger(20_000);
+    private static final String USER_RECORD = "Luckey,Daniel;ud;group:a";
+    private static final User DANIEL = new User(new Name("Daniel Luckey"), new UserId("ud"));
+
+    private final List<String> requests = new ArrayList<>();
+    private PiAdapter adapter;
+
+    /**
+     * Returns the connection of the adapter to the pool.
+     */
+    @After
+    public void tearDown() {
+        if (this.adapter != null) {
+            this.adapter.close();
+        }
+    }
+
+    private PiAdapter connect(final Function<String, String> server) throws IOException {
+        this.adapter = new PiAdapter(new Hostname("127.0.0.1"),
+                new Port(NEXT_PORT.getAndIncrement()), new Milliseconds(1000),
+                new UserId("admin"), new Password("secret"),
+                Transport.BLOCKING, Framing.LINES, () -> new ScriptedChannel(server));
+        this.adapter.connect();
+        return this.adapter;
+    }
+
+    /**
+     * Tests whether the outcome reported by the server is recognized.
+     */
+    @Test
+    public void testParseAddTokenResponse() {
+        assertEquals(AddTokenResult.ADDED, PiAdapter.parseAddTokenResponse("addToken$added"));
+        assertEquals(AddTokenResult.ALREADY_OWNED,
+                PiAdapter.parseAddTokenResponse("addToken$owned"));
+        assertEquals(AddTokenResult.OWNED_BY_OTHER,
+                PiAdapter.parseAddTokenResponse("addToken$taken"));
+        assertEquals(AddTokenResult.DENIED, PiAdapter.parseAddTokenResponse("addToken$denied"));
+    }
+
+    /**
+     * Tests whether the response of a legacy server is recognized,
+     * so that the outcome is verified by a search.
+     */
+    @Test
+    public void testParseAddTokenResponse_legacy() {
+        assertNull(PiAdapter.parseAddTokenResponse(""));
+        assertNull(PiAdapter.parseAddTokenResponse("ok"));
+        assertNull(PiAdapter.parseAddTokenResponse("addToken$maybe"));
+    }
+
+    /**
+     * Tests whether the requests after the login carry only the session.
+     */
+    @Test
+    public void testSession() throws IOException {
+        PiAdapter pi = connect((String request) -> {
+            switch (request) {
+                case "login$admin$secret":
+                    return "session$s1$3600";
+                case "search$s1$ud":
+                    return USER_RECORD;
+                default:
+                    return "";
+            }
+        });
+
+        assertTrue(pi.isAuthenticated());
+        assertEquals(1, pi.search("", new Attribute("", "ud")).size());
+        pi.removeAllTokens(pi.search("", new Attribute("", "ud")).iterator().next());
+
+        assertEquals(Arrays.asList("login$admin$secret", "search$s1$ud", "search$s1$ud",
+                "deleteAll$s1$ud"), this.requests);
+    }
+
+    /**
+     * Tests whether a new session is started and the request is sent again
+     * once the session has expired.
+     */
+    @Test
+    public void testSession_expired() throws IOException {
+        AtomicInteger logins = new AtomicInteger();
+        PiAdapter pi = connect((String request) -> {
+            if (request.equals("login$admin$secret")) {
+                return "session$s" + logins.incrementAndGet() + "$3600";
+            }
+            return request.equals("search$s2$ud") ? USER_RECORD : "expired";
+        });
+
+        assertEquals(1, pi.search("", new Attribute("", "ud")).size());
+
+        assertEquals(Arrays.asList("login$admin$secret", "search$s1$ud",
+                "login$admin$secret", "search$s2$ud"), this.requests);
+    }
+
+    /**
+     * Tests whether a wrong password is reported without falling back to a search.
+     */
+    @Test
+    public void testSession_denied() throws IOException {
+        PiAdapter pi = connect((String request) -> "denied");
+
+        assertFalse(pi.isAuthenticated());
+        assertEquals(Arrays.asList("login$admin$secret"), this.requests);
+    }
+
+    /**
+     * Tests whether the credentials are sent with every request
+     * if the server does not support sessions.
+     */
+    @Test
+    public void testSession_legacy() throws IOException {
+        PiAdapter pi = connect((String request) ->
+                request.startsWith("search$") ? USER_RECORD : "");
+
+        assertTrue(pi.isAuthenticated());
+        assertEquals(1, pi.search("", new Attribute("", "ud")).size());
+
+        assertEquals(Arrays.asList("login$admin$secret", "search$admin$secret$admin",
+                "search$admin$secret$ud"), this.requests);
+    }
+
+    /**
+     * Tests whether a search is continued from the cursor issued by the server.
+     */
+    @Test
+    public void testSearchPage() throws IOException {
+        PiAdapter pi = connect((String request) -> {
+            switch (request) {
+                case "login$admin$secret":
+                    return "session$s1$3600";
+                case "page$s1$ud$2$":
+                    return "page$c1$" + USER_RECORD + "$" + USER_RECORD;
+                case "page$s1$ud$2$c1":
+                    return "page$$" + USER_RECORD;
+                default:
+                    return "";
+            }
+        });
+        List<User> users = new ArrayList<>();
+
+        SearchPage first = pi.search("", 2, null, users::add, new Attribute("", "ud"));
+        SearchPage second = pi.search("", 2, first.getNext(), users::add,
+                new Attribute("", "ud"));
+
+        assertEquals(2, first.getUserCount());
+        assertTrue(first.hasNext());
+        assertEquals(1, second.getUserCount());
+        assertFalse(second.hasNext());
+        assertEquals(3, users.size());
+        assertEquals(Arrays.asList("login$admin$secret", "page$s1$ud$2$", "page$s1$ud$2$c1"),
+                this.requests);
+    }
+
+    /**
+     * Tests whether the pages are sliced from the complete search
+     * if the server does not support pages.
+     */
+    @Test
+    public void testSearchPage_legacy() throws IOException {
+        PiAdapter pi = connect((String request) -> request.startsWith("search$")
+                ? USER_RECORD + "$" + USER_RECORD + "$" + USER_RECORD : "");
+        List<User> users = new ArrayList<>();
+
+        SearchPage first = pi.search("", 2, null, users::add, new Attribute("", "ud"));
+        SearchPage second = pi.search("", 2, first.getNext(), users::add,
+                new Attribute("", "ud"));
+
+        assertEquals(2, first.getUserCount());
+        assertTrue(first.hasNext());
+        assertEquals(1, second.getUserCount());
+        assertFalse(second.hasNext());
+        assertEquals(3, users.size());
+        // The later pages are sliced from the result of the first search
+        assertEquals(Arrays.asList("login$admin$secret", "page$admin$secret$ud$2$",
+                "search$admin$secret$ud"), this.requests);
+    }
+
+    /**
+     * Tests whether a token that a legacy server lists for the user afterwards is reported
+     * as added.
+     */
+    @Test
+    public void testAddToken_legacyAdded() throws IOException {
+        try (PiStandInServer server = legacyServer()) {
+            PiAdapter pi = connect(server);
+
+            assertEquals(AddTokenResult.ADDED,
+                    pi.addToken(DANIEL, new Token(new TokenId("c"))));
+            assertEquals(Arrays.asList("login$admin$secret", "addToken$admin$secret$ud$c",
+                    "search$admin$secret$ud"), server.requests);
+        }
+    }
+
+    /**
+     * Tests whether a token the user owned before is reported as already owned
+     * by a legacy server.
+     */
+    @Test
+    public void testAddToken_legacyAlreadyOwned() throws IOException {
+        try (PiStandInServer server = legacyServer()) {
+            PiAdapter pi = connect(server);
+            User daniel = new User(DANIEL.getName(), DANIEL.getId(), new Token(new TokenId("a")));
+
+            assertEquals(AddTokenResult.ALREADY_OWNED,
+                    pi.addToken(daniel, new Token(new TokenId("a"))));
+        }
+    }
+
+    /**
+     * Tests whether a token that a legacy server does not list for the user afterwards
+     * is reported as denied, since its owner cannot be determined.
+     */
+    @Test
+    public void testAddToken_legacyNotAdded() throws IOException {
+        try (PiStandInServer server = legacyServer()) {
+            PiAdapter pi = connect(server);
+
+            assertEquals(AddTokenResult.DENIED,
+                    pi.addToken(DANIEL, new Token(new TokenId("b"))));
+        }
+    }
+
+    /**
+     * Tests whether adding a token to a user that a legacy server cannot find
+     * is reported as denied.
+     */
+    @Test
+    public void testAddToken_legacyUnknownUser() throws IOException {
+        try (PiStandInServer server = legacyServer()) {
+            PiAdapter pi = connect(server);
+
+            assertEquals(AddTokenResult.DENIED, pi.addToken(new User(new Name("Nobody"),
+                    new UserId("nb")), new Token(new TokenId("c"))));
+        }
+    }
+
+    /**
+     * Tests whether a denied batch fails every change without disabling batches.
+     */
+    @Test
+    public void testChangeTokens_denied() throws IOException {
+        PiAdapter pi = connect((String request) -> request.startsWith("login$")
+                ? "session$s1$3600" : "denied");
+        List<TokenChange> changes = Arrays.asList(TokenChange.add(DANIEL, new Token(
+                new TokenId("a"))), TokenChange.remove(DANIEL, new Token(new TokenId("b"))));
+
+        assertEquals(Arrays.asList(TokenResult.FAILED, TokenResult.FAILED),
+                pi.changeTokens(changes));
+        pi.changeTokens(changes);
+
+        assertEquals(Arrays.asList("login$admin$secret",
+                "batch$s1$addToken$ud$a$deleteToken$ud$b",
+                "batch$s1$addToken$ud$a$deleteToken$ud$b"), this.requests);
+    }
+
+    /**
+     * Tests whether an error response to a batch is reported without disabling batches.
+     */
+    @Test
+    public void testChangeTokens_error() throws IOException {
+        PiAdapter pi = connect((String request) -> request.startsWith("login$")
+                ? "session$s1$3600" : "");
+        List<TokenChange> changes = Collections.singletonList(
+                TokenChange.add(DANIEL, new Token(new TokenId("a"))));
+
+        assertThrows(ProtocolException.class, () -> pi.changeTokens(changes));
+        assertThrows(ProtocolException.class, () -> pi.changeTokens(changes));
+        assertEquals(Arrays.asList("login$admin$secret", "batch$s1$addToken$ud$a",
+                "batch$s1$addToken$ud$a"), this.requests);
+    }
+
+    /**
+     * Tests whether the changes are sent one by one once the server answers that it does
+     * not know batches.
+     */
+    @Test
+    public void testChangeTokens_legacy() throws IOException {
+        PiAdapter pi = connect((String request) -> request.startsWith("batch$")
+                ? "error" : "");
+        List<TokenChange> changes = Collections.singletonList(
+                TokenChange.add(DANIEL, new Token(new TokenId("a"))));
+
+        assertEquals(Collections.singletonList(TokenResult.UNCONFIRMED),
+                pi.changeTokens(changes));
+        pi.changeTokens(changes);
+
+        assertEquals(Arrays.asList("login$admin$secret", "batch$admin$secret$addToken$ud$a",
+                "addToken$admin$secret$ud$a", "addToken$admin$secret$ud$a"), this.requests);
+    }
+
+    private PiAdapter connect(final PiStandInServer server) throws IOException {
+        this.adapter = new PiAdapter(new Hostname("127.0.0.1"),
+                new Port(NEXT_PORT.getAndIncrement()), new Milliseconds(1000),
+                new UserId("admin"), new Password("secret"),
+                Transport.BLOCKING, Framing.LINES, () -> server.createClient(Framing.LINES));
+        this.adapter.connect();
+        return this.adapter;
+    }
+
+    /**
+     * Starts a legacy server, which knows neither sessions nor the outcome of an addToken
+     * request. The user ud owns the token a, and the user jd owns the token b.
+     */
+    private static PiStandInServer legacyServer() throws IOException {
+        Map<String, Set<String>> tokens = new ConcurrentHashMap<>();
+        tokens.put("ud", new LinkedHashSet<>(Collections.singleton("a")));
+        tokens.put("jd", new LinkedHashSet<>(Collections.singleton("b")));
+        return new PiStandInServer(Framing.LINES, (String request) -> {
+            String[] fields = request.split("\\$");
+            switch (fields[0]) {
+                case "addToken":
+                    boolean isTaken = false;
+                    for (Set<String> owned : tokens.values()) {
+                        isTaken |= owned.contains(fields[4]);
+                    }
+                    if (!isTaken && tokens.containsKey(fields[3])) {
+                        tokens.get(fields[3]).add(fields[4]);
+                    }
+                    return "";
+                case "search":
+                    Set<String> owned = tokens.get(fields[3]);
+                    return owned == null ? ""
+                            : "Luckey,Daniel;" + fields[3] + ";group:" + String.join(";", owned);
+                default:
+                    return "error";
+            }
+        });
+    }
+
+    /**
+     * Answers every request with the response of a function, like a server
+     * that processes one request after another.
+     */
+    private class ScriptedChannel implements ClientChannel {
+        private final Function<String, String> server;
+        private boolean isConnected;
+
+        ScriptedChannel(final Function<String, String> server) {
+            this.server = server;
+        }
+
+        @Override
+        public void connect() {
+            this.isConnected = true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return this.isConnected;
+        }
+
+        @Override
+        public String send(final String message) {
+            PiAdapterTest.this.requests.add(message);
+            return this.server.apply(message);
+        }
+
+        @Override
+        public void close() {
+            this.isConnected = false;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !this.isConnected;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class compares the {@link RequestEncoder} with the format strings it replaces.
+ * It is not part of the regular tests, run it manually to print the time and the memory
+ * allocated per request.
+ */
+@Ignore("benchmark")
+public class RequestEncoderBenchmark {
+    private static final int WARMUP_ITERATIONS = 2_000_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final String ADMIN = "admin";
+    private static final String PASSWORD = "secret";
+    private static final String USER = "ud123456";
+    private static final String TOKEN
+            = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private final RequestEncoder encoder = new RequestEncoder();
+    // consumes the requests, so that they are not optimized away
+    private long checksum;
+
+    /**
+     * Measures the encoding of an addToken request.
+     */
+    @Test
+    public void benchmarkAddToken() {
+        run("String.format", this::formatRequest);
+        run("RequestEncoder", this::encodeRequest);
+        assertEquals(String.format("addToken$%s$%s$%s$%s", ADMIN, PASSWORD, USER, TOKEN),
+                StandardCharsets.UTF_8.decode(this.encoder.toByteBuffer()).toString());
+    }
+
+    private void formatRequest() {
+        String request = String.format("addToken$%s$%s$%s$%s", ADMIN, PASSWORD, USER, TOKEN);
+        this.checksum += request.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private void encodeRequest() {
+        ByteBuffer request = this.encoder.begin("addToken")
+                .field(ADMIN).field(PASSWORD).field(USER).field(TOKEN).toByteBuffer();
+        this.checksum += request.remaining();
+    }
+
+    private void run(final String name, final Runnable encode) {
+        // Warm up long enough for the JIT compiler, even on a single core
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            encode.run();
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encode.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-15s %6.1f ns/request %6d bytes/request%n", name,
+                (double) nanos / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
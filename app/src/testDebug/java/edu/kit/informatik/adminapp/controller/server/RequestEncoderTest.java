@@ -0,0 +1,80 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class tests the {@link RequestEncoder} class.
+ */
+public class RequestEncoderTest {
+    private final RequestEncoder encoder = new RequestEncoder();
+
+    /**
+     * Tests whether a request is encoded like the format strings it replaces.
+     */
+    @Test
+    public void testEncode() {
+        this.encoder.begin("addToken").field("admin").field("secret").field("ud").field("a1");
+
+        assertEquals(String.format("addToken$%s$%s$%s$%s", "admin", "secret", "ud", "a1"),
+                decode(this.encoder.toByteBuffer()));
+        assertEquals("addToken$admin$secret$ud$a1", this.encoder.toString());
+    }
+
+    /**
+     * Tests whether reserved characters are escaped, including the backslash
+     * for a server that unescapes fields.
+     */
+    @Test
+    public void testEncode_escaped() {
+        this.encoder.begin("search", true).field("a$b\\c\nd\re");
+
+        assertEquals("search$a\\$b\\\\c\\nd\\re", decode(this.encoder.toByteBuffer()));
+    }
+
+    /**
+     * Tests whether a backslash is sent as it is to a server that does not unescape fields,
+     * so that credentials and IDs with a backslash keep their bytes.
+     */
+    @Test
+    public void testEncode_legacyBackslash() {
+        this.encoder.begin("login").field("ud").field("pa\\ss$word");
+
+        assertEquals("login$ud$pa\\ss\\$word", decode(this.encoder.toByteBuffer()));
+    }
+
+    /**
+     * Tests whether characters outside of ASCII are encoded as UTF-8.
+     */
+    @Test
+    public void testEncode_utf8() {
+        String field = "Lückey € 😀";
+        this.encoder.begin("search").field(field);
+
+        assertEquals("search$" + field, decode(this.encoder.toByteBuffer()));
+    }
+
+    /**
+     * Tests whether the buffer grows for long requests and is reused for the next request.
+     */
+    @Test
+    public void testEncode_reused() {
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            field.append("ä");
+        }
+        this.encoder.begin("search").field(field);
+        assertEquals("search$" + field, decode(this.encoder.toByteBuffer()));
+
+        this.encoder.begin("deleteAll").field("ud");
+        assertEquals("deleteAll$ud", decode(this.encoder.toByteBuffer()));
+    }
+
+    private static String decode(final ByteBuffer request) {
+        return StandardCharsets.UTF_8.decode(request).toString();
+    }
+}
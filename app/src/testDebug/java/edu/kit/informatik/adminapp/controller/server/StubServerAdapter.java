@@ -0,0 +1,96 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import android.os.Parcel;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import edu.kit.informatik.adminapp.model.Attribute;
+import edu.kit.informatik.adminapp.model.Password;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * A server adapter for tests that is always connected and authenticated, finds no users and
+ * accepts every change. Tests override the methods they observe.
+ */
+public class StubServerAdapter implements ServerAdapter {
+    @Override
+    public void set(final UserId uid) {
+    }
+
+    @Override
+    public void set(final Password password) {
+    }
+
+    @Override
+    public void connect() throws IOException {
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    @Override
+    public boolean isAuthenticated() throws IOException {
+        return true;
+    }
+
+    @Override
+    public Collection<User> search(final String base, final Attribute... attributes)
+            throws IOException {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public AddTokenResult addToken(final User user, final Token token) throws IOException {
+        return AddTokenResult.ADDED;
+    }
+
+    @Override
+    public List<TokenResult> addTokens(final User user, final Collection<Token> tokens)
+            throws IOException {
+        return Collections.nCopies(tokens.size(), TokenResult.SUCCEEDED);
+    }
+
+    @Override
+    public void removeToken(final User user, final Token token) throws IOException {
+    }
+
+    @Override
+    public List<TokenResult> removeTokens(final User user, final Collection<Token> tokens)
+            throws IOException {
+        return Collections.nCopies(tokens.size(), TokenResult.SUCCEEDED);
+    }
+
+    @Override
+    public List<TokenResult> changeTokens(final List<TokenChange> changes) throws IOException {
+        return Collections.nCopies(changes.size(), TokenResult.SUCCEEDED);
+    }
+
+    @Override
+    public void removeAllTokens(final User user) throws IOException {
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(final Parcel parcel, final int flag) {
+    }
+}
@@ -0,0 +1,82 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class tests the {@link TokenBatch} class.
+ */
+public class TokenBatchTest {
+    private final User daniel = new User(new Name("Daniel Luckey"), new UserId("ud"));
+    private final User jane = new User(new Name("Jane Doe"), new UserId("jd"));
+
+    /**
+     * Tests whether changes of several users are encoded in one request.
+     */
+    @Test
+    public void testCreateRequest() {
+        List<TokenChange> changes = Arrays.asList(
+                TokenChange.add(this.daniel, new Token(new TokenId("a"))),
+                TokenChange.remove(this.jane, new Token(new TokenId("b"))));
+
+        RequestEncoder request = new RequestEncoder().begin(TokenBatch.COMMAND)
+                .field("admin").field("secret");
+        TokenBatch.appendChanges(request, changes);
+
+        assertEquals("batch$admin$secret$addToken$ud$a$deleteToken$jd$b",
+                StandardCharsets.UTF_8.decode(request.toByteBuffer()).toString());
+    }
+
+    /**
+     * Tests whether the result of every change is decoded.
+     */
+    @Test
+    public void testParseResponse() throws ProtocolException {
+        assertEquals(Arrays.asList(TokenResult.SUCCEEDED, TokenResult.FAILED),
+                TokenBatch.parseResponse("batch$ok$failed", 2));
+    }
+
+    /**
+     * Tests whether the response of a server that does not support batches is recognized.
+     */
+    @Test
+    public void testParseResponse_legacy() throws ProtocolException {
+        assertNull(TokenBatch.parseResponse("error", 1));
+    }
+
+    /**
+     * Tests whether every change fails if the server denies access.
+     */
+    @Test
+    public void testParseResponse_denied() throws ProtocolException {
+        assertEquals(Arrays.asList(TokenResult.FAILED, TokenResult.FAILED),
+                TokenBatch.parseResponse("denied", 2));
+    }
+
+    /**
+     * Tests whether a response with the wrong number of results or an unknown result,
+     * and any other response, is rejected.
+     */
+    @Test
+    public void testParseResponse_malformed() {
+        assertThrows(ProtocolException.class, () -> TokenBatch.parseResponse("batch$ok", 2));
+        assertThrows(ProtocolException.class, () -> TokenBatch.parseResponse("batch$ok$", 1));
+        assertThrows(ProtocolException.class, () -> TokenBatch.parseResponse("batch$maybe", 1));
+        assertThrows(ProtocolException.class, () -> TokenBatch.parseResponse("", 1));
+        assertThrows(ProtocolException.class, () -> TokenBatch.parseResponse("batches$ok", 1));
+    }
+}
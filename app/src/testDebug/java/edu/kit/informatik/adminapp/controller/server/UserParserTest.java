@@ -0,0 +1,157 @@
+package edu.kit.informatik.adminapp.controller.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class tests the {@link UserParser} class against the regular expressions
+ * that were used to parse search responses before.
+ */
+public class UserParserTest {
+    private static final Pattern USER = Pattern.compile(
+            "([^,]+),([^;]+);([^;]+);([^:]+):([^;]+(?:;[^;]+)*)?");
+    private static final Pattern TOKEN = Pattern.compile("[^;]+");
+    private static final String ALPHABET = "aaa ,;;:$";
+    private static final int RANDOM_RESPONSES = 20_000;
+    private static final int MAX_RESPONSE_LENGTH = 40;
+
+    private final UserParser parser = new UserParser();
+
+    /**
+     * Tests whether a well-formed response is parsed.
+     */
+    @Test
+    public void testParse() {
+        List<User> users = parse("Luckey,Daniel;ud;group:a;b$Doe,Jane;jd;group:");
+
+        assertEquals(2, users.size());
+        assertEquals(new User(new Name("Daniel Luckey"), new UserId("ud"),
+                new Token(new TokenId("a")), new Token(new TokenId("b"))), users.get(0));
+        assertEquals(new User(new Name("Jane Doe"), new UserId("jd")), users.get(1));
+        assertTrue(users.get(1).getTokens().isEmpty());
+    }
+
+    /**
+     * Tests whether malformed records are skipped.
+     */
+    @Test
+    public void testParse_malformed() {
+        assertEquals(0, parse("").size());
+        assertEquals(0, parse(",Daniel;ud;group:a").size());
+        assertEquals(0, parse("Luckey,Daniel;ud;:a").size());
+        assertEquals(0, parse("Luckey,Daniel;ud;group:a;").size());
+        assertEquals(0, parse("Luckey,Daniel;ud;group:a;;b").size());
+        assertEquals(0, parse("Luckey,Daniel;ud;group:;a").size());
+        assertEquals(1, parse("Luckey,Daniel;ud;group:a$$").size());
+    }
+
+    /**
+     * Tests whether a user is passed on as soon as its record has been read,
+     * before the rest of the response has been received.
+     */
+    @Test
+    public void testParse_incremental() throws IOException {
+        final String first = "Luckey,Daniel;ud;group:a$";
+        final Reader response = new SequenceReader(first, "Doe,Jane;jd;group:");
+        final List<Integer> receivedChunks = new ArrayList<>();
+
+        int count = this.parser.parse(response,
+                (User user) -> receivedChunks.add(((SequenceReader) response).chunksRead));
+
+        assertEquals(2, count);
+        assertEquals(Arrays.asList(1, 2), receivedChunks);
+    }
+
+    /**
+     * Tests whether random responses are parsed exactly like with the regular expressions.
+     */
+    @Test
+    public void testParse_differential() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < RANDOM_RESPONSES; i++) {
+            StringBuilder response = new StringBuilder();
+            int length = random.nextInt(MAX_RESPONSE_LENGTH);
+            for (int j = 0; j < length; j++) {
+                response.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+
+            List<User> expected = parseWithRegex(response.toString());
+            List<User> streamed = new ArrayList<>();
+            this.parser.parse(new StringReader(response.toString()), streamed::add);
+
+            assertEquals(response.toString(), expected, parse(response));
+            assertEquals(response.toString(), expected, streamed);
+        }
+    }
+
+    /**
+     * Returns one chunk per call to {@link #read(char[], int, int)}, like a response
+     * whose parts arrive one after another.
+     */
+    private static class SequenceReader extends Reader {
+        private final String[] chunks;
+        private int chunksRead;
+
+        SequenceReader(final String... chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (this.chunksRead == this.chunks.length) {
+                return -1;
+            }
+            String chunk = this.chunks[this.chunksRead++];
+            chunk.getChars(0, chunk.length(), buffer, offset);
+            return chunk.length();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private List<User> parse(final CharSequence response) {
+        List<User> users = new ArrayList<>();
+        this.parser.parse(response, users::add);
+        return users;
+    }
+
+    private static List<User> parseWithRegex(final String response) {
+        List<User> users = new ArrayList<>();
+        for (String record : response.split("\\$", -1)) {
+            Matcher userMatcher = USER.matcher(record);
+            if (userMatcher.matches()) {
+                User user = new User(new Name(userMatcher.group(2) + " " + userMatcher.group(1)),
+                        new UserId(userMatcher.group(3)));
+                String tokens = userMatcher.group(5);
+                if (tokens != null) {
+                    Matcher tokenMatcher = TOKEN.matcher(tokens);
+                    while (tokenMatcher.find()) {
+                        user.add(new Token(new TokenId(tokenMatcher.group())));
+                    }
+                }
+                users.add(user);
+            }
+        }
+        return users;
+    }
+}
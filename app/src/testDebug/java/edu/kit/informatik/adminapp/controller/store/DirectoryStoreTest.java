@@ -0,0 +1,256 @@
+package edu.kit.informatik.adminapp.controller.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenData;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.UserId;
+import edu.kit.informatik.adminapp.model.UserSnapshot;
+
+/**
+ * This class tests the {@link DirectoryStore} class.
+ */
+public class DirectoryStoreTest {
+    private final UserSnapshot daniel = new UserSnapshot(new Name("Daniel Luckey"),
+            new UserId("ud"), new Token(new TokenId("a"), new TokenData("data")),
+            new Token(new TokenId("b")));
+    private final UserSnapshot jane = new UserSnapshot(new Name("Jane Doe"), new UserId("jd"));
+    private File file;
+
+    /**
+     * Creates a file for the store.
+     */
+    @Before
+    public void setUp() throws IOException {
+        this.file = File.createTempFile("directory", ".bin");
+        Files.delete(this.file.toPath());
+    }
+
+    /**
+     * Deletes the file of the store.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    // the file is only written when the test calls save()
+    private DirectoryStore store() {
+        return new DirectoryStore(this.file, (Runnable save) -> { });
+    }
+
+    /**
+     * Tests whether the users written to the file are read again.
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        DirectoryStore store = store();
+        store.putAll(Arrays.asList(this.daniel, this.jane));
+        store.save();
+
+        DirectoryStore loaded = store();
+        loaded.load();
+
+        assertEquals(2, loaded.size());
+        assertEquals(this.daniel, loaded.get(new UserId("ud")));
+        assertEquals(this.jane, loaded.get(new UserId("jd")));
+    }
+
+    /**
+     * Tests whether the hash of a scanned token is read again and still finds its owner.
+     */
+    @Test
+    public void testSaveLoad_hash() throws IOException {
+        TokenId hash = TokenId.of(
+                "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+        UserSnapshot scanned = new UserSnapshot(new Name("Jane Doe"), new UserId("jd"),
+                new Token(hash, new TokenData("data")));
+        DirectoryStore store = store();
+        store.put(scanned);
+        store.save();
+
+        DirectoryStore loaded = store();
+        loaded.load();
+
+        assertEquals(scanned, loaded.findOwner(hash));
+        assertEquals(Collections.singletonList(scanned), loaded.find("doe"));
+    }
+
+    /**
+     * Tests whether a file of the first version, whose token IDs are strings, is read.
+     */
+    @Test
+    public void testLoad_stringIds() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(this.file))) {
+            out.writeInt(0x41444D53);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeUTF("ud");
+            out.writeUTF("Daniel Luckey");
+            out.writeInt(2);
+            out.writeUTF("a");
+            out.writeUTF("data");
+            out.writeUTF("b");
+            out.writeUTF("");
+        }
+
+        DirectoryStore loaded = store();
+        loaded.load();
+
+        assertEquals(this.daniel, loaded.get(new UserId("ud")));
+    }
+
+    /**
+     * Tests whether a missing file is read as an empty store.
+     */
+    @Test
+    public void testLoad_missing() throws IOException {
+        DirectoryStore store = store();
+        store.load();
+
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * Tests whether a file that is not a store is rejected.
+     */
+    @Test
+    public void testLoad_corrupted() throws IOException {
+        Files.write(this.file.toPath(), "users".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(StreamCorruptedException.class, () -> store().load());
+    }
+
+    /**
+     * Tests whether users that have been stored before the file has been read
+     * are not replaced by the users of the file.
+     */
+    @Test
+    public void testLoad_keepsNewerUsers() throws IOException {
+        DirectoryStore store = store();
+        store.put(this.daniel);
+        store.save();
+
+        DirectoryStore loaded = store();
+        UserSnapshot changed = new UserSnapshot(new Name("Daniel Luckey"), new UserId("ud"));
+        loaded.put(changed);
+        loaded.load();
+
+        assertEquals(changed, loaded.get(new UserId("ud")));
+    }
+
+    /**
+     * Tests whether users are found by user ID and by the beginning of any of their names.
+     */
+    @Test
+    public void testFind() {
+        DirectoryStore store = store();
+        store.putAll(Arrays.asList(this.daniel, this.jane));
+
+        assertEquals(Arrays.asList(this.daniel), store.find("ud"));
+        assertEquals(Arrays.asList(this.daniel), store.find("Luc"));
+        assertEquals(Arrays.asList(this.daniel), store.find("daniel l"));
+        assertEquals(Arrays.asList(this.daniel, this.jane), store.find("d"));
+        assertTrue(store.find("x").isEmpty());
+        assertTrue(store.find("").isEmpty());
+    }
+
+    /**
+     * Tests whether a stored user is handed out without a copy, and whether a changed name
+     * replaces the old name in the index.
+     */
+    @Test
+    public void testPut_replaces() {
+        DirectoryStore store = store();
+        store.put(this.jane);
+        assertSame(this.jane, store.get(new UserId("jd")));
+        store.put(new UserSnapshot(new Name("Jane Roe"), new UserId("jd")));
+
+        List<UserSnapshot> found = store.find("roe");
+        assertEquals(1, found.size());
+        assertTrue(store.find("doe").isEmpty());
+
+        store.remove(new UserId("jd"));
+        assertTrue(store.find("roe").isEmpty());
+        assertNull(store.get(new UserId("jd")));
+    }
+
+    /**
+     * Tests whether the owner of a token is found, also after the token has been moved.
+     */
+    @Test
+    public void testFindOwner() {
+        DirectoryStore store = store();
+        store.putAll(Arrays.asList(this.daniel, this.jane));
+        assertEquals(this.daniel, store.findOwner(new TokenId("a")));
+        assertNull(store.findOwner(new TokenId("c")));
+
+        UserSnapshot janeWithToken = new UserSnapshot(new Name("Jane Doe"), new UserId("jd"),
+                new Token(new TokenId("a")));
+        store.put(janeWithToken);
+
+        assertEquals(janeWithToken, store.findOwner(new TokenId("a")));
+        assertEquals(1, store.get(new UserId("ud")).getTokens().size());
+
+        store.remove(new UserId("jd"));
+        assertNull(store.findOwner(new TokenId("a")));
+    }
+
+    /**
+     * Tests whether the users of the file do not take tokens from users received since.
+     */
+    @Test
+    public void testFindOwner_loaded() throws IOException {
+        DirectoryStore store = store();
+        store.put(this.daniel);
+        store.save();
+
+        DirectoryStore loaded = store();
+        UserSnapshot jane = new UserSnapshot(new Name("Jane Doe"), new UserId("jd"),
+                new Token(new TokenId("a")));
+        loaded.put(jane);
+        loaded.load();
+
+        assertEquals(jane, loaded.findOwner(new TokenId("a")));
+        assertEquals(this.daniel, loaded.findOwner(new TokenId("b")));
+    }
+
+    /**
+     * Tests whether users are stale until they have been received in this process.
+     */
+    @Test
+    public void testIsStale() throws IOException {
+        DirectoryStore store = store();
+        store.put(this.daniel);
+        store.save();
+        DirectoryStore loaded = store();
+        loaded.load();
+
+        assertFalse(store.isStale(new UserId("ud"), 60_000));
+        assertTrue(store.isStale(new UserId("ud"), 0));
+        assertTrue(loaded.isStale(new UserId("ud"), 60_000));
+        assertTrue(store.isStale(new UserId("jd"), 60_000));
+    }
+}
@@ -0,0 +1,290 @@
+package edu.kit.informatik.adminapp.controller.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ProtocolException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.kit.informatik.adminapp.controller.server.StubServerAdapter;
+import edu.kit.informatik.adminapp.controller.server.TokenChange;
+import edu.kit.informatik.adminapp.controller.server.TokenResult;
+import edu.kit.informatik.adminapp.model.Name;
+import edu.kit.informatik.adminapp.model.Token;
+import edu.kit.informatik.adminapp.model.TokenId;
+import edu.kit.informatik.adminapp.model.User;
+import edu.kit.informatik.adminapp.model.UserId;
+
+/**
+ * This class tests the {@link TokenJournal} class.
+ */
+public class TokenJournalTest {
+    // the length of the header of the file
+    private static final int HEADER_LENGTH = 8;
+
+    private final User daniel = new User(new Name("Daniel Luckey"), new UserId("ud"));
+    private final Token a = new Token(new TokenId("a"));
+    private final Token b = new Token(new TokenId("b"));
+    private final Token c = new Token(new TokenId("c"));
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final FakeServerAdapter server = new FakeServerAdapter();
+    private File file;
+
+    /**
+     * Creates a file for the journal.
+     */
+    @Before
+    public void setUp() throws IOException {
+        this.file = File.createTempFile("journal", ".bin");
+        Files.delete(this.file.toPath());
+    }
+
+    /**
+     * Stops the executor of the journal and deletes its file.
+     */
+    @After
+    public void tearDown() throws IOException {
+        this.executor.shutdownNow();
+        Files.deleteIfExists(this.file.toPath());
+    }
+
+    private TokenJournal journal() throws IOException {
+        final TokenJournal journal = new TokenJournal(this.file, this.executor);
+        journal.load();
+        return journal;
+    }
+
+    // waits until the records that have been written so far are synced
+    private void flush() throws ExecutionException, InterruptedException {
+        this.executor.submit(() -> { }).get();
+    }
+
+    /**
+     * Tests whether the recorded changes are read again once they have been written.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        final TokenJournal journal = journal();
+        journal.addToken(this.daniel, this.a).join();
+        journal.removeToken(this.daniel, this.b).join();
+        journal.removeAllTokens(this.daniel).join();
+
+        final TokenJournal loaded = journal();
+        assertEquals(3, loaded.size());
+        loaded.replayNow(this.server);
+        assertEquals(Arrays.asList("add ud a", "remove ud b", "removeAll ud"),
+                this.server.requests);
+    }
+
+    /**
+     * Tests whether a record that has been cut off is discarded, and new records are
+     * written after the intact ones.
+     */
+    @Test
+    public void testLoad_torn() throws IOException {
+        final TokenJournal journal = journal();
+        journal.addToken(this.daniel, this.a).join();
+        journal.addToken(this.daniel, this.b).join();
+        try (RandomAccessFile raf = new RandomAccessFile(this.file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+
+        final TokenJournal loaded = journal();
+        assertEquals(1, loaded.size());
+        loaded.addToken(this.daniel, this.c).join();
+
+        journal().replayNow(this.server);
+        assertEquals(Arrays.asList("add ud a", "add ud c"), this.server.requests);
+    }
+
+    /**
+     * Tests whether the number of changes includes the changes of the file that is still
+     * being read.
+     */
+    @Test
+    public void testSize_loading() throws Exception {
+        journal().addToken(this.daniel, this.a).join();
+
+        final TokenJournal loading = new TokenJournal(this.file, this.executor);
+        this.executor.schedule(() -> {
+            loading.load();
+            return null;
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertFalse(loading.isEmpty());
+        assertEquals(1, loading.size());
+    }
+
+    /**
+     * Tests whether the changes are sent in order, in batches that are separated by
+     * the removal of all tokens, and whether the file is emptied afterwards.
+     */
+    @Test
+    public void testReplayNow() throws Exception {
+        final TokenJournal journal = journal();
+        journal.addToken(this.daniel, this.a);
+        journal.removeToken(this.daniel, this.b);
+        journal.removeAllTokens(this.daniel);
+        journal.addToken(this.daniel, this.c).join();
+
+        assertEquals(4, journal.replayNow(this.server));
+        assertTrue(journal.isEmpty());
+        assertEquals(Arrays.asList("add ud a", "remove ud b", "removeAll ud", "add ud c"),
+                this.server.requests);
+        assertEquals(Arrays.asList(2, 1), this.server.batchSizes);
+
+        flush();
+        assertEquals(HEADER_LENGTH, this.file.length());
+        assertEquals(0, journal().size());
+    }
+
+    /**
+     * Tests whether the changes after a failed batch are kept, and the changes before it
+     * are not sent again.
+     */
+    @Test
+    public void testReplayNow_failed() throws Exception {
+        final TokenJournal journal = journal();
+        journal.addToken(this.daniel, this.a);
+        journal.removeAllTokens(this.daniel);
+        journal.addToken(this.daniel, this.b).join();
+        this.server.isReachable = false;
+
+        assertThrows(IOException.class, () -> journal.replayNow(this.server));
+        assertEquals(2, journal.size());
+
+        flush();
+        this.server.isReachable = true;
+        this.server.requests.clear();
+        journal().replayNow(this.server);
+        assertEquals(Arrays.asList("removeAll ud", "add ud b"), this.server.requests);
+    }
+
+    /**
+     * Tests whether a change the server rejects is dropped and reported to the listener,
+     * and whether a rejection is kept until there is a listener.
+     */
+    @Test
+    public void testReplayNow_rejected() throws Exception {
+        final TokenJournal journal = journal();
+        journal.addToken(this.daniel, this.a);
+        journal.addToken(this.daniel, this.b).join();
+        this.server.rejected.add(this.b);
+
+        assertEquals(2, journal.replayNow(this.server));
+        assertTrue(journal.isEmpty());
+
+        final List<TokenChange> rejected = new ArrayList<>();
+        journal.setListener(new TokenJournal.Listener() {
+            @Override
+            public void onRejected(final TokenChange change) {
+                rejected.add(change);
+            }
+
+            @Override
+            public void onRemoveAllRejected(final User user) {
+                throw new AssertionError(user);
+            }
+        });
+        assertEquals(Collections.singletonList(TokenChange.add(this.daniel, this.b)), rejected);
+
+        journal.addToken(this.daniel, this.b).join();
+        journal.replayNow(this.server);
+        assertEquals(2, rejected.size());
+    }
+
+    /**
+     * Tests whether a batch whose response is invalid is dropped and reported, so that the
+     * following changes are still sent.
+     */
+    @Test
+    public void testReplayNow_invalid() throws Exception {
+        final TokenJournal journal = journal();
+        journal.addToken(this.daniel, this.a);
+        journal.removeAllTokens(this.daniel);
+        journal.addToken(this.daniel, this.c).join();
+        this.server.invalid = this.a;
+
+        final List<TokenChange> rejected = new ArrayList<>();
+        journal.setListener(new TokenJournal.Listener() {
+            @Override
+            public void onRejected(final TokenChange change) {
+                rejected.add(change);
+            }
+
+            @Override
+            public void onRemoveAllRejected(final User user) {
+                throw new AssertionError(user);
+            }
+        });
+
+        assertEquals(3, journal.replayNow(this.server));
+        assertTrue(journal.isEmpty());
+        assertEquals(Collections.singletonList(TokenChange.add(this.daniel, this.a)), rejected);
+        assertEquals(Arrays.asList("removeAll ud", "add ud c"), this.server.requests);
+    }
+
+    /**
+     * Records the changes it receives, rejects the additions of some tokens, answers the
+     * changes of an invalid token with an invalid response, and cannot be reached after the
+     * first request once it has been made unreachable.
+     */
+    private static class FakeServerAdapter extends StubServerAdapter {
+        private final List<String> requests = new ArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final List<Token> rejected = new ArrayList<>();
+        private Token invalid;
+        private boolean isReachable = true;
+
+        private void request(final String request) throws IOException {
+            if (!this.isReachable && !this.requests.isEmpty()) {
+                throw new IOException(request);
+            }
+            this.requests.add(request);
+        }
+
+        @Override
+        public List<TokenResult> changeTokens(final List<TokenChange> changes) throws IOException {
+            final List<String> batch = new ArrayList<>();
+            for (final TokenChange change : changes) {
+                if (change.getToken().equals(this.invalid)) {
+                    throw new ProtocolException(change.getToken().toString());
+                }
+                batch.add((change.getKind() == TokenChange.Kind.ADD ? "add " : "remove ")
+                        + change.getUser().getId() + " " + change.getToken().getId());
+            }
+            for (final String request : batch) {
+                request(request);
+            }
+            this.batchSizes.add(changes.size());
+            final List<TokenResult> results = new ArrayList<>();
+            for (final TokenChange change : changes) {
+                results.add(this.rejected.contains(change.getToken())
+                        ? TokenResult.FAILED : TokenResult.SUCCEEDED);
+            }
+            return results;
+        }
+
+        @Override
+        public void removeAllTokens(final User user) throws IOException {
+            request("removeAll " + user.getId());
+        }
+    }
+}
@@ -3,6 +3,8 @@ package edu.kit.informatik.adminapp.model;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -121,4 +123,15 @@ public class NameTest {
         Name name2 = new Name(validNames[1]);
         assertNotEquals(name1.hashCode(), name2.hashCode());
     }
+
+    /**
+     * Tests whether equal values share one instance, and whether invalid values are rejected.
+     */
+    @Test
+    public void testOf() {
+        assertSame(Name.of(new String(validNames[0])), Name.of(new String(validNames[0])));
+        assertNotSame(Name.of(validNames[0]), Name.of(validNames[1]));
+        assertEquals(new Name(validNames[0]), Name.of(validNames[0]));
+        assertThrows(IllegalArgumentException.class, () -> Name.of("$"));
+    }
 }
@@ -122,4 +122,14 @@ public class TokenDataTest {
             assertEquals(this.tokenDataString[i], this.tokenData[i].toString());
         }
     }
+
+    /**
+     * Tests whether tokens without data share one instance.
+     */
+    @Test
+    public void testOf() {
+        assertSame(TokenData.EMPTY, TokenData.of(TokenData.NO_DATA));
+        assertSame(TokenData.EMPTY, new Token(new TokenId("a")).getData());
+        assertEquals(new TokenData("data"), TokenData.of("data"));
+    }
 }
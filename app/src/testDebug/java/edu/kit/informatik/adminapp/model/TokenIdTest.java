@@ -3,11 +3,20 @@ package edu.kit.informatik.adminapp.model;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
 import edu.kit.informatik.adminapp.model.resources.Errors;
 
 /**
@@ -122,4 +131,57 @@ public class TokenIdTest {
         TokenId tokenId2 = new TokenId(validTokenIds[1]);
         assertNotEquals(tokenId1.hashCode(), tokenId2.hashCode());
     }
+
+    /**
+     * Tests whether equal values share one instance, and whether invalid values are rejected.
+     */
+    @Test
+    public void testOf() {
+        assertSame(TokenId.of(new String(validTokenIds[0])),
+                TokenId.of(new String(validTokenIds[0])));
+        assertNotSame(TokenId.of(validTokenIds[0]), TokenId.of(validTokenIds[1]));
+        assertEquals(new TokenId(validTokenIds[0]), TokenId.of(validTokenIds[0]));
+        assertThrows(IllegalArgumentException.class, () -> TokenId.of("$"));
+    }
+
+    /**
+     * Tests whether a hash keeps its hexadecimal form and is shared, and whether an uppercase
+     * hash is not confused with a lowercase one.
+     */
+    @Test
+    public void testHash() {
+        String hash = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+        TokenId tokenId = TokenId.of(hash);
+
+        assertEquals(hash, tokenId.toString());
+        assertEquals(new TokenId(hash), tokenId);
+        assertEquals(new TokenId(hash).hashCode(), tokenId.hashCode());
+        assertSame(tokenId, TokenId.of(new String(hash.toCharArray())));
+        assertNotEquals(TokenId.of(hash.replace('e', 'f')), tokenId);
+        assertEquals(hash.toUpperCase(), TokenId.of(hash.toUpperCase()).toString());
+        assertNotEquals(TokenId.of(hash.toUpperCase()), tokenId);
+        assertNotEquals(TokenId.of(hash.substring(1)), tokenId);
+    }
+
+    /**
+     * Tests whether a hash is written as a marker and its 32 bytes, whether any other ID is
+     * written as a string, and whether both are read as shared instances.
+     */
+    @Test
+    public void testWriteRead() throws IOException {
+        TokenId hash = TokenId.of(
+                "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+        TokenId other = TokenId.of(validTokenIds[1]);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        hash.write(out);
+        assertEquals(1 + 32, out.size());
+        other.write(out);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertSame(hash, TokenId.read(in));
+        assertSame(other, TokenId.read(in));
+        DataInputStream invalid = new DataInputStream(new ByteArrayInputStream(new byte[] {2}));
+        assertThrows(StreamCorruptedException.class, () -> TokenId.read(invalid));
+    }
 }
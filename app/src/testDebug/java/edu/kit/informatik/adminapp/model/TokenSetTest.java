@@ -0,0 +1,93 @@
+package edu.kit.informatik.adminapp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class tests the {@link TokenSet} class.
+ */
+public class TokenSetTest {
+    private static final int TOKEN_COUNT = 1000;
+
+    /**
+     * Tests whether adding, removing and looking up tokens behaves like a {@link HashSet},
+     * including the tokens that have been moved back when another token was removed.
+     */
+    @Test
+    public void testAddRemove() {
+        Random random = new Random(42);
+        List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            tokens.add(new Token(new TokenId(Integer.toString(i))));
+        }
+        TokenSet set = new TokenSet();
+        Set<Token> expected = new HashSet<>();
+
+        for (int i = 0; i < 20 * TOKEN_COUNT; i++) {
+            Token token = tokens.get(random.nextInt(TOKEN_COUNT));
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(token), set.add(token));
+            } else {
+                assertEquals(expected.remove(token), set.remove(token));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (Token token : tokens) {
+            assertEquals(expected.contains(token), set.contains(token));
+        }
+        assertEquals(expected, set);
+        assertEquals(expected.hashCode(), set.hashCode());
+    }
+
+    /**
+     * Tests whether tokens with the same ID but different data are different elements.
+     */
+    @Test
+    public void testContains_data() {
+        TokenSet set = new TokenSet(new Token(new TokenId("a")));
+
+        assertTrue(set.contains(new Token(new TokenId("a"), TokenData.EMPTY)));
+        assertFalse(set.contains(new Token(new TokenId("a"), new TokenData("data"))));
+        assertFalse(set.contains(new TokenId("a")));
+    }
+
+    /**
+     * Tests whether the set is empty after it has been cleared, and can be used again.
+     */
+    @Test
+    public void testClear() {
+        TokenSet set = new TokenSet(new Token(new TokenId("a")), new Token(new TokenId("b")));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+        assertTrue(set.add(new Token(new TokenId("a"))));
+        assertEquals(1, set.size());
+    }
+
+    /**
+     * Tests whether an iterator fails once the set has been changed.
+     */
+    @Test
+    public void testIterator_modified() {
+        TokenSet set = new TokenSet(new Token(new TokenId("a")), new Token(new TokenId("b")));
+        Iterator<Token> iterator = set.iterator();
+
+        iterator.next();
+        set.add(new Token(new TokenId("c")));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+        assertThrows(NullPointerException.class, () -> set.add(null));
+    }
+}
@@ -8,6 +8,8 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Objects;
+
 /**
  * This class tests the {@link Token} class.
  */
@@ -154,4 +156,13 @@ public class TokenTest {
         Token token4 = new Token(this.tokenIds[1]);
         assertNotEquals(token3.hashCode(), token4.hashCode());
     }
+
+    /**
+     * Tests whether the hash code is the one of {@link Objects#hash(Object...)}.
+     */
+    @Test
+    public void testHashCode_objectsHash() {
+        Token token = new Token(this.tokenIds[0], this.data[0]);
+        assertEquals(Objects.hash(token.getId(), token.getData()), token.hashCode());
+    }
 }
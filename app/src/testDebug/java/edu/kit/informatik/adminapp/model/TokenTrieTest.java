@@ -0,0 +1,96 @@
+package edu.kit.informatik.adminapp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class tests the {@link TokenTrie} class.
+ */
+public class TokenTrieTest {
+    private static final int TOKEN_COUNT = 1000;
+
+    /**
+     * Tests whether adding and removing tokens behaves like a {@link HashSet}, and whether
+     * the earlier versions of the set are not changed.
+     */
+    @Test
+    public void testWithWithout() {
+        Random random = new Random(42);
+        List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            tokens.add(new Token(new TokenId(Integer.toString(i))));
+        }
+        TokenTrie trie = TokenTrie.EMPTY;
+        Set<Token> expected = new HashSet<>();
+        List<TokenTrie> versions = new ArrayList<>();
+        List<Set<Token>> expectedVersions = new ArrayList<>();
+
+        for (int i = 0; i < 10 * TOKEN_COUNT; i++) {
+            Token token = tokens.get(random.nextInt(TOKEN_COUNT));
+            if (random.nextBoolean()) {
+                trie = trie.with(token);
+                expected.add(token);
+            } else {
+                trie = trie.without(token);
+                expected.remove(token);
+            }
+            if (i % TOKEN_COUNT == 0) {
+                versions.add(trie);
+                expectedVersions.add(new HashSet<>(expected));
+            }
+        }
+
+        assertEquals(expected, trie);
+        assertEquals(expected.hashCode(), trie.hashCode());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i));
+            assertEquals(expectedVersions.get(i).size(), versions.get(i).size());
+        }
+    }
+
+    /**
+     * Tests whether tokens with the same hash code are kept apart.
+     */
+    @Test
+    public void testWithWithout_collision() {
+        // "Aa" and "BB" have the same hash code
+        Token aa = new Token(new TokenId("Aa"));
+        Token bb = new Token(new TokenId("BB"));
+        assertEquals(aa.hashCode(), bb.hashCode());
+
+        TokenTrie trie = TokenTrie.EMPTY.with(aa).with(bb);
+        assertEquals(2, trie.size());
+        assertTrue(trie.contains(aa) && trie.contains(bb));
+
+        TokenTrie removed = trie.without(aa);
+        assertFalse(removed.contains(aa));
+        assertTrue(removed.contains(bb));
+        assertSame(TokenTrie.EMPTY, removed.without(bb));
+    }
+
+    /**
+     * Tests whether unchanged sets are returned if nothing changes, and whether
+     * the set cannot be changed.
+     */
+    @Test
+    public void testUnchanged() {
+        Token token = new Token(new TokenId("a"));
+        TokenTrie trie = TokenTrie.EMPTY.with(token);
+
+        assertSame(trie, trie.with(new Token(new TokenId("a"))));
+        assertSame(trie, trie.without(new Token(new TokenId("b"))));
+        assertThrows(UnsupportedOperationException.class, () -> trie.add(token));
+        assertThrows(UnsupportedOperationException.class, () -> trie.remove(token));
+    }
+}
@@ -3,6 +3,8 @@ package edu.kit.informatik.adminapp.model;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -122,4 +124,15 @@ public class UserIdTest {
         UserId userId2 = new UserId(validUserIds[1]);
         assertNotEquals(userId1.hashCode(), userId2.hashCode());
     }
+
+    /**
+     * Tests whether equal values share one instance, and whether invalid values are rejected.
+     */
+    @Test
+    public void testOf() {
+        assertSame(UserId.of(new String(validUserIds[0])), UserId.of(new String(validUserIds[0])));
+        assertNotSame(UserId.of(validUserIds[0]), UserId.of(validUserIds[1]));
+        assertEquals(new UserId(validUserIds[0]), UserId.of(validUserIds[0]));
+        assertThrows(IllegalArgumentException.class, () -> UserId.of("$"));
+    }
 }
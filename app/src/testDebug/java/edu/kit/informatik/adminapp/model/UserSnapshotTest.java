@@ -0,0 +1,70 @@
+package edu.kit.informatik.adminapp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This class tests the {@link UserSnapshot} class.
+ */
+public class UserSnapshotTest {
+    private final Token a = new Token(new TokenId("a"));
+    private final Token b = new Token(new TokenId("b"));
+    private final User user = new User(new Name("Daniel Luckey"), new UserId("ud"), this.a);
+
+    /**
+     * Tests whether a snapshot has the state of the user and its hash code.
+     */
+    @Test
+    public void testOf() {
+        UserSnapshot snapshot = UserSnapshot.of(this.user);
+
+        assertEquals(this.user.getName(), snapshot.getName());
+        assertEquals(this.user.getId(), snapshot.getId());
+        assertEquals(this.user.getTokens().size(), snapshot.getTokens().size());
+        assertTrue(snapshot.getTokens().contains(this.a));
+        assertEquals(this.user.hashCode(), snapshot.hashCode());
+        assertEquals(this.user, snapshot.toUser());
+    }
+
+    /**
+     * Tests whether changing the user afterwards does not change the snapshot.
+     */
+    @Test
+    public void testOf_independent() {
+        UserSnapshot snapshot = UserSnapshot.of(this.user);
+        int hashCode = snapshot.hashCode();
+
+        this.user.add(this.b);
+        snapshot.toUser().removeAllTokens();
+
+        assertEquals(1, snapshot.getTokens().size());
+        assertEquals(hashCode, snapshot.hashCode());
+    }
+
+    /**
+     * Tests whether changes return new snapshots and leave the old ones unchanged.
+     */
+    @Test
+    public void testWithToken() {
+        UserSnapshot snapshot = UserSnapshot.of(this.user);
+
+        UserSnapshot added = snapshot.withToken(this.b);
+        UserSnapshot removed = added.withoutToken(this.a);
+        UserSnapshot cleared = added.withoutTokens();
+
+        assertEquals(1, snapshot.getTokens().size());
+        assertEquals(2, added.getTokens().size());
+        assertFalse(removed.getTokens().contains(this.a));
+        assertTrue(removed.getTokens().contains(this.b));
+        assertTrue(cleared.getTokens().isEmpty());
+        assertNotEquals(snapshot, added);
+        assertEquals(new UserSnapshot(this.user.getName(), this.user.getId(), this.b), removed);
+        assertSame(snapshot, snapshot.withToken(this.a));
+        assertSame(cleared, cleared.withoutTokens());
+    }
+}